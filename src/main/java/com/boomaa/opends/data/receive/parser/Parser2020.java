@@ -34,6 +34,14 @@ public class Parser2020 {
             return super.getFlagDataAt(Trace.values(), 4);
         }
 
+        public int getRawStatus() {
+            return NumberUtils.getUInt8(packet[3]);
+        }
+
+        public int getRawTrace() {
+            return NumberUtils.getUInt8(packet[4]);
+        }
+
         public double getBatteryVoltage() {
             return NumberUtils.getUInt8(packet[5]) + (NumberUtils.getUInt8(packet[6])) / 256.0;
         }
@@ -8,17 +8,18 @@ import com.boomaa.opends.display.DisplayEndpoint;
 import com.boomaa.opends.display.MainJDEC;
 import com.boomaa.opends.display.RobotMode;
 import com.boomaa.opends.networking.WlanConnection;
-import com.boomaa.opends.usb.Component;
 import com.boomaa.opends.usb.ControlDevices;
 import com.boomaa.opends.usb.Controller;
 import com.boomaa.opends.usb.HIDDevice;
+import com.boomaa.opends.usb.InputFrame;
+import com.boomaa.opends.usb.InputThread;
+import com.boomaa.opends.util.FlightRecorder;
 import com.boomaa.opends.util.NumberUtils;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
-import java.util.Map;
 
 public enum SendTag {
     COUNTDOWN(0x07, Protocol.UDP, Remote.ROBO_RIO,
@@ -40,28 +41,27 @@ public enum SendTag {
             RefSendTag.yearOfAction(2020),
             () -> {
                 PacketBuilder builder = new PacketBuilder();
-                HIDDevice dev = ControlDevices.getAll().get(ControlDevices.iterateSend(true));
-                if (dev != null && !dev.isDisabled()) {
-                    dev.update();
+                InputFrame frame = InputThread.getLatched();
+                int slot = InputThread.nextSendSlot();
+                if (frame.isPresent(slot)) {
                     builder.addInt(HIDDevice.DEFAULT_AXIS_MAX); // numAxes
-                    Map<Component.Identifier, Integer> axesMap = dev.getAxesTracker().getDirectMap();
                     for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
-                        Component.Identifier id = Component.Axis.values()[i];
-                        if (axesMap.containsKey(id)) {
-                            Component comp = dev.getComponent(axesMap.get(id));
-                            builder.addInt(NumberUtils.dblToInt8(comp.getValue()));
-                        } else {
-                            builder.addInt(0);
-                        }
+                        builder.addInt(frame.getEncodedAxis(slot, i));
+                    }
+                    builder.addInt(frame.getNumButtons(slot))
+                            .addBytes(frame.packButtons(slot))
+                            .addInt(frame.getNumPovs(slot));
+                    for (int i = 0; i < frame.getNumPovs(slot); i++) {
+                        int angle = frame.getPov(slot, i); // int16, -1 when centered
+                        builder.addInt(angle >> 8).addInt(angle);
                     }
-                    builder.addInt(dev.usedNumButtons())
-                            .addBytes(NumberUtils.packBools(dev.getButtons()))
-                            .addInt(0); //povCount
                 } else {
                     // Placeholder values for js index padding
                     builder.addInt(0).addInt(0).addInt(0); //num axes, btns, povs
                 }
-                return builder.build();
+                byte[] out = builder.build();
+                FlightRecorder.record(FlightRecorder.Type.JOYSTICK, out);
+                return out;
             },
             RefSendTag.yearOfAction(2015),
             RefSendTag.yearOfAction(2020),
@@ -98,7 +98,7 @@ public enum SendTag {
             RefSendTag.yearOfAction(2020),
             () -> {
                 PacketBuilder builder = new PacketBuilder();
-                int idx = ControlDevices.iterateSend(false);
+                int idx = ControlDevices.iterateSend();
                 HIDDevice dev = ControlDevices.getAll().get(idx);
                 if (dev != null && !dev.isDisabled()) {
                     builder.addInt(dev.getIdx())
@@ -112,7 +112,7 @@ public enum SendTag {
                         builder.addInt(i % 3); //axesTypes
                     }
                     builder.addInt(dev.usedNumButtons())
-                            .addInt(0); //povCount
+                            .addInt(dev.usedNumPovs());
                 } else {
                     builder.addInt(idx)
                             .addInt(0) //isXbox
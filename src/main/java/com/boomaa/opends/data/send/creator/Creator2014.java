@@ -7,8 +7,8 @@ import com.boomaa.opends.data.holders.Request;
 import com.boomaa.opends.data.send.PacketBuilder;
 import com.boomaa.opends.data.send.SendTag;
 import com.boomaa.opends.display.RobotMode;
-import com.boomaa.opends.usb.ControlDevices;
 import com.boomaa.opends.usb.IndexTracker;
+import com.boomaa.opends.usb.InputThread;
 
 import java.util.Objects;
 import java.util.zip.CRC32;
@@ -39,7 +39,7 @@ public class Creator2014 extends NoTCPCreator {
         builder.addInt(station.isBlue() ? 0x42 : 0x52)
                 .addInt(station.getSidedNum() + 0x30);
         if (IS_ENABLED.isSelected()) {
-            ControlDevices.updateValues();
+            InputThread.latch();
             for (int i = 0; i < IndexTracker.MAX_JS_NUM; i++) {
                 builder.addBytes(SendTag.JOYSTICK.getBytes());
             }
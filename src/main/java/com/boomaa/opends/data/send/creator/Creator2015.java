@@ -9,8 +9,8 @@ import com.boomaa.opends.data.send.SendTag;
 import com.boomaa.opends.display.DisplayEndpoint;
 import com.boomaa.opends.display.MainJDEC;
 import com.boomaa.opends.display.RobotMode;
-import com.boomaa.opends.usb.ControlDevices;
 import com.boomaa.opends.usb.IndexTracker;
+import com.boomaa.opends.usb.InputThread;
 import com.boomaa.opends.util.NumberUtils;
 
 import java.util.Objects;
@@ -51,7 +51,7 @@ public class Creator2015 extends NoTCPCreator {
                     .addBytes(tzOut);
         }
         if (IS_ENABLED.isSelected()) {
-            ControlDevices.updateValues();
+            InputThread.latch();
             for (int i = 0; i < IndexTracker.MAX_JS_NUM; i++) {
                 builder.addBytes(SendTag.JOYSTICK.getBytes());
             }
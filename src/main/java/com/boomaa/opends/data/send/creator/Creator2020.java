@@ -10,8 +10,8 @@ import com.boomaa.opends.data.send.PacketBuilder;
 import com.boomaa.opends.data.send.SendTag;
 import com.boomaa.opends.display.DisplayEndpoint;
 import com.boomaa.opends.display.RobotMode;
-import com.boomaa.opends.usb.ControlDevices;
 import com.boomaa.opends.usb.IndexTracker;
+import com.boomaa.opends.usb.InputThread;
 import com.boomaa.opends.util.NumberUtils;
 import com.boomaa.opends.util.PacketCounters;
 
@@ -43,8 +43,8 @@ public class Creator2020 extends PacketCreator {
             builder.addBytes(SendTag.TIMEZONE.getBytes());
         }
         if (IS_ENABLED.isSelected()) {
-            ControlDevices.updateValues();
-            for (int i = 0; i <= IndexTracker.MAX_JS_INDEX; i++) {
+            int slots = InputThread.latch().getSlotCount();
+            for (int i = 0; i < slots; i++) {
                 builder.addBytes(SendTag.JOYSTICK.getBytes());
             }
         }
@@ -12,7 +12,16 @@ import com.boomaa.opends.headless.HeadlessController;
 import com.boomaa.opends.networking.AddressConstants;
 import com.boomaa.opends.networking.NetworkClock;
 import com.boomaa.opends.networktables.NTConnection;
+import com.boomaa.opends.networktables.NTPublisher;
+import com.boomaa.opends.networktables.NTRecorder;
+import com.boomaa.opends.networktables.NTSnapshot;
+import com.boomaa.opends.networktables.nt4.NT4Client;
 import com.boomaa.opends.usb.ControlDevices;
+import com.boomaa.opends.usb.InputDirWatcher;
+import com.boomaa.opends.usb.InputPlayback;
+import com.boomaa.opends.usb.InputRecorder;
+import com.boomaa.opends.usb.InputThread;
+import com.boomaa.opends.usb.VirtualDevices;
 import com.boomaa.opends.util.ArrayUtils;
 import com.boomaa.opends.util.Clock;
 import com.boomaa.opends.util.DSLog;
@@ -28,6 +37,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -36,7 +46,7 @@ public class DisplayEndpoint implements MainJDEC {
     public static final String CURRENT_VERSION_TAG = "v0.3.0";
 
     public static DSLog FILE_LOGGER = new DSLog();
-    public static NTConnection NETWORK_TABLES = new NTConnection();
+    public static Clock NETWORK_TABLES;
     public static InitChecker NET_IF_INIT = new InitChecker();
     public static Integer[] VALID_PROTOCOL_YEARS = { 2025, 2024, 2023, 2022, 2021, 2020, 2016, 2015, 2014 };
     public static Integer[] UI_PROTOCOL_YEARS = { 2025, 2024, 2023, 2022, 2021, 2020, 2016, 2015, 2014 };
@@ -59,9 +69,11 @@ public class DisplayEndpoint implements MainJDEC {
         public void onCycle() {
             if (MainJDEC.FRAME.isShowing()) {
                 System.gc();
-                ControlDevices.updateValues();
-                ControlDevices.checkForRemoval();
-                ControlDevices.findAll();
+                // platforms without a device watcher (or where it failed to start) still poll
+                if (!InputDirWatcher.isWatching()) {
+                    ControlDevices.checkForRemoval();
+                    ControlDevices.findAll();
+                }
                 MainJDEC.JOYSTICK_LED.setOn(!ControlDevices.getAll().isEmpty());
             } else {
                 super.end();
@@ -77,6 +89,19 @@ public class DisplayEndpoint implements MainJDEC {
         Parameter.parseArgs(args);
         Libraries.init();
         ControlDevices.init();
+        VirtualDevices.init();
+        if (Parameter.JS_PLAYBACK.isPresent()) {
+            try {
+                InputPlayback.load(Paths.get(Parameter.JS_PLAYBACK.getStringValue()));
+                Debug.println("Joystick input will be played back from " + Parameter.JS_PLAYBACK.getStringValue());
+            } catch (IOException e) {
+                Debug.println("Could not load joystick recording: " + e.getMessage(), EventSeverity.ERROR, false, true);
+            }
+        }
+        if (Parameter.JS_RECORD.isPresent()) {
+            InputRecorder.start();
+        }
+        InputThread.start();
         LogManager.getLogManager().reset();
         Logger.getLogger(GlobalScreen.class.getPackage().getName()).setLevel(Level.OFF);
         if (!Parameter.HEADLESS.isPresent()) {
@@ -93,7 +118,13 @@ public class DisplayEndpoint implements MainJDEC {
             FILE_LOGGER.start();
         }
         if (!Parameter.DISABLE_NETTABLES.isPresent()) {
+            int cached = NTSnapshot.load();
+            if (cached != 0) {
+                Debug.println("Loaded " + cached + " cached NetworkTables entries");
+            }
+            NETWORK_TABLES = createNetworkTables();
             NETWORK_TABLES.start();
+            NTRecorder.start(!Parameter.DISABLE_LOG.isPresent());
         }
         checkForUpdates();
 
@@ -122,12 +153,18 @@ public class DisplayEndpoint implements MainJDEC {
 
     public static void shutdown() {
         controlUpdater.end();
+        InputThread.stop();
+        InputRecorder.stop();
         RIO_TCP_CLOCK.end();
         RIO_UDP_CLOCK.end();
         FMS_TCP_CLOCK.end();
         FMS_UDP_CLOCK.end();
         FILE_LOGGER.end();
-        NETWORK_TABLES.end();
+        if (NETWORK_TABLES != null) {
+            NETWORK_TABLES.end();
+            NTRecorder.stop();
+            NTSnapshot.save();
+        }
         if (!Parameter.DISABLE_HOTKEYS.isPresent()) {
             try {
                 GlobalScreen.unregisterNativeHook();
@@ -136,6 +173,19 @@ public class DisplayEndpoint implements MainJDEC {
         }
     }
 
+    // Null when NetworkTables is disabled
+    public static NTPublisher getNTPublisher() {
+        return NETWORK_TABLES instanceof NTPublisher ? (NTPublisher) NETWORK_TABLES : null;
+    }
+
+    // NT4 unless asked otherwise; robots from 2023 on serve it alongside NT3
+    private static Clock createNetworkTables() {
+        String version = Parameter.NT_VERSION.isPresent() ? Parameter.NT_VERSION.getStringValue()
+            : (MainJDEC.getProtocolYear() >= 2023 ? "4" : "3");
+        Debug.println("Using NetworkTables " + version + " client");
+        return version.equals("4") ? new NT4Client() : new NTConnection();
+    }
+
     public static int resolveProtocolYear(int uiYear) {
         return uiYear;
     }
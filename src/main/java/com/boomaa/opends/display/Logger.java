@@ -1,47 +1,36 @@
 package com.boomaa.opends.display;
 
-import java.awt.EventQueue;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
+import com.boomaa.opends.display.elements.LogList;
+import com.boomaa.opends.util.MpscQueue;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
-import java.awt.Insets;
+import javax.swing.Timer;
 
 public class Logger extends OutputStream {
     public static Logger LOGGER;
     public static PrintStream OUT;
     public static JScrollPane PANE;
     private final byte[] oneByte;
+    private final StringBuilder partialLine;
     private Appender appender;
 
     static {
-        JTextArea textArea = new JTextArea(15, 45);
-        textArea.setMargin(new Insets(2, 6, 2, 2));
-        textArea.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                textArea.setCaretPosition(textArea.getDocument().getLength());
-                textArea.update(textArea.getGraphics());
-            }
-        });
-        textArea.setEditable(false);
-        Theme.styleLogArea(textArea);
-
-        LOGGER = new Logger(textArea);
+        LOGGER = new Logger();
         OUT = new PrintStream(LOGGER);
-        PANE = new JScrollPane(textArea,
-                JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        PANE = createMirrorPane();
     }
 
-    public Logger(JTextArea textArea) {
+    public Logger() {
         oneByte = new byte[1];
-        appender = new Appender(textArea);
+        partialLine = new StringBuilder();
+        appender = new Appender();
     }
 
     public Appender getAppender() {
@@ -49,22 +38,12 @@ public class Logger extends OutputStream {
     }
 
     public static JScrollPane createMirrorPane() {
-        JTextArea textArea = new JTextArea(15, 45);
-        textArea.setMargin(new Insets(2, 6, 2, 2));
-        textArea.setEditable(false);
-        Theme.styleLogArea(textArea);
-        Appender app = LOGGER.appender;
-        if (app != null) {
-            app.addSink(textArea);
-            textArea.setText(app.getTextArea().getText());
-            textArea.setCaretPosition(textArea.getDocument().getLength());
-        }
-        return new JScrollPane(textArea,
-                JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        return new LogList(LOGGER.appender).createScrollPane();
     }
 
     public synchronized void clear() {
         if (appender != null) {
+            partialLine.setLength(0);
             appender.clear();
         }
     }
@@ -86,8 +65,25 @@ public class Logger extends OutputStream {
     }
 
     public synchronized void write(byte[] ba, int str, int len) {
-        if (appender != null) {
-            appender.append(bytesToString(ba, str, len));
+        if (appender == null) {
+            return;
+        }
+        String val = bytesToString(ba, str, len);
+        int start = 0;
+        int eol;
+        while ((eol = val.indexOf('\n', start)) != -1) {
+            int end = eol > start && val.charAt(eol - 1) == '\r' ? eol - 1 : eol;
+            if (partialLine.length() != 0) {
+                partialLine.append(val, start, end);
+                appender.append(partialLine.toString());
+                partialLine.setLength(0);
+            } else {
+                appender.append(val.substring(start, end));
+            }
+            start = eol + 1;
+        }
+        if (start < val.length()) {
+            partialLine.append(val, start, val.length());
         }
     }
 
@@ -95,87 +91,102 @@ public class Logger extends OutputStream {
         return new String(ba, str, len, StandardCharsets.UTF_8);
     }
 
-    public static class Appender implements Runnable {
-        private static final String EOL1 = "\n";
-        private static final String EOL2 = System.getProperty("line.separator", EOL1);
-
-        private final JTextArea textArea;
-        private final List<JTextArea> sinks = new ArrayList<>();
-        private final int maxLines = 2000;
-        private final LinkedList<Integer> lengths;
-        private final List<String> values;
-        private int curLength;
-        private boolean clear;
-        private boolean queue;
-
-        private Appender(JTextArea textArea) {
-            this.textArea = textArea;
-            sinks.add(textArea);
-            lengths = new LinkedList<>();
-            values = new ArrayList<>();
-
-            curLength = 0;
-            clear = false;
-            queue = true;
+    // Fixed-capacity ring of lines; producers only touch the pending queue,
+    // the EDT moves pending lines into the ring once per refresh tick
+    public static class Appender extends AbstractListModel<String> implements ActionListener {
+        private static final int MAX_LINES = 20000;
+        private static final int REFRESH_MS = 33;
+
+        private final MpscQueue<String> pending = new MpscQueue<>(65536);
+        private final String[] lines = new String[MAX_LINES];
+        private final Timer refreshTimer;
+        private int first;
+        private int size;
+        private int maxLineLength;
+        private long reportedDrops;
+        private volatile boolean clear;
+
+        private Appender() {
+            refreshTimer = new Timer(REFRESH_MS, this);
+            refreshTimer.setCoalesce(true);
+            refreshTimer.start();
         }
 
-        public List<String> getValues() {
-            return values;
+        public void append(String line) {
+            pending.offer(line);
         }
 
-        public JTextArea getTextArea() {
-            return textArea;
+        public void clear() {
+            clear = true;
         }
 
-        public synchronized void addSink(JTextArea area) {
-            sinks.add(area);
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            int oldSize;
+            int added;
+            synchronized (this) {
+                oldSize = size;
+                if (clear) {
+                    clear = false;
+                    pending.clear();
+                    Arrays.fill(lines, null);
+                    first = 0;
+                    size = 0;
+                    maxLineLength = 0;
+                }
+                long drops = pending.getDropped();
+                if (drops != reportedDrops) {
+                    addLine("[Logger] " + (drops - reportedDrops) + " lines dropped");
+                    reportedDrops = drops;
+                }
+                added = pending.drain(this::addLine);
+            }
+            if (size < oldSize) {
+                fireIntervalRemoved(this, size, oldSize - 1);
+            }
+            if (added == 0) {
+                return;
+            }
+            if (size > oldSize) {
+                fireIntervalAdded(this, oldSize, size - 1);
+            }
+            if (size == MAX_LINES) {
+                // rows shifted after eviction, only the visible ones get repainted
+                fireContentsChanged(this, 0, size - 1);
+            }
         }
 
-        public synchronized void append(String val) {
-            values.add(val);
-            if (queue) {
-                queue = false;
-                EventQueue.invokeLater(this);
+        private void addLine(String line) {
+            if (size < MAX_LINES) {
+                lines[(first + size) % MAX_LINES] = line;
+                size++;
+            } else {
+                lines[first] = line;
+                first = (first + 1) % MAX_LINES;
             }
+            maxLineLength = Math.max(maxLineLength, line.length());
         }
 
-        public synchronized void clear() {
-            clear = true;
-            curLength = 0;
-            lengths.clear();
-            values.clear();
-            if (queue) {
-                queue = false;
-                EventQueue.invokeLater(this);
-            }
+        @Override
+        public synchronized int getSize() {
+            return size;
         }
 
-        public synchronized void run() {
-            if (clear) {
-                for (JTextArea area : sinks) {
-                    area.setText("");
-                }
-            }
-            for (String val : values) {
-                curLength += val.length();
-                if (val.endsWith(EOL1) || val.endsWith(EOL2)) {
-                    if (lengths.size() >= maxLines) {
-                        int cut = lengths.removeFirst();
-                        for (JTextArea area : sinks) {
-                            area.replaceRange("", 0, cut);
-                        }
-                    }
-                    lengths.addLast(curLength);
-                    curLength = 0;
-                }
-                for (JTextArea area : sinks) {
-                    area.append(val);
-                }
+        @Override
+        public synchronized String getElementAt(int index) {
+            return index < size ? lines[(first + index) % MAX_LINES] : "";
+        }
+
+        public synchronized int getMaxLineLength() {
+            return maxLineLength;
+        }
+
+        public synchronized String getText() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                sb.append(lines[(first + i) % MAX_LINES]).append(System.lineSeparator());
             }
-            values.clear();
-            clear = false;
-            queue = true;
+            return sb.toString();
         }
     }
-
 }
@@ -5,8 +5,8 @@ import java.awt.Font;
 import java.awt.Insets;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
+import javax.swing.JList;
 import javax.swing.JPanel;
-import javax.swing.JTextArea;
 import javax.swing.UIManager;
 import javax.swing.border.Border;
 import javax.swing.plaf.ColorUIResource;
@@ -129,10 +129,11 @@ public final class Theme {
         );
     }
 
-    public static void styleLogArea(JTextArea textArea) {
-        textArea.setBackground(SURFACE);
-        textArea.setForeground(TEXT);
-        textArea.setCaretColor(TEXT);
-        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+    public static void styleLogList(JList<?> list) {
+        list.setBackground(SURFACE);
+        list.setForeground(TEXT);
+        list.setSelectionBackground(ACCENT_DARK);
+        list.setSelectionForeground(TEXT);
+        list.setFont(new Font("Monospaced", Font.PLAIN, 12));
     }
 }
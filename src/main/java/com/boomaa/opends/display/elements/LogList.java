@@ -0,0 +1,78 @@
+package com.boomaa.opends.display.elements;
+
+import com.boomaa.opends.display.Logger;
+import com.boomaa.opends.display.Theme;
+
+import java.awt.EventQueue;
+import java.awt.FontMetrics;
+import java.awt.Rectangle;
+import java.util.function.IntSupplier;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.ListModel;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+public class LogList extends JList<String> implements ListDataListener {
+    private final IntSupplier maxLineLength;
+    private boolean followTail = true;
+
+    public LogList(ListModel<String> model, IntSupplier maxLineLength) {
+        super(model);
+        this.maxLineLength = maxLineLength;
+        Theme.styleLogList(this);
+        this.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        this.setVisibleRowCount(15);
+        FontMetrics fm = getFontMetrics(getFont());
+        this.setFixedCellHeight(fm.getHeight());
+        this.setFixedCellWidth(fm.charWidth('m') * 45);
+        model.addListDataListener(this);
+    }
+
+    public LogList(Logger.Appender appender) {
+        this(appender, appender::getMaxLineLength);
+    }
+
+    @Override
+    public void intervalAdded(ListDataEvent e) {
+        onRowsChanged();
+    }
+
+    @Override
+    public void intervalRemoved(ListDataEvent e) {
+        onRowsChanged();
+    }
+
+    @Override
+    public void contentsChanged(ListDataEvent e) {
+        onRowsChanged();
+    }
+
+    private void onRowsChanged() {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            Rectangle view = viewport.getViewRect();
+            followTail = view.y + view.height >= getHeight() - getFixedCellHeight();
+        }
+        int width = getFontMetrics(getFont()).charWidth('m') * (maxLineLength.getAsInt() + 2);
+        if (width > getFixedCellWidth()) {
+            setFixedCellWidth(width);
+        }
+        if (followTail) {
+            // list UI lays out the new rows after this listener returns
+            EventQueue.invokeLater(() -> {
+                int last = getModel().getSize() - 1;
+                if (last >= 0) {
+                    ensureIndexIsVisible(last);
+                }
+            });
+        }
+    }
+
+    public JScrollPane createScrollPane() {
+        return new JScrollPane(this, JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+    }
+}
@@ -0,0 +1,56 @@
+package com.boomaa.opends.display.elements;
+
+import com.boomaa.opends.util.LogStore;
+
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
+
+public class LogSearchModel extends AbstractListModel<String> {
+    private int[] ids = new int[0];
+    private int maxLineLength;
+
+    public void setResults(int[] results) {
+        int oldSize = ids.length;
+        ids = results;
+        for (int id : results) {
+            maxLineLength = Math.max(maxLineLength, LogStore.getText(id).length());
+        }
+        if (oldSize > ids.length) {
+            fireIntervalRemoved(this, ids.length, oldSize - 1);
+        } else if (oldSize < ids.length) {
+            fireIntervalAdded(this, oldSize, ids.length - 1);
+        }
+        if (ids.length > 0) {
+            fireContentsChanged(this, 0, ids.length - 1);
+        }
+    }
+
+    // Adds results for newer lines without touching the rows already shown
+    public void appendResults(int[] more) {
+        if (more.length == 0) {
+            return;
+        }
+        int oldSize = ids.length;
+        ids = Arrays.copyOf(ids, oldSize + more.length);
+        System.arraycopy(more, 0, ids, oldSize, more.length);
+        for (int id : more) {
+            maxLineLength = Math.max(maxLineLength, LogStore.getText(id).length());
+        }
+        fireIntervalAdded(this, oldSize, ids.length - 1);
+    }
+
+    public int getMaxLineLength() {
+        // timestamp, severity and source prefix
+        return maxLineLength + 40;
+    }
+
+    @Override
+    public int getSize() {
+        return ids.length;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return LogStore.format(ids[index]);
+    }
+}
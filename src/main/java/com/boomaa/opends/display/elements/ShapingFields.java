@@ -0,0 +1,49 @@
+package com.boomaa.opends.display.elements;
+
+import com.boomaa.opends.usb.AxisShaping;
+
+import javax.swing.JCheckBox;
+import javax.swing.JTextField;
+
+public class ShapingFields {
+    private final JTextField deadband = new JTextField(3);
+    private final JTextField expo = new JTextField(3);
+    private final JTextField scale = new JTextField(3);
+    private final JCheckBox inverted = new JCheckBox();
+
+    public void load(AxisShaping.Curve curve) {
+        deadband.setText(String.valueOf(curve.getDeadband()));
+        expo.setText(String.valueOf(curve.getExpo()));
+        scale.setText(String.valueOf(curve.getScale()));
+        inverted.setSelected(curve.isInverted());
+    }
+
+    // Unparseable fields fall back to the value that leaves the axis unshaped
+    public AxisShaping.Curve toCurve() {
+        return new AxisShaping.Curve(parse(deadband, 0), parse(expo, 0), parse(scale, 1), inverted.isSelected());
+    }
+
+    private static double parse(JTextField field, double defRtn) {
+        try {
+            return Double.parseDouble(field.getText().trim());
+        } catch (NumberFormatException ignored) {
+        }
+        return defRtn;
+    }
+
+    public JTextField getDeadband() {
+        return deadband;
+    }
+
+    public JTextField getExpo() {
+        return expo;
+    }
+
+    public JTextField getScale() {
+        return scale;
+    }
+
+    public JCheckBox getInverted() {
+        return inverted;
+    }
+}
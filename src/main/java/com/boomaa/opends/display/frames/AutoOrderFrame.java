@@ -113,7 +113,6 @@ public class AutoOrderFrame extends FrameBase {
 
         @Override
         public void onCycle() {
-            ControlDevices.updateValues();
             for (HIDDevice device : ControlDevices.getAll().values()) {
                 if (devices.contains(device)) {
                     continue;
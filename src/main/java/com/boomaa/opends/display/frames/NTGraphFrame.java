@@ -0,0 +1,196 @@
+package com.boomaa.opends.display.frames;
+
+import com.boomaa.opends.display.Theme;
+import com.boomaa.opends.display.elements.GBCPanelBuilder;
+import com.boomaa.opends.networktables.NTRecorder;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+public class NTGraphFrame extends FrameBase {
+    private static final String[] WINDOW_NAMES = { "10 s", "1 min", "5 min", "30 min", "4 h" };
+    private static final long[] WINDOW_MS = { 10_000, 60_000, 300_000, 1_800_000, 14_400_000 };
+    private static final int REPAINT_MS = 250;
+    private static final Color ENVELOPE = new Color(56, 189, 248, 70);
+    private static String path;
+    private JComboBox<String> windowSelect;
+    private JLabel status;
+    private Timer repaintTimer;
+
+    public NTGraphFrame() {
+        super("NT Graph", new Dimension(720, 380));
+    }
+
+    public static void open(String entryPath) {
+        path = entryPath;
+        if (FrameBase.isAlive(NTGraphFrame.class)) {
+            NTGraphFrame frame = FrameBase.getAlive(NTGraphFrame.class);
+            frame.setTitle("NT Graph - " + path);
+            frame.repaintTimer.start();
+            frame.forceShow();
+        } else {
+            new NTGraphFrame();
+        }
+    }
+
+    @Override
+    public void preConfig() {
+        super.preConfig();
+        this.setTitle("NT Graph - " + path);
+        content.setLayout(new GridBagLayout());
+        GBCPanelBuilder base = new GBCPanelBuilder(content)
+            .setFill(GridBagConstraints.BOTH)
+            .setAnchor(GridBagConstraints.CENTER)
+            .setInsets(new Insets(5, 5, 5, 5));
+
+        Plot plot = new Plot();
+        base.clone().setPos(0, 0, 3, 1).setWeightX(1).setWeightY(1).build(plot);
+
+        windowSelect = new JComboBox<>(WINDOW_NAMES);
+        windowSelect.setSelectedIndex(1);
+        windowSelect.addActionListener((e) -> plot.repaint());
+        base.clone().setPos(0, 1, 1, 1).setFill(GridBagConstraints.NONE).build(windowSelect);
+
+        status = new JLabel(" ");
+        status.setForeground(Theme.MUTED);
+        base.clone().setPos(1, 1, 1, 1).setWeightX(1).build(status);
+
+        JButton export = new JButton("Export CSV");
+        Theme.styleGhostButton(export);
+        export.addActionListener((e) -> exportCsv());
+        base.clone().setPos(2, 1, 1, 1).setFill(GridBagConstraints.NONE).build(export);
+
+        repaintTimer = new Timer(REPAINT_MS, (e) -> plot.repaint());
+        repaintTimer.setCoalesce(true);
+        repaintTimer.start();
+    }
+
+    @Override
+    public void dispose() {
+        repaintTimer.stop();
+        super.dispose();
+    }
+
+    private void exportCsv() {
+        NTRecorder.Series series = NTRecorder.getSeries(path);
+        if (series == null) {
+            MessageBox.show("Nothing has been recorded for " + path, MessageBox.Type.ERROR);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(path.replaceAll("[^A-Za-z0-9_.-]+", "_").replaceAll("^_", "") + ".csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File dest = chooser.getSelectedFile();
+        status.setText("Exporting...");
+        // older samples come back from the segment file, so keep it off the EDT
+        Thread exporter = new Thread(() -> {
+            try {
+                int rows = NTRecorder.exportCsv(series, dest);
+                SwingUtilities.invokeLater(() -> status.setText("Exported " + rows + " samples to " + dest.getName()));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    status.setText(" ");
+                    MessageBox.show("Could not export " + path + ": " + e.getMessage(), MessageBox.Type.ERROR);
+                });
+            }
+        }, "opends-ntexport");
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    private class Plot extends JPanel {
+        private static final int PAD = 40;
+
+        private Plot() {
+            setBackground(Theme.SURFACE);
+            setPreferredSize(new Dimension(680, 300));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D graphics = (Graphics2D) g;
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            NTRecorder.Series series = NTRecorder.getSeries(path);
+            if (series == null) {
+                graphics.setColor(Theme.MUTED);
+                graphics.drawString("No numeric samples recorded for " + path, PAD, getHeight() / 2);
+                return;
+            }
+            int width = getWidth() - 2 * PAD;
+            int height = getHeight() - 2 * PAD;
+            long to = System.currentTimeMillis();
+            long from = to - WINDOW_MS[windowSelect.getSelectedIndex()];
+            NTRecorder.Samples samples = series.query(from, to, Math.max(1, width));
+            if (samples.size() == 0) {
+                graphics.setColor(Theme.MUTED);
+                graphics.drawString("No samples in this window", PAD, getHeight() / 2);
+                return;
+            }
+            double lo = Double.MAX_VALUE;
+            double hi = -Double.MAX_VALUE;
+            for (int i = 0; i < samples.size(); i++) {
+                lo = Math.min(lo, samples.getMin(i));
+                hi = Math.max(hi, samples.getMax(i));
+            }
+            if (hi - lo < 1e-9) {
+                hi += 0.5;
+                lo -= 0.5;
+            }
+
+            graphics.setColor(Theme.BORDER);
+            graphics.drawRect(PAD, PAD, width, height);
+            graphics.setColor(Theme.MUTED);
+            graphics.drawString(String.format("%.3f", hi), 2, PAD + 4);
+            graphics.drawString(String.format("%.3f", lo), 2, PAD + height + 4);
+            graphics.drawString(WINDOW_NAMES[windowSelect.getSelectedIndex()] + " ago", PAD, getHeight() - 10);
+            graphics.drawString("now", PAD + width - 20, getHeight() - 10);
+
+            int n = samples.size();
+            int[] xs = new int[n];
+            Polygon envelope = new Polygon();
+            for (int i = 0; i < n; i++) {
+                xs[i] = PAD + (int) ((samples.getTime(i) - from) * width / (to - from));
+                xs[i] = Math.max(PAD, Math.min(PAD + width, xs[i]));
+                envelope.addPoint(xs[i], toY(samples.getMax(i), lo, hi, height));
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                envelope.addPoint(xs[i], toY(samples.getMin(i), lo, hi, height));
+            }
+            graphics.setColor(ENVELOPE);
+            graphics.fillPolygon(envelope);
+
+            graphics.setColor(Theme.ACCENT);
+            graphics.setStroke(new BasicStroke(1.5f));
+            int prevY = toY(samples.getAvg(0), lo, hi, height);
+            for (int i = 1; i < n; i++) {
+                int y = toY(samples.getAvg(i), lo, hi, height);
+                graphics.drawLine(xs[i - 1], prevY, xs[i], y);
+                prevY = y;
+            }
+        }
+
+        private int toY(double value, double lo, double hi, int height) {
+            return PAD + height - (int) ((value - lo) / (hi - lo) * height);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.boomaa.opends.display.frames;
 
 import com.boomaa.opends.display.elements.AxisComboBox;
 import com.boomaa.opends.display.elements.GBCPanelBuilder;
+import com.boomaa.opends.display.elements.ShapingFields;
 import com.boomaa.opends.display.tabs.JoystickTab;
+import com.boomaa.opends.usb.AxisShaping;
 import com.boomaa.opends.usb.Component;
 import com.boomaa.opends.usb.ComponentTracker;
 import com.boomaa.opends.usb.HIDDevice;
@@ -31,7 +33,7 @@ public class ReassignAxesFrame extends FrameBase {
     private static HIDDevice device;
 
     public ReassignAxesFrame() {
-        super("Reassign Axes", new Dimension(240, 300));
+        super("Reassign Axes", new Dimension(480, 300));
     }
 
     @Override
@@ -67,6 +69,12 @@ public class ReassignAxesFrame extends FrameBase {
             Debug.println("New direct axis mapping: " + axesTracker.getDirectMap().toString());
             axesTracker.saveToFile(device.getAxesTrackerFilePath());
             Debug.println("Axis reassignment saved to file");
+            AxisShaping shaping = selectedDevice.getShaping();
+            for (int i = 0; i < EmbeddedJDEC.SHAPING.length; i++) {
+                shaping.setCurve(i, EmbeddedJDEC.SHAPING[i].toCurve());
+            }
+            shaping.saveToFile(device.getAxisShapingFilePath());
+            Debug.println("Axis shaping saved to file");
             forceDispose();
         });
 
@@ -86,6 +94,10 @@ public class ReassignAxesFrame extends FrameBase {
             .setAnchor(GridBagConstraints.LINE_END);
 
         base.clone().setPos(0, 0, 2, 1).build(new JLabel("Used Axes"));
+        base.clone().setPos(2, 0, 1, 1).build(new JLabel("Deadband"));
+        base.clone().setPos(3, 0, 1, 1).build(new JLabel("Expo"));
+        base.clone().setPos(4, 0, 1, 1).build(new JLabel("Scale"));
+        base.clone().setPos(5, 0, 1, 1).build(new JLabel("Invert"));
         ComponentTracker axesTracker = device.getAxesTracker();
         List<Component.Identifier> allAxes = new ArrayList<>(axesTracker.getHardwareMap().keySet());
         for (int i = 0; i < EmbeddedJDEC.USED_AXES.length; i++) {
@@ -100,18 +112,24 @@ public class ReassignAxesFrame extends FrameBase {
             }
             end.clone().setPos(0, 1 + i, 1, 1).build(new JLabel(box.getName()));
             base.clone().setPos(1, 1 + i, 1, 1).build(box);
+            ShapingFields fields = EmbeddedJDEC.SHAPING[i];
+            fields.load(device.getShaping().getCurve(i));
+            base.clone().setPos(2, 1 + i, 1, 1).build(fields.getDeadband());
+            base.clone().setPos(3, 1 + i, 1, 1).build(fields.getExpo());
+            base.clone().setPos(4, 1 + i, 1, 1).build(fields.getScale());
+            base.clone().setPos(5, 1 + i, 1, 1).build(fields.getInverted());
         }
 
-        base.clone().setPos(2, 0, 2, 1).build(new JLabel("Available Axes"));
+        base.clone().setPos(6, 0, 2, 1).build(new JLabel("Available Axes"));
         EmbeddedJDEC.LIST_MODEL.clear();
         for (Component.Identifier axis : allAxes) {
             EmbeddedJDEC.LIST_MODEL.addElement(axis);
         }
-        base.clone().setPos(2, 1, 2, 5).build(EmbeddedJDEC.LIST_SCR);
-        base.clone().setPos(2, 6, 1, 1).build(new JLabel("Value:"));
-        base.clone().setPos(3, 6, 1, 1).build(EmbeddedJDEC.AXIS_VALUE);
+        base.clone().setPos(6, 1, 2, 5).build(EmbeddedJDEC.LIST_SCR);
+        base.clone().setPos(6, 6, 1, 1).build(new JLabel("Value:"));
+        base.clone().setPos(7, 6, 1, 1).build(EmbeddedJDEC.AXIS_VALUE);
 
-        base.clone().setPos(0, 7, 4, 1).build(EmbeddedJDEC.CLOSE_BTN);
+        base.clone().setPos(0, 7, 8, 1).build(EmbeddedJDEC.CLOSE_BTN);
 
         if (valueUpdater == null) {
             valueUpdater = new ValueUpdater();
@@ -137,6 +155,14 @@ public class ReassignAxesFrame extends FrameBase {
                 new AxisComboBox(Component.Axis.RY),
                 new AxisComboBox(Component.Axis.RZ)
         };
+        ShapingFields[] SHAPING = new ShapingFields[] {
+                new ShapingFields(),
+                new ShapingFields(),
+                new ShapingFields(),
+                new ShapingFields(),
+                new ShapingFields(),
+                new ShapingFields()
+        };
 
         DefaultListModel<Component.Identifier> LIST_MODEL = new DefaultListModel<>();
         JList<Component.Identifier> LIST = new JList<>(LIST_MODEL);
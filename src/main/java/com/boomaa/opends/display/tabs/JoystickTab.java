@@ -212,6 +212,12 @@ public class JoystickTab extends TabBase {
         list.clone().setPos(4, 1, 1, 1).build(EmbeddedJDEC.AUTO_ORDER_BTN);
         list.clone().setPos(4, 2, 1, 1).build(EmbeddedJDEC.REASSIGN_AXES_BTN);
 
+        EmbeddedJDEC.LATENCY.setForeground(Theme.MUTED);
+        EmbeddedJDEC.LATENCY.setToolTipText("Input event to outgoing packet time while enabled");
+        list.clone().setPos(0, 3, 5, 1).setFill(GridBagConstraints.NONE)
+            .setAnchor(GridBagConstraints.LINE_START)
+            .build(EmbeddedJDEC.LATENCY);
+
         GBCPanelBuilder axis = new GBCPanelBuilder(axisCard)
             .setFill(GridBagConstraints.NONE)
             .setAnchor(GridBagConstraints.LINE_START)
@@ -290,6 +296,7 @@ public class JoystickTab extends TabBase {
         List<JCheckBox> BUTTONS = new ArrayList<>();
 
         JCheckBox DISABLE_BTN = new JCheckBox("Disable");
+        JLabel LATENCY = new JLabel("Latency: N/A");
     }
 
     public static class ValueUpdater extends Clock {
@@ -314,7 +321,6 @@ public class JoystickTab extends TabBase {
                 EmbeddedJDEC.UP_BTN.setEnabled(cListIdx != 0);
                 EmbeddedJDEC.DOWN_BTN.setEnabled(cListIdx != EmbeddedJDEC.LIST_MODEL.size() - 1);
                 EmbeddedJDEC.REASSIGN_AXES_BTN.setEnabled(true);
-                ControlDevices.updateValues();
                 try {
                     int nFRCIdx = Integer.parseInt(EmbeddedJDEC.INDEX_SET.getText());
                     if (nFRCIdx >= IndexTracker.MAX_JS_NUM) {
@@ -346,6 +352,8 @@ public class JoystickTab extends TabBase {
                 for (int i = 0; i < buttons.length && i < EmbeddedJDEC.BUTTONS.size(); i++) {
                     EmbeddedJDEC.BUTTONS.get(i).setSelected(buttons[i]);
                 }
+                EmbeddedJDEC.LATENCY.setText(current.getLatency().count() != 0
+                    ? "Latency: " + current.getLatency().summary() : "Latency: N/A");
             } else {
                 Debug.println("Joystick device selected was null", EventSeverity.INFO, true);
                 EmbeddedJDEC.VAL_X.setText(" N/A");
@@ -354,6 +362,7 @@ public class JoystickTab extends TabBase {
                 EmbeddedJDEC.VAL_RX.setText(" N/A");
                 EmbeddedJDEC.VAL_RY.setText(" N/A");
                 EmbeddedJDEC.VAL_RZ.setText(" N/A");
+                EmbeddedJDEC.LATENCY.setText("Latency: N/A");
 
                 EmbeddedJDEC.REASSIGN_AXES_BTN.setEnabled(false);
                 EmbeddedJDEC.UP_BTN.setEnabled(false);
@@ -2,26 +2,58 @@ package com.boomaa.opends.display.tabs;
 
 import com.boomaa.opends.display.Logger;
 import com.boomaa.opends.display.Theme;
+import com.boomaa.opends.display.elements.LogList;
+import com.boomaa.opends.display.elements.LogSearchModel;
 import com.boomaa.opends.display.frames.FrameBase;
 import com.boomaa.opends.display.frames.LogWindow;
 import com.boomaa.opends.util.LogFilter;
+import com.boomaa.opends.util.LogStore;
 
+import java.awt.CardLayout;
 import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 public class LogTab extends TabBase {
+    private static final String LIVE_CARD = "live";
+    private static final String SEARCH_CARD = "search";
+    // queries run here so a large session never stalls the EDT
+    private static final ExecutorService SEARCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "opends-logsearch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private LogSearchModel searchModel;
+    private JTextField searchField;
+    private JCheckBox history;
+    private JCheckBox info;
+    private JCheckBox warn;
+    private JCheckBox err;
+    private JPanel content;
+    private int searchedSize;
+    private int generation;
+    private boolean inFlight;
+
     public LogTab() {
         super(new Dimension(450, 270));
         Logger.PANE.setPreferredSize(super.dimension);
     }
 
+    // Runs from the TabBase constructor, before this class's field initializers
     @Override
     public void config() {
+        searchModel = new LogSearchModel();
         super.setLayout(new GridBagLayout());
         super.setBackground(Theme.BG);
 
@@ -51,12 +83,21 @@ public class LogTab extends TabBase {
         });
         card.add(openWindow, gbc);
 
-        JCheckBox info = new JCheckBox("Info", LogFilter.isInfoEnabled());
-        JCheckBox warn = new JCheckBox("Warning", LogFilter.isWarningEnabled());
-        JCheckBox err = new JCheckBox("Error", LogFilter.isErrorEnabled());
-        info.addActionListener(e -> LogFilter.setInfoEnabled(info.isSelected()));
-        warn.addActionListener(e -> LogFilter.setWarningEnabled(warn.isSelected()));
-        err.addActionListener(e -> LogFilter.setErrorEnabled(err.isSelected()));
+        info = new JCheckBox("Info", LogFilter.isInfoEnabled());
+        warn = new JCheckBox("Warning", LogFilter.isWarningEnabled());
+        err = new JCheckBox("Error", LogFilter.isErrorEnabled());
+        info.addActionListener(e -> {
+            LogFilter.setInfoEnabled(info.isSelected());
+            refreshSearch();
+        });
+        warn.addActionListener(e -> {
+            LogFilter.setWarningEnabled(warn.isSelected());
+            refreshSearch();
+        });
+        err.addActionListener(e -> {
+            LogFilter.setErrorEnabled(err.isSelected());
+            refreshSearch();
+        });
 
         gbc.gridx = 1;
         card.add(info, gbc);
@@ -65,12 +106,103 @@ public class LogTab extends TabBase {
         gbc.gridx = 3;
         card.add(err, gbc);
 
+
+        searchField = new JTextField(20);
+        searchField.setToolTipText("Search this session's log");
+        Timer searchDelay = new Timer(150, e -> refreshSearch());
+        searchDelay.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDelay.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDelay.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchDelay.restart();
+            }
+        });
+        history = new JCheckBox("History", false);
+        history.setToolTipText("Show the whole session with the severity filters applied");
+        history.addActionListener(e -> refreshSearch());
         gbc.gridy = 1;
         gbc.gridx = 0;
+        gbc.gridwidth = 3;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1;
+        card.add(searchField, gbc);
+        gbc.gridx = 3;
+        gbc.gridwidth = 1;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.weightx = 0;
+        card.add(history, gbc);
+
+        content = new JPanel(new CardLayout());
+        content.add(Logger.PANE, LIVE_CARD);
+        LogList results = new LogList(searchModel, searchModel::getMaxLineLength);
+        content.add(results.createScrollPane(), SEARCH_CARD);
+        gbc.gridy = 2;
+        gbc.gridx = 0;
         gbc.gridwidth = 4;
         gbc.fill = GridBagConstraints.BOTH;
         gbc.weightx = 1;
         gbc.weighty = 1;
-        card.add(Logger.PANE, gbc);
+        card.add(content, gbc);
+
+        // keep results current while new lines come in, searching only the lines added since
+        new Timer(500, e -> {
+            if (isSearching() && !inFlight) {
+                search(false);
+            }
+        }).start();
+    }
+
+    private boolean isSearching() {
+        return history.isSelected() || !searchField.getText().trim().isEmpty();
+    }
+
+    private void refreshSearch() {
+        if (content == null) {
+            return;
+        }
+        CardLayout layout = (CardLayout) content.getLayout();
+        if (isSearching()) {
+            search(true);
+            layout.show(content, SEARCH_CARD);
+        } else {
+            layout.show(content, LIVE_CARD);
+        }
+    }
+
+    // A full search replaces the results, otherwise only lines stored since the last one are
+    // searched and appended. Results of a search superseded by a full one are discarded.
+    private void search(boolean full) {
+        int gen = full ? ++generation : generation;
+        int from = full ? 0 : searchedSize;
+        String query = searchField.getText();
+        int severities = LogStore.severityMask(info.isSelected(), warn.isSelected(), err.isSelected());
+        inFlight = true;
+        SEARCHER.execute(() -> {
+            LogStore.indexPending();
+            int to = LogStore.size();
+            int[] results = LogStore.search(query, severities, LogStore.ALL_SOURCES, from, to);
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) {
+                    return;
+                }
+                inFlight = false;
+                searchedSize = to;
+                if (full) {
+                    searchModel.setResults(results);
+                } else {
+                    searchModel.appendResults(results);
+                }
+            });
+        });
     }
 }
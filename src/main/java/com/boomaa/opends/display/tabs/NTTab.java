@@ -1,8 +1,13 @@
 package com.boomaa.opends.display.tabs;
 
+import com.boomaa.opends.display.DisplayEndpoint;
 import com.boomaa.opends.display.elements.GBCPanelBuilder;
 import com.boomaa.opends.display.Theme;
+import com.boomaa.opends.display.frames.MessageBox;
+import com.boomaa.opends.display.frames.NTGraphFrame;
+import com.boomaa.opends.networktables.NTDataType;
 import com.boomaa.opends.networktables.NTEntry;
+import com.boomaa.opends.networktables.NTPublisher;
 import com.boomaa.opends.networktables.NTStorage;
 import com.boomaa.opends.util.Debug;
 
@@ -15,16 +20,25 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JLabel;
+import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.plaf.basic.BasicArrowButton;
@@ -35,12 +49,19 @@ public class NTTab extends TabBase {
     private static final int borderRadius = 5;
     private static final int tabWidth = 6;
     private static final int lineWidth = 5;
-    private Map<Integer, JLabel> displayedEntries;
+    private static final int REFRESH_MS = 50;
+    private Map<Integer, Cell> displayedEntries;
+    private List<NTEntry> displayedOrder = new ArrayList<>();
+    private long shownVersion = -1;
+    private long shownStructure = -1;
+    private int shownTabCount;
     private JScrollPane entryDisplayWrapper;
     private GBCPanelBuilder base;
     private JPanel entryDisplay;
     private int tabStartIndex = 0;
     private JPanel tabsPanel;
+    private BasicArrowButton leftMenubar;
+    private BasicArrowButton rightMenubar;
     private String currentTab;
 
     @Override
@@ -61,8 +82,8 @@ public class NTTab extends TabBase {
         this.entryDisplayWrapper = new JScrollPane(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
         int lineHeight = 30;
-        BasicArrowButton leftMenubar = new BasicArrowButton(SwingConstants.WEST);
-        BasicArrowButton rightMenubar = new BasicArrowButton(SwingConstants.EAST);
+        leftMenubar = new BasicArrowButton(SwingConstants.WEST);
+        rightMenubar = new BasicArrowButton(SwingConstants.EAST);
         Theme.styleGhostButton(leftMenubar);
         Theme.styleGhostButton(rightMenubar);
         leftMenubar.addActionListener((e) -> {
@@ -70,7 +91,7 @@ public class NTTab extends TabBase {
             populateTabsBar();
         });
         rightMenubar.addActionListener((e) -> {
-            tabStartIndex = Math.min(tabStartIndex + 1, NTStorage.TABS.size() - tabWidth);
+            tabStartIndex = Math.min(tabStartIndex + 1, NTStorage.getTabCount() - tabWidth);
             populateTabsBar();
         });
 
@@ -90,54 +111,112 @@ public class NTTab extends TabBase {
 
         displayedEntries = new HashMap<>();
         populateTabsBar();
-        boolean enableArrows = NTStorage.TABS.size() > tabWidth;
-        leftMenubar.setEnabled(enableArrows);
-        rightMenubar.setEnabled(enableArrows);
         populateTab("");
+
+        // NT threads only bump versions; changes reach Swing here at a bounded rate
+        Timer refreshTimer = new Timer(REFRESH_MS, (e) -> refresh());
+        refreshTimer.setCoalesce(true);
+        refreshTimer.start();
+    }
+
+    private void refresh() {
+        long structure = NTStorage.getStructureVersion();
+        if (structure != shownStructure) {
+            shownStructure = structure;
+            if (NTStorage.getTabCount() != shownTabCount) {
+                populateTabsBar();
+            }
+            if (!tabEntries(currentTab).equals(displayedOrder)) {
+                populateTab(currentTab);
+            }
+        }
+        long version = NTStorage.getVersion();
+        if (version == shownVersion || !TabBase.isVisible(NTTab.class)) {
+            return;
+        }
+        shownVersion = version;
+        for (Cell cell : displayedEntries.values()) {
+            long entryVersion = cell.entry.getVersion();
+            if (entryVersion != cell.shownVersion) {
+                cell.shownVersion = entryVersion;
+                cell.label.setText(formatValue(cell.entry));
+                styleValue(cell.label, cell.entry);
+            }
+        }
+    }
+
+    // Only the subtrees a tab's entries can live in are walked, see NTEntry's tab naming
+    private static List<NTEntry> tabEntries(String name) {
+        List<NTEntry> out = new ArrayList<>();
+        if (name.isEmpty()) {
+            return out;
+        }
+        Set<NTEntry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String prefix : new String[] { "/Shuffleboard/" + name + "/", "/" + name + "/", "Shuffleboard/" + name + "/", name + "/" }) {
+            for (NTEntry entry : NTStorage.getEntries(prefix)) {
+                if (entry.getTabName().equals(name) && (entry.isInShuffleboard() || entry.isInSmartDashboard())
+                    && !entry.isInHidden() && seen.add(entry)) {
+                    out.add(entry);
+                }
+            }
+        }
+        return out;
     }
 
     public void populateTab(String name) {
         currentTab = name;
         entryDisplay.removeAll();
+        displayedEntries.clear();
+        displayedOrder = tabEntries(name);
         GBCPanelBuilder gbcEntry = new GBCPanelBuilder(entryDisplay).setInsets(stdInsets);
-        List<NTEntry> ntEntries = new ArrayList<>(NTStorage.ENTRIES.values());
-        if (!name.isEmpty()) {
-            int entryCtr = 0;
-            for (NTEntry entry : ntEntries) {
-                if (entry.getTabName().equals(name) && (entry.isInShuffleboard() || entry.isInSmartDashboard()) && !entry.isInHidden()) {
-                    JPanel tempPanel = new JPanel() {
-                        @Override
-                        protected void paintComponent(Graphics g) {
-                            super.paintComponent(g);
-                            Graphics2D graphics = (Graphics2D) g;
-                            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                            graphics.setColor(Theme.SURFACE);
-                            graphics.fillRoundRect(0, 0, getWidth() - 1, getHeight() - 1, borderRadius, borderRadius);
-                            graphics.setColor(Theme.BORDER);
-                            graphics.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, borderRadius, borderRadius);
-                        }
-                    };
-                    tempPanel.setLayout(new BorderLayout());
-                    tempPanel.setBackground(Theme.SURFACE);
-                    JLabel key = new JLabel(entry.getKey(), SwingConstants.CENTER);
-                    Font f = key.getFont();
-                    key.setFont(f.deriveFont(f.getStyle() | Font.BOLD));
-                    key.setForeground(Theme.TEXT);
-                    String entryValue = entryValueToString(entry.getValue());
-                    Class<?> entryValueClazz = entry.getValue().getClass();
-                    if (entryValueClazz.isArray() && entryValueClazz.getComponentType().isPrimitive()) {
-                        entryValue = "<html>" + entryValue.replaceAll(" ", "<br>") + "</html>";
+        int entryCtr = 0;
+        for (NTEntry entry : displayedOrder) {
+            JPanel tempPanel = new JPanel() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    super.paintComponent(g);
+                    Graphics2D graphics = (Graphics2D) g;
+                    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                    graphics.setColor(Theme.SURFACE);
+                    graphics.fillRoundRect(0, 0, getWidth() - 1, getHeight() - 1, borderRadius, borderRadius);
+                    graphics.setColor(Theme.BORDER);
+                    graphics.drawRoundRect(0, 0, getWidth() - 1, getHeight() - 1, borderRadius, borderRadius);
+                }
+            };
+            tempPanel.setLayout(new BorderLayout());
+            tempPanel.setBackground(Theme.SURFACE);
+            JLabel key = new JLabel(entry.getKey(), SwingConstants.CENTER);
+            Font f = key.getFont();
+            key.setFont(f.deriveFont(f.getStyle() | Font.BOLD));
+            key.setForeground(Theme.TEXT);
+            long entryVersion = entry.getVersion();
+            JLabel value = new JLabel(formatValue(entry), SwingConstants.CENTER);
+            styleValue(value, entry);
+            tempPanel.add(key, BorderLayout.NORTH);
+            tempPanel.add(value, BorderLayout.SOUTH);
+            tempPanel.setBorder(emptyBorder);
+            tempPanel.setToolTipText("Double-click to graph, right-click to edit");
+            tempPanel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2 && !e.isPopupTrigger()) {
+                        NTGraphFrame.open(entry.getPath());
                     }
-                    JLabel value = new JLabel(entryValue, SwingConstants.CENTER);
-                    value.setForeground(Theme.MUTED);
-                    tempPanel.add(key, BorderLayout.NORTH);
-                    tempPanel.add(value, BorderLayout.SOUTH);
-                    tempPanel.setBorder(emptyBorder);
-                    gbcEntry.clone().setX(entryCtr % lineWidth).setY(entryCtr++ / lineWidth).build(tempPanel);
-                    displayedEntries.put(entry.getId(), value);
                 }
-            }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    showEditMenu(e, entry);
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    showEditMenu(e, entry);
+                }
+            });
+            gbcEntry.clone().setX(entryCtr % lineWidth).setY(entryCtr++ / lineWidth).build(tempPanel);
+            displayedEntries.put(entry.getId(), new Cell(entry, value, entryVersion));
         }
         entryDisplay.repaint();
         entryDisplay.revalidate();
@@ -153,15 +232,19 @@ public class NTTab extends TabBase {
     }
 
     public void populateTabsBar() {
-        displayedEntries.clear();
         super.remove(tabsPanel);
         tabsPanel.removeAll();
         GBCPanelBuilder gbc = new GBCPanelBuilder(tabsPanel).setInsets(stdInsets);
+        List<String> tabs = new ArrayList<>(NTStorage.getTabs());
+        shownTabCount = tabs.size();
+        leftMenubar.setEnabled(shownTabCount > tabWidth);
+        rightMenubar.setEnabled(shownTabCount > tabWidth);
         for (int i = tabStartIndex; i < tabWidth + tabStartIndex; i++) {
-            JButton tabBtn = new JButton(i < NTStorage.TABS.size() ? truncate(NTStorage.TABS.get(i), 18, true) : "");
+            String tabName = i < tabs.size() ? tabs.get(i) : "";
+            JButton tabBtn = new JButton(truncate(tabName, 18, true));
             Theme.styleGhostButton(tabBtn);
-            tabBtn.addActionListener((e) -> populateTab(tabBtn.getText()));
-            tabBtn.setVisible(i < NTStorage.TABS.size());
+            tabBtn.addActionListener((e) -> populateTab(tabName));
+            tabBtn.setVisible(i < tabs.size());
             gbc.clone().setPos(i - tabStartIndex, 0, 1, 1).build(tabBtn);
         }
         base.clone().setPos(0, 0, 6, 1).build(tabsPanel);
@@ -171,13 +254,69 @@ public class NTTab extends TabBase {
         super.revalidate();
     }
 
-    public void updateValue(NTEntry entry) {
-        if (entry.getTabName().equals(currentTab)) {
-            if (displayedEntries.containsKey(entry.getId())) {
-                displayedEntries.get(entry.getId()).setText(String.valueOf(entry.getValue()));
-            } else {
-                populateTab(currentTab);
+    private static void showEditMenu(MouseEvent e, NTEntry entry) {
+        NTPublisher publisher = DisplayEndpoint.getNTPublisher();
+        if (!e.isPopupTrigger() || publisher == null) {
+            return;
+        }
+        JPopupMenu menu = new JPopupMenu();
+        NTDataType type = entry.getDataType();
+        if (type == NTDataType.NT_BOOLEAN) {
+            JMenuItem toggle = new JMenuItem("Toggle");
+            toggle.addActionListener((ae) -> publisher.publish(entry.getPath(), type, !entry.getBoolean()));
+            menu.add(toggle);
+        } else if (type != null && type != NTDataType.NT_RAW && type != NTDataType.NT_RPC) {
+            JMenuItem edit = new JMenuItem("Edit...");
+            edit.addActionListener((ae) -> promptValue(publisher, entry));
+            menu.add(edit);
+        }
+        JCheckBoxMenuItem persistent = new JCheckBoxMenuItem("Persistent", entry.isPersistent());
+        persistent.addActionListener((ae) -> publisher.setPersistent(entry.getPath(), persistent.isSelected()));
+        menu.add(persistent);
+        JMenuItem graph = new JMenuItem("Graph");
+        graph.addActionListener((ae) -> NTGraphFrame.open(entry.getPath()));
+        menu.add(graph);
+        menu.show(e.getComponent(), e.getX(), e.getY());
+    }
+
+    // Arrays are entered comma-separated
+    private static void promptValue(NTPublisher publisher, NTEntry entry) {
+        String current = entry.getValueString().replaceAll("^\\[|\\]$", "");
+        String input = (String) JOptionPane.showInputDialog(null, entry.getPath(), "Edit NetworkTables value",
+            JOptionPane.PLAIN_MESSAGE, null, null, current);
+        if (input == null) {
+            return;
+        }
+        try {
+            publisher.publish(entry.getPath(), entry.getDataType(), parseValue(entry.getDataType(), input));
+        } catch (IllegalArgumentException e) {
+            MessageBox.show("Invalid value for " + entry.getKey() + ": " + e.getMessage(), MessageBox.Type.ERROR);
+        }
+    }
+
+    private static Object parseValue(NTDataType type, String input) {
+        String[] parts = input.trim().isEmpty() ? new String[0] : input.split("\\s*,\\s*");
+        switch (type) {
+            case NT_DOUBLE:
+                return Double.parseDouble(input.trim());
+            case NT_BOOLEAN_ARRAY: {
+                boolean[] bools = new boolean[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    bools[i] = Boolean.parseBoolean(parts[i].trim());
+                }
+                return bools;
+            }
+            case NT_DOUBLE_ARRAY: {
+                double[] dbls = new double[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    dbls[i] = Double.parseDouble(parts[i].trim());
+                }
+                return dbls;
             }
+            case NT_STRING_ARRAY:
+                return parts;
+            default:
+                return input;
         }
     }
 
@@ -185,19 +324,32 @@ public class NTTab extends TabBase {
         return in.substring(0, Math.min(in.length(), max)) + (in.length() > max && addDots ? "..." : "");
     }
 
-    private static String entryValueToString(Object value) {
-        if (value.getClass().isArray()) {
-            if (value instanceof double[]) {
-                return Arrays.toString((double[]) value);
-            } else if (value instanceof int[]) {
-                return Arrays.toString((int[]) value);
-            } else if (value instanceof long[]) {
-                return Arrays.toString((long[]) value);
-            } else {
-                return Arrays.toString((Object[]) value);
-            }
-        } else {
-            return String.valueOf(value);
+    // Cached values from the last session are dimmed until the server confirms them
+    private static void styleValue(JLabel label, NTEntry entry) {
+        boolean stale = entry.isStale();
+        label.setForeground(stale ? Theme.BORDER : Theme.MUTED);
+        label.setFont(label.getFont().deriveFont(stale ? Font.ITALIC : Font.PLAIN));
+        label.setToolTipText(stale ? "Cached, not yet confirmed by the robot" : null);
+    }
+
+    private static String formatValue(NTEntry entry) {
+        Object value = entry.getValue();
+        String text = entry.getValueString();
+        if (value != null && value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+            text = "<html>" + text.replaceAll(" ", "<br>") + "</html>";
+        }
+        return text;
+    }
+
+    private static class Cell {
+        private final NTEntry entry;
+        private final JLabel label;
+        private long shownVersion;
+
+        private Cell(NTEntry entry, JLabel label, long shownVersion) {
+            this.entry = entry;
+            this.label = label;
+            this.shownVersion = shownVersion;
         }
     }
 }
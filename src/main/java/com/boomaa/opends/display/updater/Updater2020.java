@@ -18,8 +18,12 @@ import com.boomaa.opends.display.RobotMode;
 import com.boomaa.opends.display.tabs.JoystickTab;
 import com.boomaa.opends.display.tabs.TabBase;
 import com.boomaa.opends.networking.AddressConstants;
+import com.boomaa.opends.usb.ControlDevices;
+import com.boomaa.opends.usb.HIDDevice;
 import com.boomaa.opends.util.DSLog;
 import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.FlightRecorder;
+import com.boomaa.opends.util.LogSource;
 import com.boomaa.opends.util.NumberUtils;
 import com.boomaa.opends.util.StringUtils;
 
@@ -32,10 +36,13 @@ public class Updater2020 extends ElementUpdater {
         Parser2020.RioToDsUdp rioUdp = (Parser2020.RioToDsUdp) data;
         IS_ENABLED.setEnabled(!DisplayEndpoint.NET_IF_INIT.isInit(Remote.FMS)
             && !TabBase.isVisible(JoystickTab.class) && !ESTOP_STATUS.isDisplayed());
-        ESTOP_STATUS.setDisplay(rioUdp.getStatus().contains(Status.ESTOP));
+        List<Status> status = rioUdp.getStatus();
+        ESTOP_STATUS.setDisplay(status.contains(Status.ESTOP));
+        FlightRecorder.recordStatus(rioUdp.getRawStatus(), rioUdp.getRawTrace(), rioUdp.getBatteryVoltage());
+        FlightRecorder.noteStatus(status.contains(Status.ESTOP), status.contains(Status.BROWNOUT));
         if (rioUdp.getTrace().contains(Trace.ROBOTCODE)) {
             ROBOT_CODE_STATUS.changeToDisplay(0, true);
-        } else if (rioUdp.getStatus().contains(Status.CODE_INIT)) {
+        } else if (status.contains(Status.CODE_INIT)) {
             ROBOT_CODE_STATUS.changeToDisplay(1, true);
         } else {
             ROBOT_CODE_STATUS.forceHide();
@@ -56,6 +63,16 @@ public class Updater2020 extends ElementUpdater {
         BAT_VOLTAGE.setText(StringUtils.padDouble(NumberUtils.roundTo(rioUdp.getBatteryVoltage(), 2), 2) + " V");
 
         if (tagMap.size() > 0) {
+            // One output tag per joystick, in FRC slot order
+            TVMList jsOut = tagMap.getMatching(ReceiveTag.JOYSTICK_OUTPUT);
+            for (int i = 0; i < jsOut.size(); i++) {
+                HIDDevice device = ControlDevices.getAll().get(i);
+                Object left = jsOut.get(i).get("Left Rumble");
+                Object right = jsOut.get(i).get("Right Rumble");
+                if (device != null && !"none".equals(left)) {
+                    device.setRumble(Integer.parseInt((String) left) / 65535.0, Integer.parseInt((String) right) / 65535.0);
+                }
+            }
             TVMList dinf = tagMap.getMatching(ReceiveTag.DISK_INFO);
             if (!dinf.isEmpty()) {
                 TagValueMap<?> diskInfo = dinf.first();
@@ -143,7 +160,7 @@ public class Updater2020 extends ElementUpdater {
                     String flag = String.valueOf(errorMessage.get("Flag"));
                     String error = details + " @ " + location + (callStack.equals("null") ? "" : " | " + callStack);
                     EventSeverity sev = "Error".equals(flag) ? EventSeverity.ERROR : EventSeverity.WARNING;
-                    DSLog.queueEvent(error, sev, true);
+                    DSLog.queueEvent(error, sev, LogSource.RIO_ERROR, true);
                 }
             }
 
@@ -151,7 +168,7 @@ public class Updater2020 extends ElementUpdater {
             if (!so.isEmpty()) {
                 for (TagValueMap<?> stdOut : so) {
                     String msg = String.valueOf(stdOut.get("Message"));
-                    DSLog.queueEvent(msg, EventSeverity.INFO, true);
+                    DSLog.queueEvent(msg, EventSeverity.INFO, LogSource.RIO_STDOUT, true);
                 }
             }
         }
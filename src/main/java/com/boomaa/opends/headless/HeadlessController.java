@@ -3,12 +3,9 @@ package com.boomaa.opends.headless;
 import com.boomaa.opends.data.StatsFields;
 import com.boomaa.opends.display.MainJDEC;
 import com.boomaa.opends.display.RobotMode;
-import com.boomaa.opends.networktables.NTEntry;
-import com.boomaa.opends.networktables.NTStorage;
 import com.boomaa.opends.util.OperatingSystem;
 
 import java.io.IOException;
-import java.util.Map;
 import java.util.Scanner;
 
 public class HeadlessController implements HeadlessJDEC {
@@ -67,13 +64,6 @@ public class HeadlessController implements HeadlessJDEC {
         for (MainHAction action : MainHAction.values()) {
             MAIN_ACTIONS_TABLE.appendOption(action.getOptionName(), action.getOperation(), action.getSupplier());
         }
-
-        for (Map.Entry<Integer, NTEntry> mapEntry : NTStorage.ENTRIES.entrySet()) {
-            int id = mapEntry.getKey();
-            NTEntry ntEntry = mapEntry.getValue();
-            //TODO add every NTEntry to the shuffleboard table
-            // may have to reinit the table each load b/c of fixed size (or rethink the variable width idea)
-        }
     }
 
     private HeadlessController() {
@@ -0,0 +1,46 @@
+package com.boomaa.opends.headless;
+
+import com.boomaa.opends.util.BlockLogFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Headless view of compressed (.odz) or still-compressing (.odz.part) .dsevents files.
+// Only the blocks covering the requested window are inflated.
+public class LogArchiveConsole {
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+        .withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private LogArchiveConsole() {
+    }
+
+    public static OperationReturn read(String path, String start, String minutes) {
+        long fromMs;
+        long toMs;
+        try {
+            fromMs = start.trim().isEmpty() ? Long.MIN_VALUE
+                : LocalDateTime.parse(start.trim(), INPUT_FORMAT).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            toMs = minutes.trim().isEmpty() || fromMs == Long.MIN_VALUE ? Long.MAX_VALUE
+                : fromMs + (Long.parseLong(minutes.trim()) * 60_000);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            System.err.println("Invalid time range: " + e.getMessage());
+            return OperationReturn.INVALID;
+        }
+        try (BlockLogFile.Reader reader = new BlockLogFile.Reader(new File(path.trim()))) {
+            int count = reader.readEvents(fromMs, toMs,
+                (text, timeMs) -> System.out.println(TS_FORMAT.format(Instant.ofEpochMilli(timeMs)) + " " + text));
+            System.out.println(count + " events from " + reader.getBlockCount() + " blocks"
+                + (reader.isPartial() ? " (compression still in progress)" : ""));
+        } catch (IOException e) {
+            System.err.println("Could not read compressed log: " + e.getMessage());
+            return OperationReturn.INVALID;
+        }
+        return OperationReturn.WAIT;
+    }
+}
@@ -3,6 +3,8 @@ package com.boomaa.opends.headless;
 import com.boomaa.opends.display.DisplayEndpoint;
 import com.boomaa.opends.display.Logger;
 import com.boomaa.opends.display.MainJDEC;
+import com.boomaa.opends.networktables.NTStorage;
+import com.boomaa.opends.util.LogStore;
 
 import java.util.function.Supplier;
 
@@ -112,16 +114,40 @@ public enum MainHAction implements HeadlessJDEC {
     ),
     VIEW_OPENDS_LOG("View OpenDS Log",
         () -> {
-            System.out.println(Logger.LOGGER.getAppender().getTextArea().getText());
+            System.out.println(Logger.LOGGER.getAppender().getText());
             return OperationReturn.WAIT;
         }
     ),
-    VIEW_SHUFFLEBOARD("View Shuffleboard",
-        () -> {
-            System.out.println(SHUFFLEBOARD_TABLE);
+    SEARCH_OPENDS_LOG("Search OpenDS Log",
+        () -> {
+            String query = HeadlessController.prompt("Enter search text (blank for all): ");
+            String levels = HeadlessController.prompt("Severities to include [iwe]: ").toLowerCase();
+            int severities = levels.trim().isEmpty() ? LogStore.ALL_SEVERITIES
+                : LogStore.severityMask(levels.contains("i"), levels.contains("w"), levels.contains("e"));
+            int[] matches = LogStore.search(query, severities, LogStore.ALL_SOURCES);
+            for (int id : matches) {
+                System.out.println(LogStore.format(id));
+            }
+            System.out.println(matches.length + " matching lines of " + LogStore.size());
             return OperationReturn.WAIT;
         }
-    ), //TODO
+    ),
+    READ_COMPRESSED_EVENTS("Read Compressed Events Log",
+        () -> LogArchiveConsole.read(HeadlessController.prompt("Compressed .dsevents file (.odz or .odz.part): "),
+            HeadlessController.prompt("Start time yyyy-MM-dd HH:mm:ss (blank for all): "),
+            HeadlessController.prompt("Minutes to show (blank for the rest): "))
+    ),
+    LIST_NETWORK_TABLES("List NetworkTables",
+        () -> NTConsole.list(HeadlessController.prompt("Table path (blank for root): ")),
+        () -> NTStorage.size() + " entries"
+    ),
+    WATCH_NETWORK_TABLES("Watch NetworkTables",
+        () -> NTConsole.watch(HeadlessController.prompt("Path prefix (blank for all): ").trim())
+    ),
+    DUMP_NETWORK_TABLES("Dump NetworkTables (JSON lines)",
+        () -> NTConsole.dump(HeadlessController.prompt("Path prefix (blank for all): ").trim(),
+            HeadlessController.prompt("Output file (blank for console): "))
+    ),
     CONFIG_JOYSTICKS("Configure/Test Joysticks",
         () -> {
             System.out.println(JS_ACTIONS_TABLE);
@@ -0,0 +1,150 @@
+package com.boomaa.opends.headless;
+
+import com.boomaa.opends.networktables.NTEntry;
+import com.boomaa.opends.networktables.NTStorage;
+import com.boomaa.opends.util.Json;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Headless NetworkTables views. Everything reads the indexed NTStorage directly, and
+// the watch view only rewrites rows whose entry version changed since it was drawn.
+public class NTConsole {
+    private static final String ESC = "\u001B[";
+    private static final int WATCH_POLL_MS = 100;
+    private static final int MAX_WATCH_ROWS = 60;
+    private static final int HEADER_ROWS = 2;
+
+    private NTConsole() {
+    }
+
+    // Immediate subtables and entries of a table path, e.g. "/SmartDashboard"
+    public static OperationReturn list(String tablePath) {
+        String path = normalize(tablePath);
+        List<String> children = NTStorage.getChildNames(path);
+        if (children.isEmpty()) {
+            System.out.println("No table at " + (path.isEmpty() ? "/" : path));
+            return OperationReturn.WAIT;
+        }
+        ConsoleTable table = new ConsoleTable(children.size() + 1, 3);
+        table.setRow(0, 0, "Name", "Type", "Value");
+        int row = 1;
+        for (String child : children) {
+            NTEntry entry = NTStorage.get(path + "/" + child);
+            boolean subtable = !NTStorage.getChildNames(path + "/" + child).isEmpty();
+            table.setRow(row++, 0, subtable ? child + "/" : child,
+                entry != null ? String.valueOf(entry.getDataType()) : "table",
+                entry != null ? truncate(entry.getValueString(), 48) : "");
+        }
+        System.out.println(table);
+        System.out.println(children.size() + " children of " + (path.isEmpty() ? "/" : path) + ", " + NTStorage.size() + " entries total");
+        return OperationReturn.WAIT;
+    }
+
+    // Live view of every entry under prefix until Enter is pressed
+    public static OperationReturn watch(String prefix) {
+        PrintStream out = System.out;
+        List<NTEntry> rows = null;
+        long[] shown = new long[0];
+        long shownStructure = -1;
+        try {
+            while (System.in.available() == 0) {
+                long structure = NTStorage.getStructureVersion();
+                if (structure != shownStructure) {
+                    shownStructure = structure;
+                    rows = NTStorage.getEntries(prefix);
+                    if (rows.size() > MAX_WATCH_ROWS) {
+                        rows = rows.subList(0, MAX_WATCH_ROWS);
+                    }
+                    shown = new long[rows.size()];
+                    out.print(ESC + "2J" + ESC + "H");
+                    out.println("Watching " + (prefix.isEmpty() ? "all entries" : prefix) + " (" + rows.size()
+                        + (rows.size() == MAX_WATCH_ROWS ? "+" : "") + " entries), press Enter to stop");
+                    out.println();
+                    for (int i = 0; i < rows.size(); i++) {
+                        shown[i] = -1;
+                    }
+                }
+                StringBuilder frame = new StringBuilder();
+                for (int i = 0; i < rows.size(); i++) {
+                    NTEntry entry = rows.get(i);
+                    long version = entry.getVersion();
+                    if (version != shown[i]) {
+                        shown[i] = version;
+                        frame.append(ESC).append(HEADER_ROWS + i + 1).append(";1H").append(ESC).append("2K")
+                            .append(truncate(entry.getPath(), 48)).append("  ").append(truncate(entry.getValueString(), 80));
+                    }
+                }
+                if (frame.length() != 0) {
+                    frame.append(ESC).append(HEADER_ROWS + rows.size() + 1).append(";1H");
+                    out.print(frame);
+                    out.flush();
+                }
+                Thread.sleep(WATCH_POLL_MS);
+            }
+        } catch (IOException | InterruptedException ignored) {
+        }
+        HeadlessController.getInput();
+        return OperationReturn.CONTINUE;
+    }
+
+    // One JSON object per entry under prefix, to a file or stdout when dest is blank
+    public static OperationReturn dump(String prefix, String dest) {
+        List<NTEntry> entries = NTStorage.getEntries(prefix);
+        if (dest.trim().isEmpty()) {
+            try {
+                // stdout is flushed but must stay open
+                writeDump(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), entries);
+            } catch (IOException ignored) {
+            }
+            return OperationReturn.WAIT;
+        }
+        try (Writer out = new BufferedWriter(new FileWriter(dest.trim()))) {
+            writeDump(out, entries);
+        } catch (IOException e) {
+            System.err.println("Could not write NetworkTables dump: " + e.getMessage());
+            return OperationReturn.INVALID;
+        }
+        System.out.println("Wrote " + entries.size() + " entries to " + dest.trim());
+        return OperationReturn.WAIT;
+    }
+
+    private static void writeDump(Writer out, List<NTEntry> entries) throws IOException {
+        long now = System.currentTimeMillis();
+        StringBuilder line = new StringBuilder();
+        for (NTEntry entry : entries) {
+            Map<String, Object> obj = new LinkedHashMap<>();
+            obj.put("time", now);
+            obj.put("path", entry.getPath());
+            obj.put("type", String.valueOf(entry.getDataType()));
+            Object value = entry.getValue();
+            obj.put("value", value instanceof byte[] ? Base64.getEncoder().encodeToString((byte[]) value) : value);
+            obj.put("persistent", entry.isPersistent());
+            line.setLength(0);
+            Json.write(line, obj);
+            out.write(line.append('\n').toString());
+        }
+        out.flush();
+    }
+
+    private static String normalize(String tablePath) {
+        String path = tablePath.trim();
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    private static String truncate(String in, int max) {
+        return in.length() > max ? in.substring(0, max - 3) + "..." : in;
+    }
+}
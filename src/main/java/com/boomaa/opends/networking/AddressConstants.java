@@ -16,6 +16,7 @@ public class AddressConstants {
     public static final String IPV4_REGEX = "^((25[0-5]|(2[0-4]|1\\d|[1-9]|)\\d)\\.?\\b){4}$";
     private static final PortTriple FMS_PORTS_2020 = new PortTriple(1750, 1160, 1121);
     private static final PortQuad RIO_PORTS_2020 = new PortQuad(1740, 1110, 1150, 1735);
+    public static final int NT4_PORT = 5810;
     private static PortTriple fmsPorts;
     private static PortQuad rioPorts;
     private static final int PROBE_INTERVAL_MS = 1000;
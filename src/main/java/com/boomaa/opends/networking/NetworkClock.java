@@ -9,6 +9,7 @@ import com.boomaa.opends.display.MainJDEC;
 import com.boomaa.opends.util.Clock;
 import com.boomaa.opends.util.Debug;
 import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.FlightRecorder;
 import com.boomaa.opends.util.PacketCounters;
 
 import java.io.IOException;
@@ -35,7 +36,9 @@ public class NetworkClock extends Clock {
         if (DisplayEndpoint.UPDATER != null && DisplayEndpoint.CREATOR != null) {
             if (connFms) {
                 if (DisplayEndpoint.NET_IF_INIT.get(remote, protocol)) {
-                    if (!iface.write(DisplayEndpoint.CREATOR.create(remote, protocol))) {
+                    byte[] out = DisplayEndpoint.CREATOR.create(remote, protocol);
+                    FlightRecorder.record(FlightRecorder.Type.packet(remote, protocol, false), out);
+                    if (!iface.write(out)) {
                         Debug.println(makeDebugStr("network error"), EventSeverity.WARNING, true);
                         DisplayEndpoint.UPDATER.update(ParserNull.getInstance(), remote, protocol);
                         reloadInterface();
@@ -46,6 +49,8 @@ public class NetworkClock extends Clock {
                             DisplayEndpoint.UPDATER.update(ParserNull.getInstance(), remote, protocol);
                             DisplayEndpoint.NET_IF_INIT.set(false, remote, protocol);
                         } else if (data.length != 0 || protocol != Protocol.UDP) {
+                            FlightRecorder.record(FlightRecorder.Type.packet(remote, protocol, true), data, 0,
+                                    iface instanceof UDPInterface ? ((UDPInterface) iface).getLastReadLength() : data.length);
                             if (remote == Remote.ROBO_RIO && protocol == Protocol.TCP && data.length > 0) {
                                 com.boomaa.opends.display.Logger.OUT.println(
                                     "[DSLog] DS TCP rx " + data.length + " bytes: " + toHexPreview(data, 16)
@@ -58,6 +63,7 @@ public class NetworkClock extends Clock {
                             Debug.removeSticky(makeDebugStr("invalid data"));
                             if (remote == Remote.ROBO_RIO) {
                                 DisplayEndpoint.NET_IF_INIT.touchRio();
+                                FlightRecorder.noteConnection(true);
                             }
                         }
                     }
@@ -87,6 +93,9 @@ public class NetworkClock extends Clock {
         if (DisplayEndpoint.UPDATER != null) {
             DisplayEndpoint.UPDATER.update(ParserNull.getInstance(), remote, protocol);
         }
+        if (remote == Remote.ROBO_RIO) {
+            FlightRecorder.noteConnection(false);
+        }
         if (iface != null) {
             Debug.removeSticky(remote + " " + protocol + " interface connected to " + iface);
             iface.close();
@@ -147,6 +156,7 @@ public class NetworkClock extends Clock {
         DisplayEndpoint.NET_IF_INIT.set(false, remote, protocol);
         if (!isFms) {
             AddressConstants.clearConnectedRioAddressIfDisconnected();
+            FlightRecorder.noteConnection(false);
         }
         if (!isFms) {
             MainJDEC.IS_ENABLED.setEnabled(false);
@@ -12,7 +12,7 @@ import java.net.SocketTimeoutException;
 public class TCPInterface implements NetworkInterface {
     private Socket socket;
     private InputStream in;
-    private boolean closed;
+    private volatile boolean closed;
     private final String ip;
     private final int port;
 
@@ -62,6 +62,22 @@ public class TCPInterface implements NetworkInterface {
         return out;
     }
 
+    // Reads straight into the caller's buffer; returns 0 on timeout and -1 once closed
+    public int read(byte[] buf, int off, int len) {
+        try {
+            int numRead = in.read(buf, off, len);
+            if (numRead == -1) {
+                close();
+            }
+            return numRead;
+        } catch (SocketTimeoutException e) {
+            return 0;
+        } catch (IOException e) {
+            close();
+            return -1;
+        }
+    }
+
     @Override
     public boolean write(byte[] data) {
         checkAction((d) -> {
@@ -14,6 +14,7 @@ public class UDPInterface implements NetworkInterface {
     private InetAddress ip;
     private int txPort;
     private int bufSize = 1024;
+    private int lastReadLength;
     private boolean closed;
 
     public UDPInterface(String ip, int txPort, int rxPort, int timeout) throws SocketException {
@@ -52,11 +53,13 @@ public class UDPInterface implements NetworkInterface {
     public byte[] read() {
         byte[] buffer = new byte[bufSize];
         DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        lastReadLength = 0;
         try {
             if (closed) {
                 return new byte[0];
             }
             rxSocket.receive(packet);
+            lastReadLength = packet.getLength();
         } catch (SocketTimeoutException e) {
             return new byte[0];
         } catch (SocketException e) {
@@ -68,6 +71,10 @@ public class UDPInterface implements NetworkInterface {
         return buffer;
     }
 
+    public int getLastReadLength() {
+        return lastReadLength;
+    }
+
     public void setBufSize(int bufSize) {
         this.bufSize = bufSize;
     }
@@ -7,50 +7,201 @@ import com.boomaa.opends.util.ArrayUtils;
 import com.boomaa.opends.util.Clock;
 import com.boomaa.opends.util.Debug;
 import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.FlightRecorder;
+import com.boomaa.opends.util.LogSource;
 import com.boomaa.opends.util.NumberUtils;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class NTConnection extends Clock {
+// The clock only flushes writes and sends keep-alives; a dedicated reader thread owns
+// connecting and drains the socket so a quiet server never holds a shared clock thread
+public class NTConnection extends Clock implements NTPublisher {
     private static final byte[] CLIENT_HELLO = getClientHello("opends");
     private static final byte[] CLIENT_HELLO_COMPLETE = new byte[] { 0x05 };
     private static final byte[] KEEP_ALIVE = new byte[] { 0x00 };
-    public static byte[] CUTOFF_DATA = new byte[0];
+    private static final int KEEP_ALIVE_MS = 1000;
+    private static final int MIN_RETRY_MS = 250;
+    private static final int MAX_RETRY_MS = 5000;
     public static String SERVER_IDENTITY = "";
     public static boolean SERVER_SEEN_CLIENT = false;
     public static int SERVER_LATEST_VER = 0x0300;
-    private TCPInterface connection;
-    private boolean doReconnectSend = false;
+    public static volatile boolean SERVER_HELLO_DONE = false;
+    private final NTDecoder decoder = new NTDecoder();
+    private final byte[] readBuffer = new byte[16384];
+    private final NTWriteQueue writes = new NTWriteQueue();
+    private final NTEncoder encoder = new NTEncoder();
+    // paths assigned with NEW_ENTRY_ID whose server assign hasn't come back yet
+    private final Set<String> awaitingId = new HashSet<>();
+    // persistent flags set before their path was ever assigned, sent with its first assign
+    private final Map<String, Boolean> unassignedFlags = new HashMap<>();
+    private volatile TCPInterface connection;
+    private Thread reader;
+    private long lastWriteMs;
+    private volatile boolean clientHelloDone;
 
     public NTConnection() {
         super(100);
     }
 
+    @Override
+    public void start() {
+        reader = new Thread(this::readLoop, "opends-ntreader");
+        reader.setDaemon(true);
+        reader.start();
+        super.start();
+    }
+
+    @Override
+    public void end() {
+        super.end();
+        if (reader != null) {
+            reader.interrupt();
+        }
+        TCPInterface conn = connection;
+        if (conn != null) {
+            conn.close();
+        }
+    }
+
     @Override
     public void onCycle() {
-        if (connection == null || connection.isClosed()) {
-            Debug.println("NetworkTables connection failed", EventSeverity.WARNING, true);
-            reloadConnection();
-        } else {
-            if (doReconnectSend) {
-                Debug.println("NetworkTables connected to " + connection.toString());
-                Debug.removeSticky("NetworkTables connection failed");
-                connection.write(CLIENT_HELLO);
-                decodeInput(connection.read());
-                connection.write(CLIENT_HELLO_COMPLETE);
-                decodeInput(connection.read());
-                doReconnectSend = false;
+        TCPInterface conn = connection;
+        if (conn != null && !conn.isClosed()) {
+            synchronized (this) {
+                if (clientHelloDone && !writes.isEmpty()) {
+                    flushWrites();
+                }
+                if (System.currentTimeMillis() - lastWriteMs >= KEEP_ALIVE_MS) {
+                    send(KEEP_ALIVE);
+                }
+            }
+        }
+    }
+
+    public synchronized void send(byte[] data) {
+        TCPInterface conn = connection;
+        if (conn != null && !conn.isClosed()) {
+            conn.write(data);
+            lastWriteMs = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void publish(String path, NTDataType type, Object value) {
+        NTEncoder.validate(type, value);
+        NTEntry entry = NTStorage.get(path);
+        // a stale entry shows the cached value until the server confirms the write
+        if (entry != null && !entry.isStale() && entry.getDataType() == type) {
+            entry.setValue(value);
+        }
+        writes.putValue(path, type, value);
+    }
+
+    @Override
+    public void setPersistent(String path, boolean persistent) {
+        writes.putPersistent(path, persistent);
+    }
+
+    @Override
+    public void delete(String path) {
+        writes.putDelete(path);
+    }
+
+    // One message per written entry per cycle, all in a single socket write
+    private void flushWrites() {
+        encoder.reset();
+        for (NTWriteQueue.Write write : writes.drain()) {
+            String path = write.getPath();
+            NTEntry entry = NTStorage.get(path);
+            if (entry != null && (entry.isStale() || entry.getId() < 0)) {
+                // a cached entry the server never reassigned has no id to write to
+                if (write.isDelete()) {
+                    NTStorage.remove(entry.getId());
+                }
+                entry = null;
             }
-            connection.write(KEEP_ALIVE);
-            decodeInput(connection.read());
+            if (entry == null) {
+                if (write.isDelete()) {
+                    unassignedFlags.remove(path);
+                    continue;
+                } else if (awaitingId.contains(path)) {
+                    // resolved once the server assigns an id or the connection resets
+                    writes.requeue(write);
+                    continue;
+                } else if (!write.hasValue()) {
+                    unassignedFlags.put(path, write.getPersistent());
+                    continue;
+                }
+                awaitingId.add(path);
+                Boolean flag = unassignedFlags.remove(path);
+                boolean persistent = write.getPersistent() != null ? write.getPersistent() : Boolean.TRUE.equals(flag);
+                encoder.entryAssign(path, write.getType(), NTEncoder.NEW_ENTRY_ID, 0, persistent, write.getValue());
+                continue;
+            }
+            unassignedFlags.remove(path);
+            awaitingId.remove(path);
+            if (write.isDelete()) {
+                encoder.entryDelete(entry.getId());
+                NTStorage.remove(entry.getId());
+                continue;
+            }
+            boolean persistent = write.getPersistent() != null ? write.getPersistent() : entry.isPersistent();
+            if (write.hasValue()) {
+                int seqNum = (entry.getSeqNum() + 1) & 0xFFFF;
+                if (write.getType() == entry.getDataType()) {
+                    entry.setSeqNum(seqNum);
+                    encoder.entryUpdate(entry.getId(), seqNum, write.getType(), write.getValue());
+                } else {
+                    // a type change is only possible by re-assigning under the same id
+                    encoder.entryAssign(path, write.getType(), entry.getId(), seqNum, persistent, write.getValue());
+                    NTEntry replaced = new NTEntry(path, entry.getId(), write.getType(), write.getValue(), persistent);
+                    replaced.setSeqNum(seqNum);
+                    NTStorage.put(replaced);
+                    continue;
+                }
+            }
+            if (persistent != entry.isPersistent()) {
+                encoder.flagsUpdate(entry.getId(), persistent);
+                entry.setPersistent(persistent);
+            }
+        }
+        if (encoder.size() != 0) {
+            send(encoder.toByteArray());
         }
     }
 
-    public void reloadConnection() {
-        if (connection != null) {
-            connection.close();
+    private void readLoop() {
+        int retryMs = MIN_RETRY_MS;
+        while (!done) {
+            TCPInterface conn = connection;
+            if (conn == null || conn.isClosed()) {
+                if (!connect()) {
+                    Debug.println("NetworkTables connection failed", EventSeverity.WARNING, true, false, LogSource.NETWORK_TABLES);
+                    try {
+                        Thread.sleep(retryMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+                    continue;
+                }
+                retryMs = MIN_RETRY_MS;
+                conn = connection;
+            }
+            int numRead = conn.read(readBuffer, 0, readBuffer.length);
+            if (numRead > 0) {
+                decodeInput(numRead);
+            }
         }
+    }
+
+    private boolean connect() {
+        closeConnection();
         String rioIp = AddressConstants.getRioAddress();
         try {
             if (NetworkClock.exceptionPingTest(rioIp)) {
@@ -58,32 +209,44 @@ public class NTConnection extends Clock {
             }
         } catch (IOException ignored) {
         }
-        doReconnectSend = true;
+        TCPInterface conn = connection;
+        if (conn == null || conn.isClosed()) {
+            return false;
+        }
+        Debug.println("NetworkTables connected to " + conn.toString(), EventSeverity.INFO,
+            false, false, LogSource.NETWORK_TABLES);
+        Debug.removeSticky("NetworkTables connection failed");
+        send(CLIENT_HELLO);
+        return true;
     }
 
-    private void decodeInput(byte[] data) {
-        if (data != null && data.length != 0) {
-            int i = 0;
-            while (i < data.length) {
-                byte[] slicedData = ArrayUtils.slice(data, i);
-                if (i == data.length - 1 && CUTOFF_DATA.length != 0) {
-                    byte[] mergedData = new byte[slicedData.length + CUTOFF_DATA.length];
-                    for (int j = 0; j < mergedData.length; j++) {
-                        if (j < CUTOFF_DATA.length) {
-                            mergedData[j] = CUTOFF_DATA[j];
-                        } else {
-                            mergedData[j] = slicedData[j - CUTOFF_DATA.length];
-                        }
-                    }
-                    slicedData = mergedData;
-                    CUTOFF_DATA = new byte[0];
-                }
-                int usedLen = new NTPacketData(slicedData).usedLength();
-                if (usedLen == Integer.MAX_VALUE) {
-                    break;
-                }
-                i += usedLen;
-            }
+    private void closeConnection() {
+        TCPInterface conn = connection;
+        connection = null;
+        if (conn != null) {
+            conn.close();
+            // keep showing the last values, marked stale, until the server reassigns them
+            NTSnapshot.save();
+            NTStorage.markAllStale();
+        }
+        decoder.reset();
+        SERVER_HELLO_DONE = false;
+        synchronized (this) {
+            clientHelloDone = false;
+            awaitingId.clear();
+        }
+    }
+
+    private void decodeInput(int length) {
+        FlightRecorder.record(FlightRecorder.Type.NETWORK_TABLES, readBuffer, 0, length);
+        decoder.feed(readBuffer, 0, length);
+        if (!decoder.decode()) {
+            Debug.println("Malformed NetworkTables stream, reconnecting", EventSeverity.WARNING,
+                false, false, LogSource.NETWORK_TABLES);
+            closeConnection();
+        } else if (SERVER_HELLO_DONE && !clientHelloDone) {
+            send(CLIENT_HELLO_COMPLETE);
+            clientHelloDone = true;
         }
     }
 
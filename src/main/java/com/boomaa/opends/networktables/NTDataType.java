@@ -10,6 +10,7 @@ public enum NTDataType {
     NT_STRING_ARRAY(0x12),
     NT_RPC(0x20);
 
+    private static final NTDataType[] BY_FLAG = new NTDataType[0x100];
     private final int flag;
 
     NTDataType(int flag) {
@@ -20,12 +21,32 @@ public enum NTDataType {
         return flag;
     }
 
+    public boolean accepts(Object value) {
+        switch (this) {
+            case NT_BOOLEAN:
+                return value instanceof Boolean;
+            case NT_DOUBLE:
+                return value instanceof Number;
+            case NT_STRING:
+                return value instanceof String;
+            case NT_BOOLEAN_ARRAY:
+                return value instanceof boolean[];
+            case NT_DOUBLE_ARRAY:
+                return value instanceof double[];
+            case NT_STRING_ARRAY:
+                return value instanceof String[];
+            default:
+                return value instanceof byte[];
+        }
+    }
+
     public static NTDataType getFromFlag(int flag) {
-        for (NTDataType type : NTDataType.values()) {
-            if (type.flag == flag) {
-                return type;
-            }
+        return flag >= 0 && flag < BY_FLAG.length ? BY_FLAG[flag] : null;
+    }
+
+    static {
+        for (NTDataType type : values()) {
+            BY_FLAG[type.flag] = type;
         }
-        return null;
     }
 }
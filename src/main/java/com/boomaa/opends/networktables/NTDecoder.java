@@ -0,0 +1,211 @@
+package com.boomaa.opends.networktables;
+
+// Streaming NT3 decoder. Input accumulates in a growable buffer; each complete
+// message is sized first (bounds-checked, no allocation) and then decoded once.
+// A trailing partial message stays buffered until enough bytes arrive.
+public class NTDecoder {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int INCOMPLETE = -1;
+    private static final int MALFORMED = -2;
+    private static final int BAD_POS = Integer.MIN_VALUE;
+    private final NTPacketData packet = new NTPacketData();
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int start;
+    private int end;
+    // bytes that must be buffered from start before the pending message can be complete
+    private int needed;
+
+    public void feed(byte[] data, int off, int len) {
+        ensureWritable(len);
+        System.arraycopy(data, off, buf, end, len);
+        end += len;
+    }
+
+    public void feed(byte[] data) {
+        feed(data, 0, data.length);
+    }
+
+    // Decodes every complete buffered message. Returns false if the stream is malformed
+    // and can no longer be framed, after which the connection should be dropped.
+    public boolean decode() {
+        while (end - start >= Math.max(1, needed)) {
+            int len = measure(start);
+            if (len == MALFORMED) {
+                reset();
+                return false;
+            } else if (len == INCOMPLETE) {
+                break;
+            }
+            needed = 0;
+            packet.read(buf, start).apply();
+            start += len;
+        }
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        return true;
+    }
+
+    public void reset() {
+        start = 0;
+        end = 0;
+        needed = 0;
+    }
+
+    private void ensureWritable(int len) {
+        if (end + len <= buf.length) {
+            return;
+        }
+        int pending = end - start;
+        if (pending + len <= buf.length / 2) {
+            System.arraycopy(buf, start, buf, 0, pending);
+        } else {
+            byte[] grown = new byte[Math.max(buf.length * 2, pending + len)];
+            System.arraycopy(buf, start, grown, 0, pending);
+            buf = grown;
+        }
+        start = 0;
+        end = pending;
+    }
+
+    // Total length of the message at pos, INCOMPLETE if more bytes are needed, or MALFORMED
+    private int measure(int pos) {
+        int p = pos + 1;
+        NTMessageType type = NTMessageType.getFromFlag(buf[pos] & 0xFF);
+        if (type == null) {
+            return MALFORMED;
+        }
+        switch (type) {
+            case kKeepAlive:
+            case kServerHelloDone:
+            case kClientHelloDone:
+                break;
+            case kClientHello:
+                p = skipString(p + 2);
+                break;
+            case kProtoUnsup:
+                p += 2;
+                break;
+            case kServerHello:
+                p = skipString(p + 1);
+                break;
+            case kEntryAssign: {
+                p = skipString(p);
+                if (p < 0) {
+                    break;
+                } else if (!has(p, 6)) {
+                    p += 6;
+                    break;
+                }
+                NTDataType dataType = NTDataType.getFromFlag(buf[p] & 0xFF);
+                p = dataType == null ? BAD_POS : skipValue(p + 6, dataType);
+                break;
+            }
+            case kEntryUpdate: {
+                if (!has(p, 5)) {
+                    p += 5;
+                    break;
+                }
+                NTDataType dataType = NTDataType.getFromFlag(buf[p + 4] & 0xFF);
+                p = dataType == null ? BAD_POS : skipValue(p + 5, dataType);
+                break;
+            }
+            case kFlagsUpdate:
+                p += 3;
+                break;
+            case kEntryDelete:
+                p += 2;
+                break;
+            case kClearEntries:
+                p += 4;
+                break;
+            case kExecuteRpc:
+            case kRpcResponse:
+                p = skipBytes(p + 4);
+                break;
+            default:
+                return MALFORMED;
+        }
+        if (p == BAD_POS) {
+            return MALFORMED;
+        }
+        if (p < 0 || p > end) {
+            // remember how far the message is known to extend so small reads don't re-measure it
+            needed = Math.max(needed, (p < 0 ? -p : p) - pos);
+            return INCOMPLETE;
+        }
+        return p - pos;
+    }
+
+    // The skip helpers return the position after the item, -(known minimum end)
+    // if the item runs past the buffered bytes, or BAD_POS
+    private int skipValue(int p, NTDataType type) {
+        if (p < 0) {
+            return p;
+        }
+        switch (type) {
+            case NT_BOOLEAN:
+                return p + 1;
+            case NT_DOUBLE:
+                return p + 8;
+            case NT_STRING:
+            case NT_RAW:
+            case NT_RPC:
+                return skipBytes(p);
+            case NT_BOOLEAN_ARRAY:
+                return has(p, 1) ? p + 1 + (buf[p] & 0xFF) : -(p + 1);
+            case NT_DOUBLE_ARRAY:
+                return has(p, 1) ? p + 1 + ((buf[p] & 0xFF) * 8) : -(p + 1);
+            case NT_STRING_ARRAY: {
+                if (!has(p, 1)) {
+                    return -(p + 1);
+                }
+                int count = buf[p++] & 0xFF;
+                for (int i = 0; i < count && p >= 0; i++) {
+                    p = skipBytes(p);
+                }
+                return p;
+            }
+            default:
+                return BAD_POS;
+        }
+    }
+
+    private int skipString(int p) {
+        return skipBytes(p);
+    }
+
+    // ULEB128 length followed by that many bytes
+    private int skipBytes(int p) {
+        if (p < 0) {
+            return p;
+        }
+        long len = 0;
+        int shift = 0;
+        while (true) {
+            if (p >= end) {
+                return -(p + 1);
+            }
+            byte b = buf[p++];
+            len |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+            if (shift > 28) {
+                return BAD_POS;
+            }
+        }
+        long after = p + len;
+        return after > Integer.MAX_VALUE ? BAD_POS : (int) after;
+    }
+
+    private boolean has(int p, int count) {
+        return p + count <= end;
+    }
+
+    public int getBuffered() {
+        return end - start;
+    }
+}
@@ -0,0 +1,170 @@
+package com.boomaa.opends.networktables;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Growable NT3 message output. Messages are appended back to back so a whole
+// flush window goes out in a single write.
+public class NTEncoder {
+    public static final int NEW_ENTRY_ID = 0xFFFF;
+    private static final int MAX_ARRAY_LENGTH = 0xFF;
+    private byte[] buf = new byte[512];
+    private int size;
+
+    public NTEncoder reset() {
+        size = 0;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The server answers an assign for NEW_ENTRY_ID with its own assign carrying the real id
+    public NTEncoder entryAssign(String name, NTDataType type, int id, int seqNum, boolean persistent, Object value) {
+        writeByte(NTMessageType.kEntryAssign.getFlag());
+        writeString(name);
+        writeByte(type.getFlag());
+        writeShort(id);
+        writeShort(seqNum);
+        writeByte(persistent ? 0x01 : 0x00);
+        writeValue(type, value);
+        return this;
+    }
+
+    public NTEncoder entryUpdate(int id, int seqNum, NTDataType type, Object value) {
+        writeByte(NTMessageType.kEntryUpdate.getFlag());
+        writeShort(id);
+        writeShort(seqNum);
+        writeByte(type.getFlag());
+        writeValue(type, value);
+        return this;
+    }
+
+    public NTEncoder flagsUpdate(int id, boolean persistent) {
+        writeByte(NTMessageType.kFlagsUpdate.getFlag());
+        writeShort(id);
+        writeByte(persistent ? 0x01 : 0x00);
+        return this;
+    }
+
+    public NTEncoder entryDelete(int id) {
+        writeByte(NTMessageType.kEntryDelete.getFlag());
+        writeShort(id);
+        return this;
+    }
+
+    // Rejects values the encoder can't send, before they are queued
+    public static void validate(NTDataType type, Object value) {
+        if (!type.accepts(value)) {
+            throw new IllegalArgumentException("Value " + value + " is not a valid " + type);
+        } else if (value instanceof boolean[]) {
+            checkArrayLength(((boolean[]) value).length);
+        } else if (value instanceof double[]) {
+            checkArrayLength(((double[]) value).length);
+        } else if (value instanceof String[]) {
+            checkArrayLength(((String[]) value).length);
+        }
+    }
+
+    private void writeValue(NTDataType type, Object value) {
+        switch (type) {
+            case NT_BOOLEAN:
+                writeByte((Boolean) value ? 0x01 : 0x00);
+                break;
+            case NT_DOUBLE:
+                writeDouble(((Number) value).doubleValue());
+                break;
+            case NT_STRING:
+                writeString(String.valueOf(value));
+                break;
+            case NT_RAW:
+            case NT_RPC: {
+                byte[] raw = (byte[]) value;
+                writeULEB128(raw.length);
+                writeBytes(raw, raw.length);
+                break;
+            }
+            case NT_BOOLEAN_ARRAY: {
+                boolean[] bools = (boolean[]) value;
+                writeByte(checkArrayLength(bools.length));
+                for (boolean b : bools) {
+                    writeByte(b ? 0x01 : 0x00);
+                }
+                break;
+            }
+            case NT_DOUBLE_ARRAY: {
+                double[] dbls = (double[]) value;
+                writeByte(checkArrayLength(dbls.length));
+                for (double d : dbls) {
+                    writeDouble(d);
+                }
+                break;
+            }
+            case NT_STRING_ARRAY: {
+                String[] strs = (String[]) value;
+                writeByte(checkArrayLength(strs.length));
+                for (String s : strs) {
+                    writeString(s);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private static int checkArrayLength(int length) {
+        if (length > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("NT3 arrays hold at most " + MAX_ARRAY_LENGTH + " elements");
+        }
+        return length;
+    }
+
+    private void writeString(String str) {
+        byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+        writeULEB128(utf8.length);
+        writeBytes(utf8, utf8.length);
+    }
+
+    private void writeULEB128(int value) {
+        do {
+            int b = value & 0x7F;
+            value >>>= 7;
+            writeByte(value != 0 ? b | 0x80 : b);
+        } while (value != 0);
+    }
+
+    private void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            writeByte((int) (bits >>> shift));
+        }
+    }
+
+    private void writeShort(int value) {
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buf[size++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] data, int len) {
+        ensure(len);
+        System.arraycopy(data, 0, buf, size, len);
+        size += len;
+    }
+
+    private void ensure(int more) {
+        if (size + more > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + more));
+        }
+    }
+}
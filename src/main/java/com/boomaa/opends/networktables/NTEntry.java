@@ -1,10 +1,10 @@
 package com.boomaa.opends.networktables;
 
-import com.boomaa.opends.display.MainJDEC;
+import java.util.Arrays;
 
 public class NTEntry {
     private final String path;
-    private final int id;
+    private volatile int id;
     private final String key;
     private final String tabName;
     private final boolean inShuffleboard;
@@ -12,33 +12,39 @@ public class NTEntry {
     private final boolean inLiveWindow;
     private final NTDataType dataType;
     private final boolean inHidden;
-    private Object value;
-    private boolean persistent;
+    // NT_DOUBLE and NT_BOOLEAN values live in the primitive slots; everything else in
+    // objectValue. Updates of the same array length refill the previous array instead
+    // of allocating, so high-rate arrays cost no garbage once warmed up.
+    private volatile double doubleValue;
+    private volatile boolean booleanValue;
+    private volatile Object objectValue;
+    private Object spareArray;
+    private volatile boolean persistent;
+    private volatile long version;
+    private volatile int seqNum;
+    private volatile boolean stale;
+    private NTRecorder.Series series;
 
     public NTEntry(String path, int id, NTDataType dataType, Object value, boolean persistent) {
         this.path = path;
         this.id = id;
-        this.value = value;
         this.inShuffleboard = path.contains("Shuffleboard");
         this.inSmartDashboard = path.contains("SmartDashboard");
         this.inLiveWindow = path.contains("LiveWindow");
         this.dataType = dataType;
         this.persistent = persistent;
-        int ioSep = path.indexOf('/', 1);
-        if (inShuffleboard) {
-            int ioSep2 = path.indexOf('/', ioSep + 1);
-            this.tabName = path.substring(ioSep + 1, ioSep2);
-            this.key = path.substring(ioSep2 + 1);
+        store(value);
+        // "/Shuffleboard/<tab>/<key...>", otherwise "/<table>/<key...>"; keys keep nested subtables
+        String[] segments = path.startsWith("/") ? path.substring(1).split("/", -1) : path.split("/", -1);
+        int tabIdx = inShuffleboard && segments.length > 2 && segments[0].equals("Shuffleboard") ? 1 : 0;
+        if (segments.length > tabIdx + 1) {
+            this.tabName = segments[tabIdx];
+            this.key = String.join("/", Arrays.copyOfRange(segments, tabIdx + 1, segments.length));
         } else {
-            this.tabName = path.substring(1, ioSep);
-            this.key = path.substring(ioSep + 1);
+            this.tabName = "";
+            this.key = String.join("/", segments);
         }
         this.inHidden = key.startsWith(".") || path.contains("CameraPublisher") || tabName.equals("FMSInfo") || path.contains("SendableChooser");
-        if (!NTStorage.TABS.contains(tabName) && !inHidden && !tabName.startsWith(".")) {
-            NTStorage.TABS.add(tabName);
-            MainJDEC.NT_TAB.populateTabsBar();
-        }
-        displayQueue(this);
     }
 
     public String getPath() {
@@ -53,13 +59,142 @@ public class NTEntry {
         return key;
     }
 
+    // Boxes primitive values; hot paths should use the typed getters
     public Object getValue() {
-        return value;
+        if (dataType == NTDataType.NT_DOUBLE) {
+            return doubleValue;
+        } else if (dataType == NTDataType.NT_BOOLEAN) {
+            return booleanValue;
+        }
+        return objectValue;
+    }
+
+    public String getValueString() {
+        Object value = getValue();
+        if (value instanceof double[]) {
+            return Arrays.toString((double[]) value);
+        } else if (value instanceof boolean[]) {
+            return Arrays.toString((boolean[]) value);
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length + " bytes";
+        } else if (value instanceof Object[]) {
+            return Arrays.toString((Object[]) value);
+        }
+        return String.valueOf(value);
+    }
+
+    public double getDouble() {
+        return doubleValue;
+    }
+
+    public boolean getBoolean() {
+        return booleanValue;
     }
 
     public void setValue(Object value) {
-        this.value = value;
-        displayQueue(this);
+        store(value);
+        changed();
+    }
+
+    public void setDouble(double value) {
+        this.doubleValue = value;
+        changed();
+    }
+
+    public void setBoolean(boolean value) {
+        this.booleanValue = value;
+        changed();
+    }
+
+    // The array to decode the next update into. It is never the one readers currently see,
+    // but may be the one they saw before, so readers must not hold arrays across updates.
+    public double[] reuseDoubleArray(int length) {
+        Object spare = spareArray;
+        return spare instanceof double[] && ((double[]) spare).length == length ? (double[]) spare : new double[length];
+    }
+
+    public boolean[] reuseBooleanArray(int length) {
+        Object spare = spareArray;
+        return spare instanceof boolean[] && ((boolean[]) spare).length == length ? (boolean[]) spare : new boolean[length];
+    }
+
+    public void setArray(Object array) {
+        Object previous = objectValue;
+        this.objectValue = array;
+        this.spareArray = previous != array ? previous : null;
+        changed();
+    }
+
+    private void store(Object value) {
+        if (dataType == NTDataType.NT_DOUBLE && value instanceof Number) {
+            this.doubleValue = ((Number) value).doubleValue();
+        } else if (dataType == NTDataType.NT_BOOLEAN && value instanceof Boolean) {
+            this.booleanValue = (Boolean) value;
+        } else {
+            this.objectValue = value;
+        }
+    }
+
+    // stale stays set until adopt() hands over a server-assigned id
+    private void changed() {
+        this.version = NTStorage.nextVersion();
+        NTRecorder.record(this);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    // Cached from an earlier connection and not yet confirmed by the server
+    public boolean isStale() {
+        return stale;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    void setStale(boolean stale) {
+        this.stale = stale;
+    }
+
+    // Takes over a fresh assignment for the same path so existing references (UI cells,
+    // recorder series) stay valid across reconnects
+    void adopt(NTEntry fresh) {
+        this.id = fresh.id;
+        this.seqNum = fresh.seqNum;
+        this.persistent = fresh.persistent;
+        this.doubleValue = fresh.doubleValue;
+        this.booleanValue = fresh.booleanValue;
+        this.objectValue = fresh.objectValue;
+        this.spareArray = null;
+        this.stale = false;
+    }
+
+    int getSeqNum() {
+        return seqNum;
+    }
+
+    void setSeqNum(int seqNum) {
+        this.seqNum = seqNum;
+    }
+
+    // NT3 sequence numbers are 16 bits and wrap, so "newer" is judged within half the range
+    static boolean isNewerSeq(int candidate, int current) {
+        int diff = (candidate - current) & 0xFFFF;
+        return diff != 0 && diff < 0x8000;
+    }
+
+    NTRecorder.Series getSeries() {
+        return series;
+    }
+
+    void setSeries(NTRecorder.Series series) {
+        this.series = series;
     }
 
     public boolean isInShuffleboard() {
@@ -93,8 +228,4 @@ public class NTEntry {
     public boolean isPersistent() {
         return persistent;
     }
-
-    public static void displayQueue(NTEntry entry) {
-        MainJDEC.NT_TAB.updateValue(entry);
-    }
 }
@@ -15,6 +15,7 @@ public enum NTMessageType {
     kExecuteRpc(0x20),
     kRpcResponse(0x21);
 
+    private static final NTMessageType[] BY_FLAG = new NTMessageType[0x100];
     private final int flag;
 
     NTMessageType(int flag) {
@@ -25,12 +26,14 @@ public enum NTMessageType {
         return flag;
     }
 
+    // Called per decoded message, so no values() copy
     public static NTMessageType getFromFlag(int flag) {
-        for (NTMessageType type : NTMessageType.values()) {
-            if (type.flag == flag) {
-                return type;
-            }
+        return flag >= 0 && flag < BY_FLAG.length ? BY_FLAG[flag] : null;
+    }
+
+    static {
+        for (NTMessageType type : values()) {
+            BY_FLAG[type.flag] = type;
         }
-        return null;
     }
 }
@@ -1,142 +1,251 @@
 package com.boomaa.opends.networktables;
 
-import com.boomaa.opends.util.ArrayUtils;
-import com.boomaa.opends.util.NumberUtils;
-
-import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
+// A single complete NT3 message; NTDecoder guarantees the bytes are all present.
+// Instances are reusable, and entry update values are only decoded in apply(),
+// straight from the receive buffer into the entry's typed slots.
 public class NTPacketData {
-    private static final int[] CLEAR_ENTRIES_CHECK = new int[] { 0xD0, 0x6C, 0xB2, 0x7A };
-    private final byte[] data;
+    private static final int CLEAR_ENTRIES_MAGIC = 0xD06CB27A;
+    private static final Object NOT_READ = new Object();
+    private byte[] data;
+    private int pos;
+    private int valuePos;
     private NTMessageType messageType;
-    private int msgId = -1;
-    private int seqNum = -1;
+    private int msgId;
+    private int seqNum;
+    private int flags;
     private NTDataType dataType;
-    private String msgStr = "null";
-    private Object value = "null";
-    private int usedLength;
+    private String msgStr;
+    private Object value;
+
+    public NTPacketData() {
+    }
 
-    public NTPacketData(byte[] data) {
-        this.usedLength = data.length < 2 ? Integer.MAX_VALUE : 1;
+    public NTPacketData(byte[] data, int offset) {
+        read(data, offset);
+    }
+
+    public NTPacketData read(byte[] data, int offset) {
         this.data = data;
-        try {
-            this.messageType = NTMessageType.getFromFlag(NumberUtils.getUInt8(data[0]));
-            switch (Objects.requireNonNull(messageType)) {
-                case kEntryAssign:
-                    this.msgStr = readString(usedLength);
-                    this.dataType = NTDataType.getFromFlag(NumberUtils.getUInt8(data[usedLength++]));
-                    this.msgId = extractUInt16(usedLength);
-                    this.seqNum = extractUInt16(usedLength);
-                    boolean persistent = NumberUtils.getUInt8(data[usedLength++]) == 0x01;
-                    this.value = extractValue(usedLength);
-                    //TODO add tables and nesting
-                    NTStorage.ENTRIES.put(msgId, new NTEntry(msgStr, msgId, dataType, value, persistent));
-                    break;
-                case kEntryUpdate:
-                    this.msgId = extractUInt16(usedLength);
-                    NTEntry toUpdate = NTStorage.ENTRIES.get(msgId);
-                    this.seqNum = extractUInt16(usedLength);
-                    this.dataType = NTDataType.getFromFlag(NumberUtils.getUInt8(data[usedLength++]));
-                    this.value = extractValue(usedLength);
-                    toUpdate.setValue(value);
-                    break;
-                case kServerHello:
-                    int serverFlag = NumberUtils.getUInt8(data[usedLength++]);
-                    NTConnection.SERVER_SEEN_CLIENT = serverFlag == 0x01;
-                    NTConnection.SERVER_IDENTITY = readString(usedLength);
-                    this.value = NTConnection.SERVER_IDENTITY;
-                    break;
-                case kFlagsUpdate:
-                    this.msgId = extractUInt16(usedLength);
-                    int entryFlag = NumberUtils.getUInt8(data[usedLength++]);
-                    NTStorage.ENTRIES.get(msgId).setPersistent(entryFlag == 0x01);
-                    break;
-                case kClientHello:
-                    int clientProtoRev = extractUInt16(usedLength);
-                    String clientIdentity = readString(usedLength);
-                    NTStorage.CLIENTS.put(clientIdentity, clientProtoRev);
-                    this.value = clientIdentity;
-                    break;
-                case kProtoUnsup:
-                    NTConnection.SERVER_LATEST_VER = extractUInt16(usedLength);
-                    break;
-                case kEntryDelete:
-                    this.msgId = extractUInt16(usedLength);
-                    NTStorage.ENTRIES.remove(msgId);
-                    break;
-                case kClearEntries:
-                    byte[] received = ArrayUtils.slice(data, usedLength, usedLength + 4);
-                    usedLength += 4;
-                    boolean doReset = true;
-                    for (int i = 0; i < CLEAR_ENTRIES_CHECK.length; i++) {
-                        if (received[i] != (byte) CLEAR_ENTRIES_CHECK[i]) {
-                            doReset = false;
-                            break;
-                        }
-                    }
-                    if (doReset) {
-                        NTStorage.ENTRIES.clear();
-                        NTStorage.TABS.clear();
-                    }
-                    break;
-                case kExecuteRpc:
-                case kRpcResponse:
-                    break;
-            }
-        } catch (ArrayIndexOutOfBoundsException | NullPointerException e) {
-            NTConnection.CUTOFF_DATA = data;
+        this.pos = offset + 1;
+        this.messageType = NTMessageType.getFromFlag(data[offset] & 0xFF);
+        this.msgId = -1;
+        this.seqNum = -1;
+        this.flags = 0;
+        this.dataType = null;
+        this.msgStr = "null";
+        this.value = "null";
+        switch (Objects.requireNonNull(messageType)) {
+            case kEntryAssign:
+                this.msgStr = readString();
+                this.dataType = NTDataType.getFromFlag(readUInt8());
+                this.msgId = readUInt16();
+                this.seqNum = readUInt16();
+                this.flags = readUInt8();
+                this.value = readValue();
+                break;
+            case kEntryUpdate:
+                this.msgId = readUInt16();
+                this.seqNum = readUInt16();
+                this.dataType = NTDataType.getFromFlag(readUInt8());
+                this.valuePos = pos;
+                this.value = NOT_READ;
+                break;
+            case kServerHello:
+                this.flags = readUInt8();
+                this.msgStr = readString();
+                this.value = msgStr;
+                break;
+            case kFlagsUpdate:
+                this.msgId = readUInt16();
+                this.flags = readUInt8();
+                break;
+            case kClientHello:
+                this.seqNum = readUInt16();
+                this.msgStr = readString();
+                this.value = msgStr;
+                break;
+            case kProtoUnsup:
+                this.seqNum = readUInt16();
+                break;
+            case kEntryDelete:
+                this.msgId = readUInt16();
+                break;
+            case kClearEntries:
+                this.flags = (readUInt16() << 16) | readUInt16();
+                break;
+            default:
+                break;
         }
+        return this;
     }
 
-    private int extractUInt16(int start) {
-        usedLength += 2;
-        return NumberUtils.getUInt16(ArrayUtils.slice(data, start, start + 2));
+    public void apply() {
+        switch (messageType) {
+            case kEntryAssign: {
+                NTEntry entry = new NTEntry(msgStr, msgId, dataType, value, flags == 0x01);
+                entry.setSeqNum(seqNum);
+                NTStorage.put(entry);
+                break;
+            }
+            case kEntryUpdate: {
+                // stale updates (including echoes of writes we already superseded) are dropped
+                NTEntry toUpdate = NTStorage.get(msgId);
+                if (toUpdate != null && toUpdate.getDataType() == dataType && NTEntry.isNewerSeq(seqNum, toUpdate.getSeqNum())) {
+                    toUpdate.setSeqNum(seqNum);
+                    applyUpdate(toUpdate);
+                }
+                break;
+            }
+            case kServerHello:
+                NTConnection.SERVER_SEEN_CLIENT = flags == 0x01;
+                NTConnection.SERVER_IDENTITY = msgStr;
+                break;
+            case kFlagsUpdate: {
+                NTEntry toUpdate = NTStorage.get(msgId);
+                if (toUpdate != null) {
+                    toUpdate.setPersistent(flags == 0x01);
+                }
+                break;
+            }
+            case kServerHelloDone:
+                // the initial dump is complete, so cached entries it didn't reassign are gone
+                NTConnection.SERVER_HELLO_DONE = true;
+                NTStorage.removeStale();
+                break;
+            case kClientHello:
+                NTStorage.CLIENTS.put(msgStr, seqNum);
+                break;
+            case kProtoUnsup:
+                NTConnection.SERVER_LATEST_VER = seqNum;
+                break;
+            case kEntryDelete:
+                NTStorage.remove(msgId);
+                break;
+            case kClearEntries:
+                if (flags == CLEAR_ENTRIES_MAGIC && NTConnection.SERVER_HELLO_DONE) {
+                    NTStorage.clear();
+                } else if (flags == CLEAR_ENTRIES_MAGIC) {
+                    // during the initial dump, keep showing the cache until entries are reassigned
+                    NTStorage.markAllStale();
+                }
+                break;
+            default:
+                break;
+        }
     }
 
-    private Object extractValue(int start) {
+    private void applyUpdate(NTEntry entry) {
+        pos = valuePos;
         switch (dataType) {
             case NT_BOOLEAN:
-                usedLength++;
-                return NumberUtils.getUInt8(data[start]) == 0x01;
+                entry.setBoolean(readUInt8() == 0x01);
+                break;
             case NT_DOUBLE:
-                return readDouble(start);
-            case NT_STRING:
-                return readString(start);
-            case NT_STRING_ARRAY:
-                usedLength++;
-                int len = NumberUtils.getUInt8(data[start]);
-                String[] strs = new String[len];
-                for (int i = 0; i < strs.length; i++) {
-                    strs[i] = readString(usedLength);
+                entry.setDouble(readDouble());
+                break;
+            case NT_BOOLEAN_ARRAY: {
+                boolean[] bools = entry.reuseBooleanArray(readUInt8());
+                for (int i = 0; i < bools.length; i++) {
+                    bools[i] = readUInt8() == 0x01;
                 }
-                return strs;
-            case NT_DOUBLE_ARRAY:
-                usedLength++;
-                double[] dbls = new double[data[start]];
+                entry.setArray(bools);
+                break;
+            }
+            case NT_DOUBLE_ARRAY: {
+                double[] dbls = entry.reuseDoubleArray(readUInt8());
                 for (int i = 0; i < dbls.length; i++) {
-                    dbls[i] = readDouble(usedLength);
+                    dbls[i] = readDouble();
                 }
-                return dbls;
+                entry.setArray(dbls);
+                break;
+            }
+            default:
+                entry.setValue(readValue());
+                break;
         }
-        return null;
     }
 
-    private double readDouble(int start) {
-        usedLength += 8;
-        try {
-            return NumberUtils.getDouble(ArrayUtils.slice(data, start, start + 8));
-        } catch (BufferUnderflowException ignored) {
-            return 0;
+    private int readUInt8() {
+        return data[pos++] & 0xFF;
+    }
+
+    private int readUInt16() {
+        return (readUInt8() << 8) | readUInt8();
+    }
+
+    private int readULEB128() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private double readDouble() {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (data[pos++] & 0xFF);
         }
+        return Double.longBitsToDouble(bits);
     }
 
-    private String readString(int start) {
-        int strLen = NumberUtils.decodeULEB128(ArrayUtils.slice(data, start));
-        int encLen = NumberUtils.sizeULEB128(strLen);
-        usedLength += strLen + encLen;
-        start += encLen;
-        return new String(ArrayUtils.slice(data, start, start + strLen));
+    private String readString() {
+        int len = readULEB128();
+        String str = new String(data, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return str;
+    }
+
+    private Object readValue() {
+        if (dataType == null) {
+            return null;
+        }
+        switch (dataType) {
+            case NT_BOOLEAN:
+                return readUInt8() == 0x01;
+            case NT_DOUBLE:
+                return readDouble();
+            case NT_STRING:
+                return readString();
+            case NT_RAW:
+            case NT_RPC: {
+                int len = readULEB128();
+                byte[] raw = new byte[len];
+                System.arraycopy(data, pos, raw, 0, len);
+                pos += len;
+                return raw;
+            }
+            case NT_BOOLEAN_ARRAY: {
+                boolean[] bools = new boolean[readUInt8()];
+                for (int i = 0; i < bools.length; i++) {
+                    bools[i] = readUInt8() == 0x01;
+                }
+                return bools;
+            }
+            case NT_DOUBLE_ARRAY: {
+                double[] dbls = new double[readUInt8()];
+                for (int i = 0; i < dbls.length; i++) {
+                    dbls[i] = readDouble();
+                }
+                return dbls;
+            }
+            case NT_STRING_ARRAY: {
+                String[] strs = new String[readUInt8()];
+                for (int i = 0; i < strs.length; i++) {
+                    strs[i] = readString();
+                }
+                return strs;
+            }
+            default:
+                return null;
+        }
     }
 
     public NTMessageType getMessageType() {
@@ -159,12 +268,12 @@ public class NTPacketData {
         return msgStr;
     }
 
-    public int usedLength() {
-        return usedLength;
-    }
-
     @SuppressWarnings("unchecked")
     public <T> T getValue() {
+        if (value == NOT_READ) {
+            pos = valuePos;
+            value = readValue();
+        }
         return (T) value;
     }
 
@@ -0,0 +1,11 @@
+package com.boomaa.opends.networktables;
+
+// Writes from the UI or scripts. Clients coalesce them per entry and send at most
+// one message per entry each flush window, so repeated writes cost the server nothing.
+public interface NTPublisher {
+    void publish(String path, NTDataType type, Object value);
+
+    void setPersistent(String path, boolean persistent);
+
+    void delete(String path);
+}
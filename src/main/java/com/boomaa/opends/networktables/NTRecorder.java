@@ -0,0 +1,609 @@
+package com.boomaa.opends.networktables;
+
+import com.boomaa.opends.util.Clock;
+import com.boomaa.opends.util.DSLog;
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.LogSource;
+import com.boomaa.opends.util.MpscQueue;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Time series of every numeric/boolean NT entry. Each series keeps a raw ring and
+// min/max/avg tiers in memory; full-resolution blocks are handed to a flush clock
+// that deflates and appends them to a per-session segment file next to the DS logs.
+//
+// Segment format: "ODSNT" + version, then records of
+//   'S' u32 seriesId, UTF path                               (series declaration)
+//   'B' u32 seriesId, u32 count, i64 firstMs, i64 lastMs, u32 len, deflated payload
+// where the payload is count zigzag-varint time deltas then count doubles XORed
+// with their predecessor, so steady values compress to almost nothing.
+public class NTRecorder {
+    public static final String EXTENSION = ".odsnt";
+    private static final byte[] MAGIC = new byte[] { 'O', 'D', 'S', 'N', 'T' };
+    private static final int FORMAT_VERSION = 1;
+    private static final int RAW_CAPACITY = 2048;
+    private static final int BLOCK_SAMPLES = 1024;
+    private static final int MAX_SERIES = 1024;
+    private static final long[] TIER_MS = { 1000, 15_000 };
+    private static final int TIER_CAPACITY = 1024;
+    private static final int FLUSH_MS = 1000;
+    private static final Map<String, Series> SERIES = new ConcurrentHashMap<>();
+    private static final MpscQueue<Block> PENDING = new MpscQueue<>(1024);
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    private static final Object FILE_LOCK = new Object();
+    private static final Clock FLUSHER = new Clock("NTRecorder", FLUSH_MS) {
+        @Override
+        public void onCycle() {
+            flush();
+        }
+    };
+    private static final Deflater DEFLATER = new Deflater(Deflater.BEST_SPEED);
+    private static volatile boolean persist;
+    private static String segmentSession;
+    private static long reportedDrops;
+    private static File segmentFile;
+    private static FileOutputStream segmentOut;
+    private static long segmentLength;
+
+    private NTRecorder() {
+    }
+
+    public static void start(boolean persistToDisk) {
+        persist = persistToDisk;
+        FLUSHER.start();
+    }
+
+    public static void stop() {
+        FLUSHER.end();
+        for (Series series : SERIES.values()) {
+            series.spill(true);
+        }
+        flush();
+        synchronized (FILE_LOCK) {
+            closeSegment();
+        }
+    }
+
+    static void record(NTEntry entry) {
+        double sample;
+        if (entry.getDataType() == NTDataType.NT_DOUBLE) {
+            sample = entry.getDouble();
+        } else if (entry.getDataType() == NTDataType.NT_BOOLEAN) {
+            sample = entry.getBoolean() ? 1 : 0;
+        } else {
+            return;
+        }
+        Series series = entry.getSeries();
+        if (series == null) {
+            series = SERIES.get(entry.getPath());
+            if (series == null) {
+                if (SERIES.size() >= MAX_SERIES) {
+                    return;
+                }
+                series = SERIES.computeIfAbsent(entry.getPath(), Series::new);
+            }
+            entry.setSeries(series);
+        }
+        series.add(System.currentTimeMillis(), sample);
+    }
+
+    public static Series getSeries(String path) {
+        return SERIES.get(path);
+    }
+
+    public static List<String> getRecordedPaths() {
+        List<String> paths = new ArrayList<>(SERIES.keySet());
+        paths.sort(null);
+        return paths;
+    }
+
+    private static void flush() {
+        reportDrops();
+        if (!persist) {
+            PENDING.clear();
+            return;
+        }
+        synchronized (FILE_LOCK) {
+            String session = DSLog.getSessionPath();
+            if (session == null) {
+                PENDING.clear();
+                return;
+            } else if (!session.equals(segmentSession) || segmentOut == null) {
+                closeSegment();
+                openSegment(session);
+            }
+            if (segmentOut == null) {
+                PENDING.clear();
+                return;
+            }
+            PENDING.drain(NTRecorder::writeBlock);
+        }
+    }
+
+    // Blocks offered while the flusher was behind never reach the segment file
+    private static void reportDrops() {
+        long drops = PENDING.getDropped();
+        if (drops != reportedDrops) {
+            Debug.println((drops - reportedDrops) + " NT recording blocks dropped (flush queue full)",
+                EventSeverity.WARNING, false, true, LogSource.NETWORK_TABLES);
+            reportedDrops = drops;
+        }
+    }
+
+    private static void openSegment(String session) {
+        File file = new File(session + EXTENSION);
+        // reopening the same session (after stop or a failed write) appends so existing block refs stay valid
+        boolean resume = file.equals(segmentFile) && file.isFile();
+        segmentSession = session;
+        segmentFile = file;
+        try {
+            segmentOut = new FileOutputStream(segmentFile, resume);
+            if (resume) {
+                segmentLength = segmentFile.length();
+                return;
+            }
+            segmentOut.write(MAGIC);
+            segmentOut.write(FORMAT_VERSION);
+            segmentLength = MAGIC.length + 1;
+            // the new file knows no series yet
+            for (Series series : SERIES.values()) {
+                series.declaredIn = null;
+            }
+        } catch (IOException e) {
+            segmentOut = null;
+            Debug.println("Could not open NT recording " + segmentFile + ": " + e.getMessage(), EventSeverity.WARNING,
+                true, false, LogSource.NETWORK_TABLES);
+        }
+    }
+
+    private static void closeSegment() {
+        if (segmentOut != null) {
+            try {
+                segmentOut.close();
+            } catch (IOException ignored) {
+            }
+            segmentOut = null;
+        }
+    }
+
+    private static void writeBlock(Block block) {
+        Series series = block.series;
+        try {
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(record);
+            if (series.declaredIn != segmentFile) {
+                out.writeByte('S');
+                out.writeInt(series.id);
+                out.writeUTF(series.path);
+                series.declaredIn = segmentFile;
+            }
+            byte[] payload = deflate(encode(block));
+            out.writeByte('B');
+            out.writeInt(series.id);
+            out.writeInt(block.count);
+            out.writeLong(block.times[0]);
+            out.writeLong(block.times[block.count - 1]);
+            out.writeInt(payload.length);
+            long payloadOffset = segmentLength + record.size();
+            out.write(payload);
+            segmentOut.write(record.toByteArray());
+            segmentLength += record.size();
+            series.addRef(new BlockRef(segmentFile, payloadOffset, payload.length, block.firstIndex, block.count, block.times[0]));
+        } catch (IOException e) {
+            Debug.println("NT recording write failed: " + e.getMessage(), EventSeverity.WARNING, true, false, LogSource.NETWORK_TABLES);
+            closeSegment();
+        }
+    }
+
+    private static byte[] encode(Block block) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(block.count * 4);
+        long prevTime = block.times[0];
+        for (int i = 0; i < block.count; i++) {
+            long delta = block.times[i] - prevTime;
+            prevTime = block.times[i];
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+        }
+        long prevBits = 0;
+        for (int i = 0; i < block.count; i++) {
+            long bits = Double.doubleToLongBits(block.values[i]);
+            long xor = bits ^ prevBits;
+            prevBits = bits;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (xor >>> shift));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        DEFLATER.reset();
+        DEFLATER.setInput(raw);
+        DEFLATER.finish();
+        byte[] buf = new byte[raw.length + 64];
+        int len = 0;
+        while (!DEFLATER.finished()) {
+            if (len == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            len += DEFLATER.deflate(buf, len, buf.length - len);
+        }
+        return Arrays.copyOf(buf, len);
+    }
+
+    private static int decode(BlockRef ref, long[] times, double[] values, int off) throws IOException {
+        byte[] payload = new byte[ref.length];
+        synchronized (FILE_LOCK) {
+            try (RandomAccessFile in = new RandomAccessFile(ref.file, "r")) {
+                in.seek(ref.offset);
+                in.readFully(payload);
+            }
+        }
+        Inflater inflater = new Inflater();
+        byte[] raw = new byte[ref.count * 18];
+        int rawLen;
+        try {
+            inflater.setInput(payload);
+            rawLen = inflater.inflate(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt NT recording block", e);
+        } finally {
+            inflater.end();
+        }
+        int p = 0;
+        long time = 0;
+        for (int i = 0; i < ref.count; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = raw[p++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+            time = i == 0 ? ref.firstTime : time + delta;
+            times[off + i] = time;
+        }
+        long prevBits = 0;
+        for (int i = 0; i < ref.count; i++) {
+            long xor = 0;
+            for (int j = 0; j < 8; j++) {
+                xor = (xor << 8) | (raw[p++] & 0xFF);
+            }
+            prevBits ^= xor;
+            values[off + i] = Double.longBitsToDouble(prevBits);
+        }
+        if (p > rawLen) {
+            throw new IOException("Truncated NT recording block");
+        }
+        return ref.count;
+    }
+
+    // Writes every sample still available (on disk and in memory) as time_ms,value
+    public static int exportCsv(Series series, File dest) throws IOException {
+        series.spill(true);
+        flush();
+        Samples all = series.readAll();
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(dest))) {
+            out.write("time_ms," + series.path.replace(',', ';'));
+            out.newLine();
+            for (int i = 0; i < all.size; i++) {
+                out.write(all.times[i] + "," + all.avg[i]);
+                out.newLine();
+            }
+        }
+        return all.size;
+    }
+
+    public static class Series {
+        private final String path;
+        private final int id;
+        private final Tier[] tiers = new Tier[TIER_MS.length];
+        private final List<BlockRef> refs = new ArrayList<>();
+        private long[] times = new long[64];
+        private double[] values = new double[64];
+        private long head;
+        private long spilled;
+        private File declaredIn;
+
+        private Series(String path) {
+            this.path = path;
+            this.id = NEXT_ID.getAndIncrement();
+            for (int i = 0; i < tiers.length; i++) {
+                tiers[i] = new Tier(TIER_MS[i]);
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        private synchronized void add(long time, double value) {
+            if (head == times.length && times.length < RAW_CAPACITY) {
+                times = Arrays.copyOf(times, Math.min(times.length * 2, RAW_CAPACITY));
+                values = Arrays.copyOf(values, times.length);
+            }
+            int slot = (int) (head % times.length);
+            times[slot] = time;
+            values[slot] = value;
+            head++;
+            for (Tier tier : tiers) {
+                tier.add(time, value);
+            }
+            if (head - spilled >= BLOCK_SAMPLES) {
+                spill(false);
+            }
+        }
+
+        private synchronized void spill(boolean partial) {
+            if (!persist) {
+                spilled = head;
+                return;
+            }
+            int count = (int) Math.min(head - spilled, BLOCK_SAMPLES);
+            if (count == 0 || (!partial && count < BLOCK_SAMPLES)) {
+                return;
+            }
+            Block block = new Block(this, spilled, count);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((spilled + i) % times.length);
+                block.times[i] = times[slot];
+                block.values[i] = values[slot];
+            }
+            spilled += count;
+            // counted by the queue when full, and reported by the next flush
+            PENDING.offer(block);
+        }
+
+        private synchronized void addRef(BlockRef ref) {
+            refs.add(ref);
+        }
+
+        public synchronized long getFirstTime() {
+            if (tiers[tiers.length - 1].size != 0) {
+                return tiers[tiers.length - 1].oldestStart();
+            }
+            return head == 0 ? 0 : times[(int) (oldestIndex() % times.length)];
+        }
+
+        private long oldestIndex() {
+            return Math.max(0, head - times.length);
+        }
+
+        // Picks the finest resolution that covers [from, to] in about maxPoints points
+        public synchronized Samples query(long from, long to, int maxPoints) {
+            long oldest = oldestIndex();
+            if (head != 0 && (oldest == 0 || times[(int) (oldest % times.length)] <= from)) {
+                Samples raw = new Samples((int) (head - oldest));
+                for (long i = oldest; i < head; i++) {
+                    int slot = (int) (i % times.length);
+                    if (times[slot] >= from && times[slot] <= to) {
+                        raw.add(times[slot], values[slot], values[slot], values[slot]);
+                    }
+                }
+                if (raw.size <= maxPoints * 2) {
+                    return raw;
+                }
+            }
+            long bucketWanted = Math.max(1, (to - from) / Math.max(1, maxPoints));
+            Tier chosen = tiers[tiers.length - 1];
+            for (Tier tier : tiers) {
+                if (tier.bucketMs >= bucketWanted && (tier.size == 0 || tier.oldestStart() <= from)) {
+                    chosen = tier;
+                    break;
+                }
+            }
+            return chosen.read(from, to);
+        }
+
+        private Samples readAll() throws IOException {
+            List<BlockRef> refsCopy;
+            long memHead;
+            synchronized (this) {
+                refsCopy = new ArrayList<>(refs);
+                memHead = head;
+            }
+            int total = 0;
+            for (BlockRef ref : refsCopy) {
+                total += ref.count;
+            }
+            long[] allTimes = new long[total + RAW_CAPACITY];
+            double[] allValues = new double[total + RAW_CAPACITY];
+            int n = 0;
+            long covered = 0;
+            for (BlockRef ref : refsCopy) {
+                // retention may already have removed an older session's segment
+                if (ref.file.isFile()) {
+                    n += decode(ref, allTimes, allValues, n);
+                    covered = ref.firstIndex + ref.count;
+                }
+            }
+            synchronized (this) {
+                for (long i = Math.max(covered, oldestIndex()); i < memHead; i++) {
+                    int slot = (int) (i % times.length);
+                    allTimes[n] = times[slot];
+                    allValues[n++] = values[slot];
+                }
+            }
+            Samples out = new Samples(n);
+            for (int i = 0; i < n; i++) {
+                out.add(allTimes[i], allValues[i], allValues[i], allValues[i]);
+            }
+            return out;
+        }
+    }
+
+    private static class Tier {
+        private final long bucketMs;
+        private long[] start = new long[16];
+        private double[] min = new double[16];
+        private double[] max = new double[16];
+        private double[] sum = new double[16];
+        private int[] count = new int[16];
+        private long head;
+        private int size;
+
+        private Tier(long bucketMs) {
+            this.bucketMs = bucketMs;
+        }
+
+        private void add(long time, double value) {
+            long bucket = time - (time % bucketMs);
+            int slot = (int) ((head - 1) % start.length);
+            if (size == 0 || start[slot] != bucket) {
+                if (size == start.length && start.length < TIER_CAPACITY) {
+                    grow();
+                }
+                slot = (int) (head % start.length);
+                start[slot] = bucket;
+                min[slot] = value;
+                max[slot] = value;
+                sum[slot] = 0;
+                count[slot] = 0;
+                head++;
+                size = (int) Math.min(head, start.length);
+            }
+            min[slot] = Math.min(min[slot], value);
+            max[slot] = Math.max(max[slot], value);
+            sum[slot] += value;
+            count[slot]++;
+        }
+
+        private void grow() {
+            int cap = Math.min(start.length * 2, TIER_CAPACITY);
+            long[] newStart = new long[cap];
+            double[] newMin = new double[cap];
+            double[] newMax = new double[cap];
+            double[] newSum = new double[cap];
+            int[] newCount = new int[cap];
+            for (int i = 0; i < size; i++) {
+                int from = (int) ((head - size + i) % start.length);
+                newStart[i] = start[from];
+                newMin[i] = min[from];
+                newMax[i] = max[from];
+                newSum[i] = sum[from];
+                newCount[i] = count[from];
+            }
+            start = newStart;
+            min = newMin;
+            max = newMax;
+            sum = newSum;
+            count = newCount;
+            head = size;
+        }
+
+        private long oldestStart() {
+            return start[(int) ((head - size) % start.length)];
+        }
+
+        private Samples read(long from, long to) {
+            Samples out = new Samples(size);
+            for (long i = head - size; i < head; i++) {
+                int slot = (int) (i % start.length);
+                if (start[slot] + bucketMs >= from && start[slot] <= to) {
+                    out.add(start[slot], min[slot], max[slot], sum[slot] / count[slot]);
+                }
+            }
+            return out;
+        }
+    }
+
+    public static class Samples {
+        private final long[] times;
+        private final double[] min;
+        private final double[] max;
+        private final double[] avg;
+        private int size;
+
+        private Samples(int capacity) {
+            this.times = new long[capacity];
+            this.min = new double[capacity];
+            this.max = new double[capacity];
+            this.avg = new double[capacity];
+        }
+
+        private void add(long time, double lo, double hi, double mean) {
+            times[size] = time;
+            min[size] = lo;
+            max[size] = hi;
+            avg[size++] = mean;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getTime(int i) {
+            return times[i];
+        }
+
+        public double getMin(int i) {
+            return min[i];
+        }
+
+        public double getMax(int i) {
+            return max[i];
+        }
+
+        public double getAvg(int i) {
+            return avg[i];
+        }
+    }
+
+    private static class Block {
+        private final Series series;
+        private final long firstIndex;
+        private final int count;
+        private final long[] times;
+        private final double[] values;
+
+        private Block(Series series, long firstIndex, int count) {
+            this.series = series;
+            this.firstIndex = firstIndex;
+            this.count = count;
+            this.times = new long[count];
+            this.values = new double[count];
+        }
+    }
+
+    private static class BlockRef {
+        private final File file;
+        private final long offset;
+        private final int length;
+        private final long firstIndex;
+        private final int count;
+        private final long firstTime;
+
+        private BlockRef(File file, long offset, int length, long firstIndex, int count, long firstTime) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.firstIndex = firstIndex;
+            this.count = count;
+            this.firstTime = firstTime;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.boomaa.opends.networktables;
+
+import com.boomaa.opends.display.MainJDEC;
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.LogSource;
+import com.boomaa.opends.util.OperatingSystem;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// Last known NT state per team, kept in the temp folder. The snapshot is simply a
+// header followed by NT3 entry assign messages, so loading goes through the normal
+// decoder. Loaded entries are stale until the server reassigns them.
+public class NTSnapshot {
+    private static final byte[] MAGIC = new byte[] { 'O', 'D', 'N', 'S', 1 };
+    private static final String FILE_PREFIX = "ods-nt-";
+
+    private NTSnapshot() {
+    }
+
+    public static void save() {
+        NTEncoder encoder = new NTEncoder();
+        int count = 0;
+        for (NTEntry entry : NTStorage.getEntries()) {
+            NTDataType type = entry.getDataType();
+            Object value = entry.getValue();
+            if (type == null || value == null) {
+                continue;
+            }
+            try {
+                NTEncoder.validate(type, value);
+            } catch (IllegalArgumentException e) {
+                // e.g. NT4 arrays longer than NT3 allows
+                continue;
+            }
+            // ids are reassigned by the server, they only need to be unique within the file
+            encoder.entryAssign(entry.getPath(), type, count, entry.getSeqNum(), entry.isPersistent(), value);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+        File file = getFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(MAGIC);
+                out.write(encoder.toByteArray());
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Debug.println("Could not save NetworkTables snapshot: " + e.getMessage(), EventSeverity.WARNING,
+                false, false, LogSource.NETWORK_TABLES);
+        }
+    }
+
+    public static int load() {
+        File file = getFile();
+        if (!file.isFile()) {
+            return 0;
+        }
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            if (data.length < MAGIC.length || !Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC)) {
+                return 0;
+            }
+            NTDecoder decoder = new NTDecoder();
+            decoder.feed(data, MAGIC.length, data.length - MAGIC.length);
+            if (!decoder.decode() || decoder.getBuffered() != 0) {
+                Debug.println("Discarding corrupt NetworkTables snapshot", EventSeverity.WARNING,
+                    false, false, LogSource.NETWORK_TABLES);
+                NTStorage.clear();
+                return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        NTStorage.markAllStale();
+        return NTStorage.size();
+    }
+
+    private static File getFile() {
+        String team = MainJDEC.TEAM_NUMBER.getText().replaceAll("[^0-9]", "");
+        return new File(OperatingSystem.getTempFolder() + FILE_PREFIX + (team.isEmpty() ? "none" : team) + ".snapshot");
+    }
+}
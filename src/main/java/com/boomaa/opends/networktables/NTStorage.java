@@ -1,12 +1,278 @@
 package com.boomaa.opends.networktables;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
-public interface NTStorage {
-    Map<Integer, NTEntry> ENTRIES = new LinkedHashMap<>();
-    List<String> TABS = new LinkedList<>();
-    Map<String, Integer> CLIENTS = new LinkedHashMap<>();
+// Entries indexed by id and by path. Writers (the NT reader threads) serialize on a
+// lock; readers such as the UI traverse the concurrent maps without locking.
+// Paths split on every '/', so "/a/b" and "a/b" stay distinct and nested tables
+// are subtrees.
+public class NTStorage {
+    public static final Map<String, Integer> CLIENTS = new ConcurrentHashMap<>();
+    private static final Map<Integer, NTEntry> BY_ID = new ConcurrentHashMap<>();
+    private static final Node ROOT = new Node(null, "");
+    private static final Set<String> TAB_SET = ConcurrentHashMap.newKeySet();
+    private static final List<String> TAB_LIST = new CopyOnWriteArrayList<>();
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final AtomicLong STRUCTURE_VERSION = new AtomicLong();
+    private static final Object WRITE_LOCK = new Object();
+    // stale entries move to negative ids so no id from the new session can reach them
+    private static int nextStaleId = -1;
+
+    private NTStorage() {
+    }
+
+    public static NTEntry get(int id) {
+        return BY_ID.get(id);
+    }
+
+    public static NTEntry get(String path) {
+        Node node = ROOT.find(path.split("/", -1), 0);
+        return node != null ? node.entry : null;
+    }
+
+    // An entry whose path already exists under another id replaces it, which is how
+    // servers re-key entries after a reconnect. A stale entry of the same type instead
+    // adopts the new assignment in place. Returns the entry now stored for the path.
+    public static NTEntry put(NTEntry entry) {
+        NTEntry stored = entry;
+        synchronized (WRITE_LOCK) {
+            Node node = ROOT.create(entry.getPath().split("/", -1));
+            NTEntry previous = node.entry;
+            if (previous != null && previous.isStale() && previous.getDataType() == entry.getDataType()) {
+                BY_ID.remove(previous.getId(), previous);
+                NTEntry displaced = BY_ID.put(entry.getId(), previous);
+                if (displaced != null && displaced != previous) {
+                    unlink(displaced);
+                    STRUCTURE_VERSION.incrementAndGet();
+                }
+                previous.adopt(entry);
+                previous.setVersion(nextVersion());
+                stored = previous;
+            } else {
+                putNew(node, entry, previous);
+            }
+        }
+        NTRecorder.record(stored);
+        return stored;
+    }
+
+    private static void putNew(Node node, NTEntry entry, NTEntry previous) {
+        if (previous != null && previous.getId() != entry.getId()) {
+            BY_ID.remove(previous.getId(), previous);
+        }
+        NTEntry displaced = BY_ID.put(entry.getId(), entry);
+        if (displaced != null && displaced != previous) {
+            unlink(displaced);
+        }
+        node.entry = entry;
+        entry.setVersion(nextVersion());
+        String tab = entry.getTabName();
+        if (!entry.isInHidden() && !tab.startsWith(".") && TAB_SET.add(tab)) {
+            TAB_LIST.add(tab);
+        }
+        STRUCTURE_VERSION.incrementAndGet();
+    }
+
+    public static NTEntry remove(int id) {
+        synchronized (WRITE_LOCK) {
+            NTEntry entry = BY_ID.remove(id);
+            if (entry != null) {
+                unlink(entry);
+                VERSION.incrementAndGet();
+                STRUCTURE_VERSION.incrementAndGet();
+            }
+            return entry;
+        }
+    }
+
+    public static void clear() {
+        synchronized (WRITE_LOCK) {
+            BY_ID.clear();
+            ROOT.children = null;
+            TAB_SET.clear();
+            TAB_LIST.clear();
+            VERSION.incrementAndGet();
+            STRUCTURE_VERSION.incrementAndGet();
+        }
+    }
+
+    // Everything currently stored becomes a cached value awaiting reconfirmation. It is only
+    // found again by path, when put() re-keys it under the id the server assigns.
+    public static void markAllStale() {
+        synchronized (WRITE_LOCK) {
+            for (NTEntry entry : new ArrayList<>(BY_ID.values())) {
+                if (!entry.isStale()) {
+                    BY_ID.remove(entry.getId(), entry);
+                    entry.setId(nextStaleId--);
+                    entry.setStale(true);
+                    BY_ID.put(entry.getId(), entry);
+                }
+                entry.setVersion(nextVersion());
+            }
+            STRUCTURE_VERSION.incrementAndGet();
+        }
+    }
+
+    // Drops cached entries the server did not reassign, once it has sent everything it has
+    public static int removeStale() {
+        int removed = 0;
+        synchronized (WRITE_LOCK) {
+            for (NTEntry entry : BY_ID.values()) {
+                if (entry.isStale() && BY_ID.remove(entry.getId(), entry)) {
+                    unlink(entry);
+                    removed++;
+                }
+            }
+            if (removed != 0) {
+                VERSION.incrementAndGet();
+                STRUCTURE_VERSION.incrementAndGet();
+            }
+        }
+        return removed;
+    }
+
+    private static void unlink(NTEntry entry) {
+        Node node = ROOT.find(entry.getPath().split("/", -1), 0);
+        if (node == null || node.entry != entry) {
+            return;
+        }
+        node.entry = null;
+        while (node.parent != null && node.entry == null && (node.children == null || node.children.isEmpty())) {
+            node.parent.children.remove(node.name);
+            node = node.parent;
+        }
+    }
+
+    public static int size() {
+        return BY_ID.size();
+    }
+
+    public static List<NTEntry> getEntries() {
+        return getEntries("");
+    }
+
+    // Entries whose path starts with prefix, in path order
+    public static List<NTEntry> getEntries(String prefix) {
+        String[] segments = prefix.split("/", -1);
+        Node dir = ROOT.find(segments, 1);
+        List<NTEntry> out = new ArrayList<>();
+        if (dir == null || dir.children == null) {
+            return out;
+        }
+        String partial = segments[segments.length - 1];
+        for (Node child : dir.children.tailMap(partial).values()) {
+            if (!child.name.startsWith(partial)) {
+                break;
+            }
+            child.collect(out);
+        }
+        return out;
+    }
+
+    // Direct children of a table path such as "/SmartDashboard", as subtable or key names
+    public static List<String> getChildNames(String tablePath) {
+        Node node = ROOT.find(tablePath.split("/", -1), 0);
+        if (node == null || node.children == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(node.children.keySet());
+    }
+
+    public static List<NTEntry> getChangedSince(long version) {
+        List<NTEntry> out = new ArrayList<>();
+        for (NTEntry entry : BY_ID.values()) {
+            if (entry.getVersion() > version) {
+                out.add(entry);
+            }
+        }
+        return out;
+    }
+
+    public static List<String> getTabs() {
+        return TAB_LIST;
+    }
+
+    public static int getTabCount() {
+        return TAB_LIST.size();
+    }
+
+    public static boolean hasTab(String tab) {
+        return TAB_SET.contains(tab);
+    }
+
+    // Bumped on every value change and structural change
+    public static long getVersion() {
+        return VERSION.get();
+    }
+
+    // Bumped only when entries are added, re-keyed or removed
+    public static long getStructureVersion() {
+        return STRUCTURE_VERSION.get();
+    }
+
+    static long nextVersion() {
+        return VERSION.incrementAndGet();
+    }
+
+    private static class Node {
+        private final Node parent;
+        private final String name;
+        private volatile ConcurrentSkipListMap<String, Node> children;
+        private volatile NTEntry entry;
+
+        private Node(Node parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        // Follows all but the last skipLast segments, or returns null if any is missing
+        private Node find(String[] segments, int skipLast) {
+            Node node = this;
+            for (int i = 0; i < segments.length - skipLast; i++) {
+                Map<String, Node> kids = node.children;
+                node = kids != null ? kids.get(segments[i]) : null;
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node;
+        }
+
+        private Node create(String[] segments) {
+            Node node = this;
+            for (String segment : segments) {
+                if (node.children == null) {
+                    node.children = new ConcurrentSkipListMap<>();
+                }
+                Node next = node.children.get(segment);
+                if (next == null) {
+                    next = new Node(node, segment);
+                    node.children.put(segment, next);
+                }
+                node = next;
+            }
+            return node;
+        }
+
+        private void collect(List<NTEntry> out) {
+            NTEntry e = entry;
+            if (e != null) {
+                out.add(e);
+            }
+            Map<String, Node> kids = children;
+            if (kids != null) {
+                for (Node child : kids.values()) {
+                    child.collect(out);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,90 @@
+package com.boomaa.opends.networktables;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Pending writes keyed by path. A later write to the same path replaces the pending
+// value in place, keeping the entry's original position in the flush order.
+public class NTWriteQueue {
+    private final Map<String, Write> pending = new LinkedHashMap<>();
+
+    public synchronized void putValue(String path, NTDataType type, Object value) {
+        Write write = pending.computeIfAbsent(path, Write::new);
+        write.type = type;
+        write.value = value;
+        write.delete = false;
+    }
+
+    public synchronized void putPersistent(String path, boolean persistent) {
+        pending.computeIfAbsent(path, Write::new).persistent = persistent;
+    }
+
+    public synchronized void putDelete(String path) {
+        Write write = pending.computeIfAbsent(path, Write::new);
+        write.delete = true;
+        write.value = null;
+        write.persistent = null;
+    }
+
+    public synchronized List<Write> drain() {
+        List<Write> out = new ArrayList<>(pending.values());
+        pending.clear();
+        return out;
+    }
+
+    // Returns a write that could not be sent yet, unless a newer one has been queued since,
+    // in which case the newer write keeps this one's flag if it doesn't set its own
+    public synchronized void requeue(Write write) {
+        Write newer = pending.putIfAbsent(write.path, write);
+        if (newer != null && !newer.delete && newer.persistent == null) {
+            newer.persistent = write.persistent;
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+    }
+
+    public static class Write {
+        private final String path;
+        private NTDataType type;
+        private Object value;
+        private Boolean persistent;
+        private boolean delete;
+
+        private Write(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public NTDataType getType() {
+            return type;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public boolean hasValue() {
+            return value != null;
+        }
+
+        // Null when the write leaves the flag unchanged
+        public Boolean getPersistent() {
+            return persistent;
+        }
+
+        public boolean isDelete() {
+            return delete;
+        }
+    }
+}
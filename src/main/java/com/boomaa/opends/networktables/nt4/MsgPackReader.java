@@ -0,0 +1,269 @@
+package com.boomaa.opends.networktables.nt4;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Cursor over a complete MessagePack buffer, only the subset NT4 sends is typed
+public class MsgPackReader {
+    private byte[] buf;
+    private int pos;
+    private int end;
+
+    public MsgPackReader reset(byte[] buf, int off, int len) {
+        this.buf = buf;
+        this.pos = off;
+        this.end = off + len;
+        return this;
+    }
+
+    public boolean hasRemaining() {
+        return pos < end;
+    }
+
+    public boolean isNil() throws IOException {
+        require(1);
+        return (buf[pos] & 0xFF) == 0xC0;
+    }
+
+    public int readArrayHeader() throws IOException {
+        int b = readUInt8();
+        if ((b & 0xF0) == 0x90) {
+            return b & 0x0F;
+        } else if (b == 0xDC) {
+            return readUInt16();
+        } else if (b == 0xDD) {
+            return readLength32();
+        }
+        throw malformed(b);
+    }
+
+    public long readLong() throws IOException {
+        int b = readUInt8();
+        if (b <= 0x7F) {
+            return b;
+        } else if (b >= 0xE0) {
+            return (byte) b;
+        }
+        switch (b) {
+            case 0xCC:
+                return readUInt8();
+            case 0xCD:
+                return readUInt16();
+            case 0xCE:
+                return readInt32() & 0xFFFFFFFFL;
+            case 0xCF:
+            case 0xD3:
+                return readInt64();
+            case 0xD0:
+                return (byte) readUInt8();
+            case 0xD1:
+                return (short) readUInt16();
+            case 0xD2:
+                return readInt32();
+            case 0xCA:
+                return (long) Float.intBitsToFloat(readInt32());
+            case 0xCB:
+                return (long) Double.longBitsToDouble(readInt64());
+            default:
+                throw malformed(b);
+        }
+    }
+
+    public double readDouble() throws IOException {
+        require(1);
+        int b = buf[pos] & 0xFF;
+        if (b == 0xCA) {
+            pos++;
+            return Float.intBitsToFloat(readInt32());
+        } else if (b == 0xCB) {
+            pos++;
+            return Double.longBitsToDouble(readInt64());
+        }
+        return readLong();
+    }
+
+    public boolean readBoolean() throws IOException {
+        int b = readUInt8();
+        if (b == 0xC2) {
+            return false;
+        } else if (b == 0xC3) {
+            return true;
+        }
+        throw malformed(b);
+    }
+
+    public String readString() throws IOException {
+        int len = readBytesHeader();
+        String str = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return str;
+    }
+
+    public byte[] readBinary() throws IOException {
+        int len = readBytesHeader();
+        byte[] out = new byte[len];
+        System.arraycopy(buf, pos, out, 0, len);
+        pos += len;
+        return out;
+    }
+
+    // str and bin are interchangeable here, NT4 sends json/raw-like types as either
+    private int readBytesHeader() throws IOException {
+        int b = readUInt8();
+        int len;
+        if ((b & 0xE0) == 0xA0) {
+            len = b & 0x1F;
+        } else if (b == 0xD9 || b == 0xC4) {
+            len = readUInt8();
+        } else if (b == 0xDA || b == 0xC5) {
+            len = readUInt16();
+        } else if (b == 0xDB || b == 0xC6) {
+            len = readLength32();
+        } else {
+            throw malformed(b);
+        }
+        require(len);
+        return len;
+    }
+
+    public void skipValue() throws IOException {
+        int b = readUInt8();
+        if (b <= 0x7F || b >= 0xE0 || b == 0xC0 || b == 0xC2 || b == 0xC3) {
+            return;
+        } else if ((b & 0xF0) == 0x80) {
+            skipValues((b & 0x0F) * 2);
+            return;
+        } else if ((b & 0xF0) == 0x90) {
+            skipValues(b & 0x0F);
+            return;
+        } else if ((b & 0xE0) == 0xA0) {
+            skip(b & 0x1F);
+            return;
+        }
+        switch (b) {
+            case 0xC4:
+            case 0xD9:
+                skip(readUInt8());
+                break;
+            case 0xC5:
+            case 0xDA:
+                skip(readUInt16());
+                break;
+            case 0xC6:
+            case 0xDB:
+                skip(readLength32());
+                break;
+            case 0xC7:
+                skip(readUInt8() + 1);
+                break;
+            case 0xC8:
+                skip(readUInt16() + 1);
+                break;
+            case 0xC9:
+                skip(readLength32() + 1);
+                break;
+            case 0xCC:
+            case 0xD0:
+                skip(1);
+                break;
+            case 0xCD:
+            case 0xD1:
+                skip(2);
+                break;
+            case 0xCA:
+            case 0xCE:
+            case 0xD2:
+                skip(4);
+                break;
+            case 0xCB:
+            case 0xCF:
+            case 0xD3:
+                skip(8);
+                break;
+            case 0xD4:
+                skip(2);
+                break;
+            case 0xD5:
+                skip(3);
+                break;
+            case 0xD6:
+                skip(5);
+                break;
+            case 0xD7:
+                skip(9);
+                break;
+            case 0xD8:
+                skip(17);
+                break;
+            case 0xDC:
+                skipValues(readUInt16());
+                break;
+            case 0xDD:
+                skipValues(readLength32());
+                break;
+            case 0xDE:
+                skipValues(readUInt16() * 2);
+                break;
+            case 0xDF:
+                skipValues(readLength32() * 2);
+                break;
+            default:
+                throw malformed(b);
+        }
+    }
+
+    private void skipValues(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            skipValue();
+        }
+    }
+
+    private void skip(int len) throws IOException {
+        require(len);
+        pos += len;
+    }
+
+    private int readUInt8() throws IOException {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    private int readUInt16() throws IOException {
+        require(2);
+        int out = ((buf[pos] & 0xFF) << 8) | (buf[pos + 1] & 0xFF);
+        pos += 2;
+        return out;
+    }
+
+    private int readInt32() throws IOException {
+        require(4);
+        int out = ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+            | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+        pos += 4;
+        return out;
+    }
+
+    private long readInt64() throws IOException {
+        long hi = readInt32() & 0xFFFFFFFFL;
+        long lo = readInt32() & 0xFFFFFFFFL;
+        return (hi << 32) | lo;
+    }
+
+    private int readLength32() throws IOException {
+        int len = readInt32();
+        if (len < 0) {
+            throw new IOException("MessagePack length out of range");
+        }
+        return len;
+    }
+
+    private void require(int count) throws IOException {
+        if (count < 0 || end - pos < count) {
+            throw new IOException("Truncated MessagePack data");
+        }
+    }
+
+    private static IOException malformed(int marker) {
+        return new IOException(String.format("Unexpected MessagePack marker 0x%02X", marker));
+    }
+}
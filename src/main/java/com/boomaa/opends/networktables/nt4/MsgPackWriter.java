@@ -0,0 +1,129 @@
+package com.boomaa.opends.networktables.nt4;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Growable MessagePack output, reused between frames
+public class MsgPackWriter {
+    private byte[] buf = new byte[256];
+    private int size;
+
+    public MsgPackWriter reset() {
+        size = 0;
+        return this;
+    }
+
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public MsgPackWriter writeArrayHeader(int count) {
+        if (count < 16) {
+            writeByte(0x90 | count);
+        } else if (count < 0x10000) {
+            writeByte(0xDC);
+            writeShort(count);
+        } else {
+            writeByte(0xDD);
+            writeInt(count);
+        }
+        return this;
+    }
+
+    public MsgPackWriter writeLong(long value) {
+        if (value >= 0 && value <= 0x7F) {
+            writeByte((int) value);
+        } else if (value < 0 && value >= -32) {
+            writeByte((int) value & 0xFF);
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            writeByte(0xD2);
+            writeInt((int) value);
+        } else {
+            writeByte(0xD3);
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+        return this;
+    }
+
+    public MsgPackWriter writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        writeByte(0xCB);
+        writeInt((int) (bits >>> 32));
+        writeInt((int) bits);
+        return this;
+    }
+
+    public MsgPackWriter writeBoolean(boolean value) {
+        writeByte(value ? 0xC3 : 0xC2);
+        return this;
+    }
+
+    public MsgPackWriter writeString(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length < 32) {
+            writeByte(0xA0 | utf8.length);
+        } else if (utf8.length < 0x100) {
+            writeByte(0xD9);
+            writeByte(utf8.length);
+        } else if (utf8.length < 0x10000) {
+            writeByte(0xDA);
+            writeShort(utf8.length);
+        } else {
+            writeByte(0xDB);
+            writeInt(utf8.length);
+        }
+        writeRaw(utf8, 0, utf8.length);
+        return this;
+    }
+
+    public MsgPackWriter writeBinary(byte[] value) {
+        if (value.length < 0x100) {
+            writeByte(0xC4);
+            writeByte(value.length);
+        } else if (value.length < 0x10000) {
+            writeByte(0xC5);
+            writeShort(value.length);
+        } else {
+            writeByte(0xC6);
+            writeInt(value.length);
+        }
+        writeRaw(value, 0, value.length);
+        return this;
+    }
+
+    private void writeByte(int b) {
+        ensure(1);
+        buf[size++] = (byte) b;
+    }
+
+    private void writeShort(int s) {
+        ensure(2);
+        buf[size++] = (byte) (s >>> 8);
+        buf[size++] = (byte) s;
+    }
+
+    private void writeInt(int i) {
+        ensure(4);
+        buf[size++] = (byte) (i >>> 24);
+        buf[size++] = (byte) (i >>> 16);
+        buf[size++] = (byte) (i >>> 8);
+        buf[size++] = (byte) i;
+    }
+
+    private void writeRaw(byte[] data, int off, int len) {
+        ensure(len);
+        System.arraycopy(data, off, buf, size, len);
+        size += len;
+    }
+
+    private void ensure(int count) {
+        if (size + count > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + count));
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package com.boomaa.opends.networktables.nt4;
+
+import com.boomaa.opends.networking.AddressConstants;
+import com.boomaa.opends.networktables.NTDataType;
+import com.boomaa.opends.networktables.NTEntry;
+import com.boomaa.opends.networktables.NTPublisher;
+import com.boomaa.opends.networktables.NTSnapshot;
+import com.boomaa.opends.networktables.NTStorage;
+import com.boomaa.opends.networktables.NTWriteQueue;
+import com.boomaa.opends.util.Clock;
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.FlightRecorder;
+import com.boomaa.opends.util.Json;
+import com.boomaa.opends.util.LogSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// NT4 client over WebSocket. Like NTConnection, a dedicated reader thread owns the
+// connection and the clock only flushes writes and keeps it alive (time sync doubles
+// as the keep-alive). Only subscribed topics are announced and sent by the server.
+public class NT4Client extends Clock implements NTPublisher {
+    public static final String[] PROTOCOLS = { "v4.1.networktables.first.wpi.edu", "networktables.first.wpi.edu" };
+    public static final String[] DEFAULT_PREFIXES = { "/SmartDashboard/", "/Shuffleboard/" };
+    private static final String CLIENT_NAME = "opends";
+    private static final int TIMESYNC_ID = -1;
+    private static final int TIMESYNC_MS = 3000;
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final int MIN_RETRY_MS = 250;
+    private static final int MAX_RETRY_MS = 5000;
+    // NT4 has no end-of-initial-announce marker, so cached entries get this long to be reannounced
+    private static final int STALE_SWEEP_MS = 3000;
+    private final Map<Integer, NT4Topic> topics = new ConcurrentHashMap<>();
+    private final Map<String, NT4Topic> topicsByName = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextSubUid = new AtomicInteger(1);
+    private final Map<String, Publication> publications = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPubUid = new AtomicInteger(1);
+    private final NTWriteQueue writes = new NTWriteQueue();
+    private final MsgPackReader unpacker = new MsgPackReader();
+    private final MsgPackWriter packer = new MsgPackWriter();
+    private volatile WebSocket socket;
+    private volatile long serverOffsetMicros;
+    private long bestRttMicros;
+    private long lastTimeSyncMs;
+    private volatile long staleSweepAtMs;
+    private Thread reader;
+
+    public NT4Client() {
+        super(100);
+        subscribe(new NT4SubscribeOptions().setPrefix(true), DEFAULT_PREFIXES);
+    }
+
+    @Override
+    public void start() {
+        reader = new Thread(this::readLoop, "opends-nt4reader");
+        reader.setDaemon(true);
+        reader.start();
+        super.start();
+    }
+
+    @Override
+    public void end() {
+        super.end();
+        if (reader != null) {
+            reader.interrupt();
+        }
+        WebSocket ws = socket;
+        if (ws != null) {
+            ws.close();
+        }
+    }
+
+    @Override
+    public void onCycle() {
+        WebSocket ws = socket;
+        if (ws == null || ws.isClosed()) {
+            return;
+        }
+        if (!writes.isEmpty()) {
+            flushWrites(ws);
+        }
+        if (staleSweepAtMs != 0 && System.currentTimeMillis() >= staleSweepAtMs) {
+            staleSweepAtMs = 0;
+            NTStorage.removeStale();
+        }
+        if (System.currentTimeMillis() - lastTimeSyncMs >= TIMESYNC_MS) {
+            sendTimeSync(ws);
+        }
+    }
+
+    @Override
+    public void publish(String path, NTDataType type, Object value) {
+        if (!type.accepts(value)) {
+            throw new IllegalArgumentException("Value " + value + " is not a valid " + type);
+        }
+        NTEntry entry = NTStorage.get(path);
+        // a stale entry shows the cached value until the server confirms the write
+        if (entry != null && !entry.isStale() && entry.getDataType() == type) {
+            entry.setValue(value);
+        }
+        writes.putValue(path, type, value);
+    }
+
+    @Override
+    public void setPersistent(String path, boolean persistent) {
+        writes.putPersistent(path, persistent);
+    }
+
+    @Override
+    public void delete(String path) {
+        writes.putDelete(path);
+    }
+
+    // Control messages go out in one text frame and values in one binary frame per cycle
+    private void flushWrites(WebSocket ws) {
+        List<Object> msgs = new ArrayList<>();
+        synchronized (packer) {
+            packer.reset();
+            for (NTWriteQueue.Write write : writes.drain()) {
+                String path = write.getPath();
+                Publication pub = publications.get(path);
+                if (write.isDelete()) {
+                    if (pub != null) {
+                        publications.remove(path);
+                        msgs.add(pub.toUnpublish());
+                    }
+                    continue;
+                }
+                if (write.hasValue()) {
+                    if (pub == null) {
+                        // publish under the announced type so an int topic stays an int
+                        NT4Topic topic = topicsByName.get(path);
+                        String type = topic != null && topic.getDataType() == write.getType()
+                            ? topic.getType() : NT4Topic.toTypeString(write.getType());
+                        pub = new Publication(nextPubUid.getAndIncrement(), path, type);
+                        publications.put(path, pub);
+                        msgs.add(pub.toPublish());
+                    }
+                    pub.lastValue = write.getValue();
+                    int typeIndex = NT4Topic.toTypeIndex(pub.type);
+                    packer.writeArrayHeader(4)
+                        .writeLong(pub.uid)
+                        .writeLong(getServerTimeMicros())
+                        .writeLong(typeIndex);
+                    NT4Values.write(packer, typeIndex, write.getValue());
+                }
+                if (write.getPersistent() != null) {
+                    Map<String, Object> update = new LinkedHashMap<>();
+                    update.put("persistent", write.getPersistent());
+                    Map<String, Object> params = new LinkedHashMap<>();
+                    params.put("name", path);
+                    params.put("update", update);
+                    msgs.add(message("setproperties", params));
+                }
+            }
+            try {
+                // publish must reach the server before the values that use its pubuid
+                if (!msgs.isEmpty()) {
+                    ws.sendText(Json.write(msgs));
+                }
+                if (packer.size() != 0) {
+                    ws.sendBinary(packer.getBuffer(), 0, packer.size());
+                }
+            } catch (IOException ignored) {
+                // the reader sees the closed socket and reconnects
+            }
+        }
+    }
+
+    public int subscribe(NT4SubscribeOptions options, String... topicNames) {
+        Subscription sub = new Subscription(nextSubUid.getAndIncrement(), topicNames, options);
+        subscriptions.add(sub);
+        WebSocket ws = socket;
+        if (ws != null) {
+            sendMessages(ws, sub.toMessage());
+        }
+        return sub.uid;
+    }
+
+    public void unsubscribe(int subUid) {
+        for (Subscription sub : subscriptions) {
+            if (sub.uid == subUid) {
+                subscriptions.remove(sub);
+                Map<String, Object> params = new LinkedHashMap<>();
+                params.put("subuid", subUid);
+                WebSocket ws = socket;
+                if (ws != null) {
+                    sendMessages(ws, message("unsubscribe", params));
+                }
+                return;
+            }
+        }
+    }
+
+    public long getServerTimeMicros() {
+        return nowMicros() + serverOffsetMicros;
+    }
+
+    public NT4Topic getTopic(String name) {
+        return topicsByName.get(name);
+    }
+
+    private void readLoop() {
+        int retryMs = MIN_RETRY_MS;
+        while (!done) {
+            WebSocket ws = connect();
+            if (ws == null) {
+                Debug.println("NetworkTables connection failed", EventSeverity.WARNING, true, false, LogSource.NETWORK_TABLES);
+                try {
+                    Thread.sleep(retryMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+                continue;
+            }
+            retryMs = MIN_RETRY_MS;
+            try {
+                int opcode;
+                while ((opcode = ws.readMessage()) != -1) {
+                    FlightRecorder.record(FlightRecorder.Type.NETWORK_TABLES, ws.getMessage(), 0, ws.getMessageLength());
+                    if (opcode == WebSocket.OP_TEXT) {
+                        handleText(ws.getMessageText());
+                    } else if (opcode == WebSocket.OP_BINARY) {
+                        handleBinary(ws.getMessage(), ws.getMessageLength());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!done) {
+                    Debug.println("NetworkTables connection lost: " + e.getMessage(), EventSeverity.WARNING,
+                        false, false, LogSource.NETWORK_TABLES);
+                }
+            }
+            ws.close();
+            socket = null;
+            staleSweepAtMs = 0;
+            topics.clear();
+            topicsByName.clear();
+            NTSnapshot.save();
+            NTStorage.markAllStale();
+        }
+    }
+
+    private WebSocket connect() {
+        String host = AddressConstants.getRioAddress();
+        WebSocket ws;
+        try {
+            ws = WebSocket.connect(host, AddressConstants.NT4_PORT, "/nt/" + CLIENT_NAME, CONNECT_TIMEOUT_MS, PROTOCOLS);
+        } catch (IOException e) {
+            return null;
+        }
+        Debug.println("NetworkTables 4 connected to " + host + ":" + AddressConstants.NT4_PORT
+            + " (" + ws.getProtocol() + ")", EventSeverity.INFO, false, false, LogSource.NETWORK_TABLES);
+        Debug.removeSticky("NetworkTables connection failed");
+        bestRttMicros = Long.MAX_VALUE;
+        staleSweepAtMs = System.currentTimeMillis() + STALE_SWEEP_MS;
+        socket = ws;
+        sendTimeSync(ws);
+        List<Object> msgs = new ArrayList<>();
+        for (Subscription sub : subscriptions) {
+            msgs.add(sub.toMessage());
+        }
+        // publishers are per connection; re-publish and resend the last value of each
+        for (Publication pub : publications.values()) {
+            msgs.add(pub.toPublish());
+            if (pub.lastValue != null) {
+                writes.putValue(pub.name, NT4Topic.toDataType(pub.type), pub.lastValue);
+            }
+        }
+        sendMessages(ws, msgs.toArray());
+        return ws;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleText(String text) {
+        Object parsed = Json.parse(text);
+        if (!(parsed instanceof List)) {
+            return;
+        }
+        for (Object msg : (List<Object>) parsed) {
+            if (!(msg instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> map = (Map<String, Object>) msg;
+            Object params = map.get("params");
+            if (params instanceof Map) {
+                handleControl(String.valueOf(map.get("method")), (Map<String, Object>) params);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleControl(String method, Map<String, Object> params) {
+        String name = String.valueOf(params.get("name"));
+        switch (method) {
+            case "announce": {
+                int id = ((Number) params.get("id")).intValue();
+                NT4Topic topic = new NT4Topic(name, id, String.valueOf(params.get("type")));
+                if (params.get("properties") instanceof Map) {
+                    topic.updateProperties((Map<String, Object>) params.get("properties"));
+                }
+                topics.put(id, topic);
+                topicsByName.put(name, topic);
+                // the server doesn't echo our own values back, so seed new topics we publish
+                Publication pub = publications.get(name);
+                if (pub != null && pub.lastValue != null && NTStorage.get(id) == null) {
+                    NTStorage.put(new NTEntry(name, id, topic.getDataType(), pub.lastValue, topic.isPersistent()));
+                }
+                break;
+            }
+            case "unannounce": {
+                NT4Topic topic = topicsByName.remove(name);
+                if (topic != null) {
+                    topics.remove(topic.getId());
+                    NTStorage.remove(topic.getId());
+                }
+                break;
+            }
+            case "properties": {
+                NT4Topic topic = topicsByName.get(name);
+                if (topic != null && params.get("update") instanceof Map) {
+                    topic.updateProperties((Map<String, Object>) params.get("update"));
+                    NTEntry entry = NTStorage.get(topic.getId());
+                    if (entry != null) {
+                        entry.setPersistent(topic.isPersistent());
+                    }
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void handleBinary(byte[] data, int length) throws IOException {
+        unpacker.reset(data, 0, length);
+        while (unpacker.hasRemaining()) {
+            if (unpacker.readArrayHeader() != 4) {
+                throw new IOException("Malformed NT4 value message");
+            }
+            int id = (int) unpacker.readLong();
+            long timestamp = unpacker.readLong();
+            int typeIndex = (int) unpacker.readLong();
+            if (id == TIMESYNC_ID) {
+                onTimeSync(timestamp, unpacker.readLong());
+                continue;
+            }
+            NT4Topic topic = topics.get(id);
+            if (topic == null) {
+                unpacker.skipValue();
+                continue;
+            }
+            NTEntry entry = NTStorage.get(id);
+            if (entry == null) {
+                Object value = NT4Values.read(unpacker, typeIndex);
+                NTStorage.put(new NTEntry(topic.getName(), id, topic.getDataType(), value, topic.isPersistent()));
+            } else {
+                NT4Values.readInto(unpacker, typeIndex, entry);
+            }
+        }
+    }
+
+    // Offset from the lowest round trip seen on this connection, as the NT4 spec recommends
+    private void onTimeSync(long serverMicros, long sentMicros) {
+        long now = nowMicros();
+        long rtt = now - sentMicros;
+        if (rtt >= 0 && rtt <= bestRttMicros) {
+            bestRttMicros = rtt;
+            serverOffsetMicros = serverMicros + (rtt / 2) - now;
+        }
+    }
+
+    private void sendTimeSync(WebSocket ws) {
+        lastTimeSyncMs = System.currentTimeMillis();
+        synchronized (packer) {
+            packer.reset()
+                .writeArrayHeader(4)
+                .writeLong(TIMESYNC_ID)
+                .writeLong(0)
+                .writeLong(NT4Topic.TYPE_INT)
+                .writeLong(nowMicros());
+            try {
+                ws.sendBinary(packer.getBuffer(), 0, packer.size());
+            } catch (IOException ignored) {
+                // the reader sees the closed socket and reconnects
+            }
+        }
+    }
+
+    private void sendMessages(WebSocket ws, Object... msgs) {
+        try {
+            ws.sendText(Json.write(msgs));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static Map<String, Object> message(String method, Map<String, Object> params) {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("method", method);
+        msg.put("params", params);
+        return msg;
+    }
+
+    private static long nowMicros() {
+        return System.nanoTime() / 1000;
+    }
+
+    private static class Publication {
+        private final int uid;
+        private final String name;
+        private final String type;
+        private volatile Object lastValue;
+
+        private Publication(int uid, String name, String type) {
+            this.uid = uid;
+            this.name = name;
+            this.type = type;
+        }
+
+        private Map<String, Object> toPublish() {
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("name", name);
+            params.put("pubuid", uid);
+            params.put("type", type);
+            params.put("properties", new LinkedHashMap<>());
+            return message("publish", params);
+        }
+
+        private Map<String, Object> toUnpublish() {
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("pubuid", uid);
+            return message("unpublish", params);
+        }
+    }
+
+    private static class Subscription {
+        private final int uid;
+        private final String[] topicNames;
+        private final NT4SubscribeOptions options;
+
+        private Subscription(int uid, String[] topicNames, NT4SubscribeOptions options) {
+            this.uid = uid;
+            this.topicNames = topicNames;
+            this.options = options;
+        }
+
+        private Map<String, Object> toMessage() {
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("topics", Arrays.asList(topicNames));
+            params.put("subuid", uid);
+            params.put("options", options.toMap());
+            return message("subscribe", params);
+        }
+    }
+}
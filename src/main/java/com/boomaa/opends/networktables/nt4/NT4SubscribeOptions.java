@@ -0,0 +1,72 @@
+package com.boomaa.opends.networktables.nt4;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class NT4SubscribeOptions {
+    private double periodic = 0.1;
+    private boolean all;
+    private boolean topicsOnly;
+    private boolean prefix;
+
+    // Seconds between value batches the server sends for this subscription
+    public NT4SubscribeOptions setPeriodic(double periodic) {
+        this.periodic = periodic;
+        return this;
+    }
+
+    // Send every value change rather than only the latest per period
+    public NT4SubscribeOptions setAll(boolean all) {
+        this.all = all;
+        return this;
+    }
+
+    public NT4SubscribeOptions setTopicsOnly(boolean topicsOnly) {
+        this.topicsOnly = topicsOnly;
+        return this;
+    }
+
+    public NT4SubscribeOptions setPrefix(boolean prefix) {
+        this.prefix = prefix;
+        return this;
+    }
+
+    public double getPeriodic() {
+        return periodic;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    public boolean isTopicsOnly() {
+        return topicsOnly;
+    }
+
+    public boolean isPrefix() {
+        return prefix;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("periodic", periodic);
+        map.put("all", all);
+        map.put("topicsonly", topicsOnly);
+        map.put("prefix", prefix);
+        return map;
+    }
+
+    public static NT4SubscribeOptions fromMap(Map<String, Object> map) {
+        NT4SubscribeOptions options = new NT4SubscribeOptions();
+        if (map == null) {
+            return options;
+        }
+        if (map.get("periodic") instanceof Number) {
+            options.periodic = ((Number) map.get("periodic")).doubleValue();
+        }
+        options.all = Boolean.TRUE.equals(map.get("all"));
+        options.topicsOnly = Boolean.TRUE.equals(map.get("topicsonly"));
+        options.prefix = Boolean.TRUE.equals(map.get("prefix"));
+        return options;
+    }
+}
@@ -0,0 +1,141 @@
+package com.boomaa.opends.networktables.nt4;
+
+import com.boomaa.opends.networktables.NTDataType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class NT4Topic {
+    public static final int TYPE_BOOLEAN = 0;
+    public static final int TYPE_DOUBLE = 1;
+    public static final int TYPE_INT = 2;
+    public static final int TYPE_FLOAT = 3;
+    public static final int TYPE_STRING = 4;
+    public static final int TYPE_RAW = 5;
+    public static final int TYPE_BOOLEAN_ARRAY = 16;
+    public static final int TYPE_DOUBLE_ARRAY = 17;
+    public static final int TYPE_INT_ARRAY = 18;
+    public static final int TYPE_FLOAT_ARRAY = 19;
+    public static final int TYPE_STRING_ARRAY = 20;
+
+    private final String name;
+    private final int id;
+    private final String type;
+    private final NTDataType dataType;
+    private final Map<String, Object> properties = new LinkedHashMap<>();
+
+    public NT4Topic(String name, int id, String type) {
+        this.name = name;
+        this.id = id;
+        this.type = type;
+        this.dataType = toDataType(type);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public NTDataType getDataType() {
+        return dataType;
+    }
+
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    // A null property value removes it, as in the NT4 properties update message
+    public void updateProperties(Map<String, Object> update) {
+        for (Map.Entry<String, Object> entry : update.entrySet()) {
+            if (entry.getValue() == null) {
+                properties.remove(entry.getKey());
+            } else {
+                properties.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public boolean isPersistent() {
+        return Boolean.TRUE.equals(properties.get("persistent"));
+    }
+
+    public static NTDataType toDataType(String type) {
+        switch (type) {
+            case "boolean":
+                return NTDataType.NT_BOOLEAN;
+            case "double":
+            case "int":
+            case "float":
+                return NTDataType.NT_DOUBLE;
+            case "string":
+            case "json":
+                return NTDataType.NT_STRING;
+            case "boolean[]":
+                return NTDataType.NT_BOOLEAN_ARRAY;
+            case "double[]":
+            case "int[]":
+            case "float[]":
+                return NTDataType.NT_DOUBLE_ARRAY;
+            case "string[]":
+                return NTDataType.NT_STRING_ARRAY;
+            case "rpc":
+                return NTDataType.NT_RPC;
+            default:
+                return NTDataType.NT_RAW;
+        }
+    }
+
+    public static String toTypeString(NTDataType dataType) {
+        switch (dataType) {
+            case NT_BOOLEAN:
+                return "boolean";
+            case NT_DOUBLE:
+                return "double";
+            case NT_STRING:
+                return "string";
+            case NT_BOOLEAN_ARRAY:
+                return "boolean[]";
+            case NT_DOUBLE_ARRAY:
+                return "double[]";
+            case NT_STRING_ARRAY:
+                return "string[]";
+            default:
+                return "raw";
+        }
+    }
+
+    public static int toTypeIndex(String type) {
+        switch (type) {
+            case "boolean":
+                return TYPE_BOOLEAN;
+            case "double":
+                return TYPE_DOUBLE;
+            case "int":
+                return TYPE_INT;
+            case "float":
+                return TYPE_FLOAT;
+            case "string":
+            case "json":
+                return TYPE_STRING;
+            case "boolean[]":
+                return TYPE_BOOLEAN_ARRAY;
+            case "double[]":
+                return TYPE_DOUBLE_ARRAY;
+            case "int[]":
+                return TYPE_INT_ARRAY;
+            case "float[]":
+                return TYPE_FLOAT_ARRAY;
+            case "string[]":
+                return TYPE_STRING_ARRAY;
+            default:
+                return TYPE_RAW;
+        }
+    }
+}
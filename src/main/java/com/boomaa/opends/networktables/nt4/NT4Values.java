@@ -0,0 +1,148 @@
+package com.boomaa.opends.networktables.nt4;
+
+import com.boomaa.opends.networktables.NTDataType;
+import com.boomaa.opends.networktables.NTEntry;
+
+import java.io.IOException;
+
+// Converts between NT4 binary values and the value objects NTEntry already displays.
+// Integer and float types widen to double so they share the NT3 double paths.
+public class NT4Values {
+    private NT4Values() {
+    }
+
+    public static Object read(MsgPackReader in, int typeIndex) throws IOException {
+        switch (typeIndex) {
+            case NT4Topic.TYPE_BOOLEAN:
+                return in.readBoolean();
+            case NT4Topic.TYPE_DOUBLE:
+            case NT4Topic.TYPE_INT:
+            case NT4Topic.TYPE_FLOAT:
+                return in.readDouble();
+            case NT4Topic.TYPE_STRING:
+                return in.readString();
+            case NT4Topic.TYPE_BOOLEAN_ARRAY: {
+                boolean[] bools = new boolean[in.readArrayHeader()];
+                for (int i = 0; i < bools.length; i++) {
+                    bools[i] = in.readBoolean();
+                }
+                return bools;
+            }
+            case NT4Topic.TYPE_DOUBLE_ARRAY:
+            case NT4Topic.TYPE_INT_ARRAY:
+            case NT4Topic.TYPE_FLOAT_ARRAY: {
+                double[] dbls = new double[in.readArrayHeader()];
+                for (int i = 0; i < dbls.length; i++) {
+                    dbls[i] = in.readDouble();
+                }
+                return dbls;
+            }
+            case NT4Topic.TYPE_STRING_ARRAY: {
+                String[] strs = new String[in.readArrayHeader()];
+                for (int i = 0; i < strs.length; i++) {
+                    strs[i] = in.readString();
+                }
+                return strs;
+            }
+            default:
+                return in.readBinary();
+        }
+    }
+
+    // Decodes into the entry's typed slots, reusing its array when the length matches
+    public static void readInto(MsgPackReader in, int typeIndex, NTEntry entry) throws IOException {
+        NTDataType type = entry.getDataType();
+        switch (typeIndex) {
+            case NT4Topic.TYPE_BOOLEAN:
+                if (type == NTDataType.NT_BOOLEAN) {
+                    entry.setBoolean(in.readBoolean());
+                    return;
+                }
+                break;
+            case NT4Topic.TYPE_DOUBLE:
+            case NT4Topic.TYPE_INT:
+            case NT4Topic.TYPE_FLOAT:
+                if (type == NTDataType.NT_DOUBLE) {
+                    entry.setDouble(in.readDouble());
+                    return;
+                }
+                break;
+            case NT4Topic.TYPE_BOOLEAN_ARRAY:
+                if (type == NTDataType.NT_BOOLEAN_ARRAY) {
+                    boolean[] bools = entry.reuseBooleanArray(in.readArrayHeader());
+                    for (int i = 0; i < bools.length; i++) {
+                        bools[i] = in.readBoolean();
+                    }
+                    entry.setArray(bools);
+                    return;
+                }
+                break;
+            case NT4Topic.TYPE_DOUBLE_ARRAY:
+            case NT4Topic.TYPE_INT_ARRAY:
+            case NT4Topic.TYPE_FLOAT_ARRAY:
+                if (type == NTDataType.NT_DOUBLE_ARRAY) {
+                    double[] dbls = entry.reuseDoubleArray(in.readArrayHeader());
+                    for (int i = 0; i < dbls.length; i++) {
+                        dbls[i] = in.readDouble();
+                    }
+                    entry.setArray(dbls);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        entry.setValue(read(in, typeIndex));
+    }
+
+    public static void write(MsgPackWriter out, int typeIndex, Object value) {
+        switch (typeIndex) {
+            case NT4Topic.TYPE_BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case NT4Topic.TYPE_DOUBLE:
+            case NT4Topic.TYPE_FLOAT:
+                out.writeDouble(((Number) value).doubleValue());
+                break;
+            case NT4Topic.TYPE_INT:
+                out.writeLong(((Number) value).longValue());
+                break;
+            case NT4Topic.TYPE_STRING:
+                out.writeString(String.valueOf(value));
+                break;
+            case NT4Topic.TYPE_BOOLEAN_ARRAY: {
+                boolean[] bools = (boolean[]) value;
+                out.writeArrayHeader(bools.length);
+                for (boolean b : bools) {
+                    out.writeBoolean(b);
+                }
+                break;
+            }
+            case NT4Topic.TYPE_DOUBLE_ARRAY:
+            case NT4Topic.TYPE_FLOAT_ARRAY:
+            case NT4Topic.TYPE_INT_ARRAY: {
+                double[] dbls = (double[]) value;
+                out.writeArrayHeader(dbls.length);
+                for (double d : dbls) {
+                    if (typeIndex == NT4Topic.TYPE_INT_ARRAY) {
+                        out.writeLong((long) d);
+                    } else {
+                        out.writeDouble(d);
+                    }
+                }
+                break;
+            }
+            case NT4Topic.TYPE_STRING_ARRAY: {
+                String[] strs = (String[]) value;
+                out.writeArrayHeader(strs.length);
+                for (String s : strs) {
+                    out.writeString(s);
+                }
+                break;
+            }
+            default:
+                out.writeBinary((byte[]) value);
+                break;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.boomaa.opends.networktables.nt4;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// RFC 6455 framing over a plain socket, either end of the connection.
+// Control frames are answered inline while reading; data messages are reassembled.
+public class WebSocket implements Closeable {
+    public static final int OP_CONTINUATION = 0x0;
+    public static final int OP_TEXT = 0x1;
+    public static final int OP_BINARY = 0x2;
+    public static final int OP_CLOSE = 0x8;
+    public static final int OP_PING = 0x9;
+    public static final int OP_PONG = 0xA;
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+    private static final int HANDSHAKE_TIMEOUT_MS = 3000;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final boolean client;
+    private final String protocol;
+    private final Random maskRandom = new Random();
+    private final byte[] header = new byte[2];
+    private final byte[] sendHeader = new byte[14];
+    private final byte[] maskKey = new byte[4];
+    private byte[] sendBuffer = new byte[1024];
+    private byte[] message = new byte[64 * 1024];
+    private final byte[] control = new byte[125];
+    private int messageLength;
+    private volatile boolean closed;
+
+    private WebSocket(Socket socket, InputStream in, boolean client, String protocol) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.client = client;
+        this.protocol = protocol;
+    }
+
+    public static WebSocket connect(String host, int port, String path, int timeoutMs, String... protocols) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMs);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            byte[] nonce = new byte[16];
+            new SecureRandom().nextBytes(nonce);
+            String key = Base64.getEncoder().encodeToString(nonce);
+            StringBuilder request = new StringBuilder();
+            request.append("GET ").append(path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(host).append(':').append(port).append("\r\n")
+                .append("Upgrade: websocket\r\n")
+                .append("Connection: Upgrade\r\n")
+                .append("Sec-WebSocket-Key: ").append(key).append("\r\n")
+                .append("Sec-WebSocket-Version: 13\r\n");
+            if (protocols.length != 0) {
+                request.append("Sec-WebSocket-Protocol: ").append(String.join(", ", protocols)).append("\r\n");
+            }
+            request.append("\r\n");
+            OutputStream rawOut = socket.getOutputStream();
+            rawOut.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            rawOut.flush();
+
+            InputStream rawIn = new BufferedInputStream(socket.getInputStream());
+            String status = readHttpLine(rawIn);
+            Map<String, String> headers = readHttpHeaders(rawIn);
+            if (!status.startsWith("HTTP/1.1 101")) {
+                throw new IOException("WebSocket upgrade refused: " + status);
+            } else if (!acceptKey(key).equals(headers.get("sec-websocket-accept"))) {
+                throw new IOException("WebSocket upgrade returned a bad accept key");
+            }
+            socket.setSoTimeout(0);
+            return new WebSocket(socket, rawIn, true, headers.getOrDefault("sec-websocket-protocol", ""));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    // Server side of the upgrade; the first offered protocol found in supported is chosen
+    public static WebSocket accept(Socket socket, String... supported) throws IOException {
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+        InputStream rawIn = new BufferedInputStream(socket.getInputStream());
+        String request = readHttpLine(rawIn);
+        Map<String, String> headers = readHttpHeaders(rawIn);
+        String key = headers.get("sec-websocket-key");
+        if (!request.startsWith("GET ") || key == null) {
+            throw new IOException("Not a WebSocket upgrade: " + request);
+        }
+        String chosen = null;
+        String offered = headers.get("sec-websocket-protocol");
+        if (offered != null) {
+            for (String option : offered.split(",")) {
+                if (Arrays.asList(supported).contains(option.trim())) {
+                    chosen = option.trim();
+                    break;
+                }
+            }
+        }
+        StringBuilder response = new StringBuilder();
+        response.append("HTTP/1.1 101 Switching Protocols\r\n")
+            .append("Upgrade: websocket\r\n")
+            .append("Connection: Upgrade\r\n")
+            .append("Sec-WebSocket-Accept: ").append(acceptKey(key)).append("\r\n");
+        if (chosen != null) {
+            response.append("Sec-WebSocket-Protocol: ").append(chosen).append("\r\n");
+        }
+        response.append("\r\n");
+        OutputStream rawOut = socket.getOutputStream();
+        rawOut.write(response.toString().getBytes(StandardCharsets.US_ASCII));
+        rawOut.flush();
+        socket.setSoTimeout(0);
+        return new WebSocket(socket, rawIn, false, chosen != null ? chosen : "");
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public String getRemoteAddress() {
+        return String.valueOf(socket.getRemoteSocketAddress());
+    }
+
+    // Blocks until a complete text or binary message is available and returns its opcode,
+    // or -1 once the peer has closed. The payload stays valid until the next call.
+    public int readMessage() throws IOException {
+        int opcode = -1;
+        messageLength = 0;
+        while (!closed) {
+            in.readFully(header, 0, 2);
+            boolean fin = (header[0] & 0x80) != 0;
+            int frameOp = header[0] & 0x0F;
+            boolean masked = (header[1] & 0x80) != 0;
+            long len = header[1] & 0x7F;
+            if (len == 126) {
+                len = in.readUnsignedShort();
+            } else if (len == 127) {
+                len = in.readLong();
+            }
+            if (masked) {
+                in.readFully(maskKey);
+            }
+            if (frameOp >= OP_CLOSE) {
+                if (len > control.length) {
+                    throw new IOException("Oversized WebSocket control frame");
+                }
+                int ctlLen = (int) len;
+                in.readFully(control, 0, ctlLen);
+                if (masked) {
+                    unmask(control, 0, ctlLen);
+                }
+                if (frameOp == OP_PING) {
+                    send(OP_PONG, control, 0, ctlLen);
+                } else if (frameOp == OP_CLOSE) {
+                    if (!closed) {
+                        try {
+                            send(OP_CLOSE, control, 0, Math.min(ctlLen, 2));
+                        } catch (IOException ignored) {
+                        }
+                    }
+                    close();
+                    return -1;
+                }
+                continue;
+            }
+            if (frameOp != OP_CONTINUATION) {
+                opcode = frameOp;
+                messageLength = 0;
+            } else if (opcode == -1) {
+                throw new IOException("WebSocket continuation without a start frame");
+            }
+            if (len < 0 || messageLength + len > MAX_MESSAGE_LENGTH) {
+                throw new IOException("WebSocket message exceeds " + MAX_MESSAGE_LENGTH + " bytes");
+            }
+            int frameLen = (int) len;
+            if (messageLength + frameLen > message.length) {
+                message = Arrays.copyOf(message, Math.max(message.length * 2, messageLength + frameLen));
+            }
+            in.readFully(message, messageLength, frameLen);
+            if (masked) {
+                unmask(message, messageLength, frameLen);
+            }
+            messageLength += frameLen;
+            if (fin) {
+                return opcode;
+            }
+        }
+        return -1;
+    }
+
+    public byte[] getMessage() {
+        return message;
+    }
+
+    public int getMessageLength() {
+        return messageLength;
+    }
+
+    public String getMessageText() {
+        return new String(message, 0, messageLength, StandardCharsets.UTF_8);
+    }
+
+    public void sendText(String text) throws IOException {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        send(OP_TEXT, utf8, 0, utf8.length);
+    }
+
+    public void sendBinary(byte[] data, int off, int len) throws IOException {
+        send(OP_BINARY, data, off, len);
+    }
+
+    public synchronized void send(int opcode, byte[] data, int off, int len) throws IOException {
+        if (closed) {
+            throw new EOFException("WebSocket closed");
+        }
+        int hlen = 2;
+        sendHeader[0] = (byte) (0x80 | opcode);
+        int maskBit = client ? 0x80 : 0;
+        if (len < 126) {
+            sendHeader[1] = (byte) (maskBit | len);
+        } else if (len < 0x10000) {
+            sendHeader[1] = (byte) (maskBit | 126);
+            sendHeader[hlen++] = (byte) (len >>> 8);
+            sendHeader[hlen++] = (byte) len;
+        } else {
+            sendHeader[1] = (byte) (maskBit | 127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                sendHeader[hlen++] = (byte) (shift >= 32 ? 0 : len >>> shift);
+            }
+        }
+        if (client) {
+            // clients must mask, the caller's array is left untouched
+            int key = maskRandom.nextInt();
+            for (int i = 0; i < 4; i++) {
+                sendHeader[hlen++] = (byte) (key >>> (24 - (i * 8)));
+            }
+            if (sendBuffer.length < len) {
+                sendBuffer = new byte[Math.max(sendBuffer.length * 2, len)];
+            }
+            for (int i = 0; i < len; i++) {
+                sendBuffer[i] = (byte) (data[off + i] ^ sendHeader[hlen - 4 + (i & 3)]);
+            }
+            data = sendBuffer;
+            off = 0;
+        }
+        try {
+            out.write(sendHeader, 0, hlen);
+            out.write(data, off, len);
+            out.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void unmask(byte[] data, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            data[off + i] ^= maskKey[i & 3];
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readHttpLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new EOFException("Connection closed during WebSocket handshake");
+            } else if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > 8192) {
+                throw new IOException("WebSocket handshake line too long");
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static Map<String, String> readHttpHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = readHttpLine(in)).isEmpty()) {
+            int sep = line.indexOf(':');
+            if (sep > 0) {
+                headers.put(line.substring(0, sep).trim().toLowerCase(), line.substring(sep + 1).trim());
+            }
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,149 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.NumberUtils;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+// Per-axis deadband, expo, scale and inversion for one device, indexed by user axis slot.
+// Each shaped axis is compiled into a table over 16-bit input holding the int8 value sent
+// to the robot, so shaping a packet is one array load per axis.
+public class AxisShaping implements Serializable {
+    private static final long serialVersionUID = 4127985339120675341L;
+    private static final int TABLE_SIZE = 1 << 16;
+    private static final double TABLE_HALF = (TABLE_SIZE - 1) / 2.0;
+    private final Curve[] curves = new Curve[HIDDevice.DEFAULT_AXIS_MAX];
+    private transient volatile byte[][] tables;
+
+    public AxisShaping() {
+        for (int i = 0; i < curves.length; i++) {
+            curves[i] = new Curve();
+        }
+    }
+
+    // Value to send for a raw axis in [-1, 1]
+    public int encode(int axisIdx, double value) {
+        byte[] table = getTables()[axisIdx];
+        if (table == null) {
+            return NumberUtils.dblToInt8(value);
+        }
+        return table[(int) ((NumberUtils.limit(value, -1, 1) + 1) * TABLE_HALF)];
+    }
+
+    public Curve getCurve(int axisIdx) {
+        return curves[axisIdx];
+    }
+
+    public synchronized void setCurve(int axisIdx, Curve curve) {
+        curves[axisIdx] = curve;
+        byte[][] compiled = getTables().clone();
+        compiled[axisIdx] = compile(curve);
+        tables = compiled;
+    }
+
+    private byte[][] getTables() {
+        byte[][] current = tables;
+        if (current == null) {
+            synchronized (this) {
+                if (tables == null) {
+                    byte[][] compiled = new byte[curves.length][];
+                    for (int i = 0; i < curves.length; i++) {
+                        compiled[i] = compile(curves[i]);
+                    }
+                    tables = compiled;
+                }
+                current = tables;
+            }
+        }
+        return current;
+    }
+
+    // Identity curves get no table so unshaped axes encode exactly as before
+    private static byte[] compile(Curve curve) {
+        if (curve.isIdentity()) {
+            return null;
+        }
+        byte[] table = new byte[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            table[i] = (byte) NumberUtils.dblToInt8(NumberUtils.limit(curve.apply(i / TABLE_HALF - 1), -1, 1));
+        }
+        return table;
+    }
+
+    public void saveToFile(String path) {
+        try (FileOutputStream fos = new FileOutputStream(path);
+            ObjectOutputStream oos = new ObjectOutputStream(fos)) {
+            oos.writeObject(this);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static AxisShaping fromFile(String path) {
+        try (FileInputStream fis = new FileInputStream(path);
+            ObjectInputStream ois = new ObjectInputStream(fis)) {
+            return (AxisShaping) ois.readObject();
+        } catch (FileNotFoundException ignored) {
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        return new AxisShaping();
+    }
+
+    public static class Curve implements Serializable {
+        private static final long serialVersionUID = -2954417360823176412L;
+        private final double deadband;
+        private final double expo;
+        private final double scale;
+        private final boolean inverted;
+
+        public Curve(double deadband, double expo, double scale, boolean inverted) {
+            this.deadband = NumberUtils.limit(deadband, 0, 0.99);
+            this.expo = NumberUtils.limit(expo, 0, 1);
+            this.scale = NumberUtils.limit(scale, 0, 1);
+            this.inverted = inverted;
+        }
+
+        public Curve() {
+            this(0, 0, 1, false);
+        }
+
+        // Deadband is removed and the rest rescaled to full travel, then blended between
+        // linear (expo 0) and cubic (expo 1) before scaling
+        public double apply(double value) {
+            double magnitude = Math.abs(value);
+            if (magnitude <= deadband) {
+                return 0;
+            }
+            magnitude = (magnitude - deadband) / (1 - deadband);
+            magnitude = (1 - expo) * magnitude + expo * magnitude * magnitude * magnitude;
+            double out = Math.signum(value) * magnitude * scale;
+            return inverted ? -out : out;
+        }
+
+        public boolean isIdentity() {
+            return deadband == 0 && expo == 0 && scale == 1 && !inverted;
+        }
+
+        public double getDeadband() {
+            return deadband;
+        }
+
+        public double getExpo() {
+            return expo;
+        }
+
+        public double getScale() {
+            return scale;
+        }
+
+        public boolean isInverted() {
+            return inverted;
+        }
+    }
+}
@@ -15,10 +15,23 @@ public interface Component {
 
     boolean isAxis();
 
+    // Hat switches, whose provideValue() is an angle in degrees or -1 when centered
+    default boolean isPOV() {
+        return false;
+    }
+
     default String getName() {
         return getIdentitifer().getName();
     }
 
+    // Angle for a hat's x and y directions (each -1, 0 or 1, with y pointing down)
+    static int hatAngle(int x, int y) {
+        if (x == 0 && y == 0) {
+            return -1;
+        }
+        return (int) ((Math.round(Math.toDegrees(Math.atan2(x, -y))) + 360) % 360);
+    }
+
     interface Identifier {
         String name();
 
@@ -58,6 +71,10 @@ public interface Component {
         _30, _31
     }
 
+    enum Pov implements Identifier {
+        POV_0, POV_1, POV_2, POV_3
+    }
+
     //TODO implement
     enum NamedButton implements Identifier {
         TRIGGER, THUMB, THUMB_2, TOP, TOP_2, PINKIE,
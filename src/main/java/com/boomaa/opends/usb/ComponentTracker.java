@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -14,53 +15,62 @@ public class ComponentTracker implements Serializable {
     private static final long serialVersionUID = 750540465359805070L;
     private final Map<Component.Identifier, Integer> hardwareMap;
     private final Map<Component.Identifier, Component.Identifier> userMap;
-    private final Map<Component.Identifier, Integer> directMap;
+    // Rebuilt on every change and swapped in whole, so the input thread never sees a map being edited
+    private transient volatile Map<Component.Identifier, Integer> directMap = Collections.emptyMap();
+    private transient volatile int version;
 
     public ComponentTracker() {
         this.hardwareMap = new LinkedHashMap<>();
         this.userMap = new LinkedHashMap<>();
-        this.directMap = new LinkedHashMap<>();
     }
 
-    public ComponentTracker map(Component.Identifier userId, Component.Identifier hardwareId, boolean overwrite) {
-        directMap.clear();
+    public synchronized ComponentTracker map(Component.Identifier userId, Component.Identifier hardwareId,
+        boolean overwrite) {
         if (hardwareMap.containsKey(hardwareId) && (overwrite || !userMap.containsKey(userId))) {
             userMap.put(userId, hardwareId);
         }
+        publish();
         return this;
     }
 
-    public ComponentTracker mapAllSelf(Component.Identifier[] ids) {
-        directMap.clear();
+    public synchronized ComponentTracker mapAllSelf(Component.Identifier[] ids) {
         for (Component.Identifier id : ids) {
             if (hardwareMap.containsKey(id)) {
                 userMap.put(id, id);
             }
         }
+        publish();
         return this;
     }
 
-    public ComponentTracker unmap(Component.Identifier userId) {
-        directMap.clear();
+    public synchronized ComponentTracker unmap(Component.Identifier userId) {
         userMap.remove(userId);
+        publish();
         return this;
     }
 
-    public ComponentTracker track(Component.Identifier hardwareId, int idx) {
+    public synchronized ComponentTracker track(Component.Identifier hardwareId, int idx) {
         hardwareMap.put(hardwareId, idx);
+        publish();
         return this;
     }
 
+    // The snapshot is published before the version so a reader that sees a new version also sees its map
+    private void publish() {
+        Map<Component.Identifier, Integer> direct = new LinkedHashMap<>();
+        for (Map.Entry<Component.Identifier, Component.Identifier> userMapEntry : userMap.entrySet()) {
+            direct.put(userMapEntry.getKey(), hardwareMap.get(userMapEntry.getValue()));
+        }
+        directMap = Collections.unmodifiableMap(direct);
+        version++;
+    }
+
     public int getIndex(Component.Identifier userId) {
-        return userMap.containsKey(userId) ? hardwareMap.get(userMap.get(userId)) : -1;
+        Integer idx = directMap.get(userId);
+        return idx != null ? idx : -1;
     }
 
     public Map<Component.Identifier, Integer> getDirectMap() {
-        if (directMap.size() == 0) {
-            for (Map.Entry<Component.Identifier, Component.Identifier> userMapEntry : userMap.entrySet()) {
-                directMap.put(userMapEntry.getKey(), hardwareMap.get(userMapEntry.getValue()));
-            }
-        }
         return directMap;
     }
 
@@ -72,6 +82,11 @@ public class ComponentTracker implements Serializable {
         return userMap;
     }
 
+    // Bumped on every mapping change, so callers can cache lookups against it
+    public int getVersion() {
+        return version;
+    }
+
     public int numMapped() {
         return userMap.size();
     }
@@ -80,7 +95,12 @@ public class ComponentTracker implements Serializable {
         return hardwareMap.size();
     }
 
-    public void saveToFile(String path) {
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        publish();
+    }
+
+    public synchronized void saveToFile(String path) {
         try (FileOutputStream fos = new FileOutputStream(path);
             ObjectOutputStream oos = new ObjectOutputStream(fos)) {
             oos.writeObject(this);
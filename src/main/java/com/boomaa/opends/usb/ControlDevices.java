@@ -4,12 +4,15 @@ import com.boomaa.opends.display.tabs.JoystickTab;
 import com.boomaa.opends.util.Debug;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class ControlDevices {
     private static final Map<Integer, HIDDevice> controllers = new LinkedHashMap<>();
-    private static int sendDataCtr = 0;
+    // held for a polling pass and around closing controllers, never while enumerating
+    private static final Object POLL_LOCK = new Object();
+    private static volatile HIDDevice[] polled = new HIDDevice[0];
     private static int sendDescCtr = 0;
 
     private ControlDevices() {
@@ -23,7 +26,13 @@ public class ControlDevices {
 
     public static synchronized void findAll() {
         NativeUSBManager.getOSInstance().enumDevices();
-        for (Controller<?> ctrl : NativeUSBManager.getOSInstance().getDevices()) {
+        addNew(NativeUSBManager.getOSInstance().getDevices());
+        addNew(VirtualDevices.getDevices());
+    }
+
+    private static void addNew(Iterable<? extends Controller<?>> ctrls) {
+        boolean added = false;
+        for (Controller<?> ctrl : ctrls) {
             boolean hasHid = false;
             for (HIDDevice hid : controllers.values()) {
                 if (hid.hasController(ctrl)) {
@@ -38,25 +47,50 @@ public class ControlDevices {
                 JoystickTab.EmbeddedJDEC.LIST_MODEL.add(addIdx, hid);
                 Debug.println(String.format("Found and added new HID/controller device (%s) with %d buttons and %d axes",
                     hid, hid.deviceNumButtons(), hid.deviceNumAxes()));
+                added = true;
             }
         }
+        if (added) {
+            publishPolled();
+        }
     }
 
+    // HIDs go first so no later polling pass sees a controller that is about to be closed
     public static synchronized void checkForRemoval() {
-        for (Controller<?> ctrl : NativeUSBManager.getOSInstance().getDevices()) {
-            if (ctrl.needsRemove()) {
-                NativeUSBManager.getOSInstance().getDevices().remove(ctrl);
-            }
-        }
-        for (HIDDevice hid : controllers.values()) {
+        boolean removed = false;
+        Iterator<HIDDevice> hids = controllers.values().iterator();
+        while (hids.hasNext()) {
+            HIDDevice hid = hids.next();
             if (hid.needsRemove()) {
-                controllers.remove(hid.getIdx());
+                hids.remove();
                 IndexTracker.unregister(hid.getIdx());
                 final int remIdx = Math.min(hid.getIdx(), JoystickTab.EmbeddedJDEC.LIST_MODEL.size() - 1);
                 JoystickTab.EmbeddedJDEC.LIST_MODEL.remove(remIdx);
                 Debug.println(String.format("Removed now invalid HID/controller device: %s", hid));
+                removed = true;
+            }
+        }
+        if (removed) {
+            publishPolled();
+        }
+        Iterator<? extends Controller<?>> ctrls = NativeUSBManager.getOSInstance().getDevices().iterator();
+        while (ctrls.hasNext()) {
+            Controller<?> ctrl = ctrls.next();
+            if (ctrl.needsRemove()) {
+                ctrls.remove();
+                synchronized (POLL_LOCK) {
+                    ctrl.close();
+                }
             }
         }
+        VirtualDevices.getDevices().removeIf(Controller::needsRemove);
+    }
+
+    // Called by platform managers that are told about device changes instead of polling for them
+    public static synchronized void hotplug() {
+        NativeUSBManager.getOSInstance().enumDevices();
+        checkForRemoval();
+        findAll();
     }
 
     public static synchronized void reindexAll() {
@@ -67,11 +101,15 @@ public class ControlDevices {
             int devIdx = device.getIdx();
             controllers.put(devIdx, device);
         }
+        publishPolled();
     }
 
     public static synchronized void clearAll() {
         Debug.println("Removed all control devices");
-        NativeUSBManager.getOSInstance().clearDevices();
+        polled = new HIDDevice[0];
+        synchronized (POLL_LOCK) {
+            NativeUSBManager.getOSInstance().clearDevices();
+        }
         IndexTracker.reset();
         controllers.clear();
     }
@@ -82,20 +120,26 @@ public class ControlDevices {
         }
     }
 
-    public static synchronized int iterateSend(boolean isData) {
-        int out;
-        if (isData) {
-            out = sendDataCtr++;
-            sendDataCtr %= (IndexTracker.MAX_JS_INDEX + 1);
-        } else {
-            out = sendDescCtr++;
-            sendDescCtr %= IndexTracker.MAX_JS_NUM;
+    // Polls every device and records it into frame, only ever called from InputThread.
+    // Works from the published device array so enumeration and hotplug never hold up a poll.
+    static void capture(InputFrame frame, long latchedSequence) {
+        synchronized (POLL_LOCK) {
+            for (HIDDevice hid : polled) {
+                hid.update();
+                frame.capture(hid, latchedSequence);
+            }
         }
-        return out;
     }
 
-    public static int getDataIndex() {
-        return sendDataCtr;
+    // Called with the class lock held whenever the set of devices changes
+    private static void publishPolled() {
+        polled = controllers.values().toArray(new HIDDevice[0]);
+    }
+
+    public static synchronized int iterateSend() {
+        int out = sendDescCtr++;
+        sendDescCtr %= IndexTracker.MAX_JS_NUM;
+        return out;
     }
 
     public static int getDescIndex() {
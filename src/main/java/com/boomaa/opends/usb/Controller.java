@@ -1,13 +1,14 @@
 package com.boomaa.opends.usb;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class Controller<T extends Component> {
-    protected final List<T> objects = new LinkedList<>();
+    protected final List<T> objects = new ArrayList<>();
     protected int numButtons;
     protected int numAxes;
     protected boolean queueRemove;
+    protected long changeNanos;
 
     public abstract Type getType();
 
@@ -35,6 +36,19 @@ public abstract class Controller<T extends Component> {
         return ++numAxes;
     }
 
+    // System.nanoTime() of the earliest input change since the last call, 0 if none or unknown
+    public long takeChangeNanos() {
+        long change = changeNanos;
+        changeNanos = 0;
+        return change;
+    }
+
+    protected void markChanged(long nanos) {
+        if (changeNanos == 0 || nanos < changeNanos) {
+            changeNanos = nanos;
+        }
+    }
+
     public void remove() {
         queueRemove = true;
     }
@@ -43,6 +57,18 @@ public abstract class Controller<T extends Component> {
         return queueRemove;
     }
 
+    public boolean hasRumble() {
+        return false;
+    }
+
+    // Magnitudes from 0 to 1, held for durationMs unless replaced sooner
+    public void rumble(double left, double right, int durationMs) {
+    }
+
+    // Releases native handles once the device has been dropped from its manager
+    public void close() {
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -0,0 +1,76 @@
+package com.boomaa.opends.usb;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Linux backend over /dev/input/event* (--evdev). Nodes that open but aren't joysticks are
+// remembered so keyboards and mice aren't reopened on every pass, and new joysticks are added
+// sorted by their stable id so the FRC order survives reboots and re-enumeration.
+public class EvdevAPI extends NativeUSBManager<EvdevController> {
+    private final Set<Integer> rejected = new HashSet<>();
+    private final InputDirWatcher watcher = new InputDirWatcher("event");
+
+    public EvdevAPI() {
+        // opening a node that can't exist only fails on the native side, but throws
+        // UnsatisfiedLinkError when the loaded library predates this backend
+        new EvdevController(-1);
+        enumDevices();
+        watcher.start();
+    }
+
+    @Override
+    public synchronized void enumDevices() {
+        Set<Integer> eventNums = new HashSet<>();
+        List<EvdevController> found = new ArrayList<>();
+        try (DirectoryStream<Path> nodes = Files.newDirectoryStream(InputDirWatcher.INPUT_DIR, "event*")) {
+            for (Path node : nodes) {
+                int num = InputDirWatcher.parseIndex(node, "event");
+                if (num == -1) {
+                    continue;
+                }
+                eventNums.add(num);
+                if (rejected.contains(num) || findOpen(num) != null) {
+                    continue;
+                }
+                EvdevController ctrl = new EvdevController(num);
+                if (ctrl.isOpen() && ctrl.isJoystick()) {
+                    found.add(ctrl);
+                } else if (ctrl.isOpen()) {
+                    rejected.add(num);
+                    ctrl.close();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        found.sort(Comparator.comparing(EvdevController::getStableId)
+            .thenComparingInt(EvdevController::getEventNum));
+        devices.addAll(found);
+        rejected.retainAll(eventNums);
+        Set<Integer> settled = new HashSet<>(rejected);
+        for (EvdevController c : devices) {
+            if (!eventNums.contains(c.getEventNum())) {
+                c.remove();
+            } else if (!c.needsRemove()) {
+                settled.add(c.getEventNum());
+            }
+        }
+        watcher.setSettled(settled);
+    }
+
+    private EvdevController findOpen(int eventNum) {
+        for (EvdevController c : devices) {
+            if (c.getEventNum() == eventNum && !c.needsRemove()) {
+                return c;
+            }
+        }
+        return null;
+    }
+}
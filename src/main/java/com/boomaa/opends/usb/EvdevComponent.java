@@ -0,0 +1,52 @@
+package com.boomaa.opends.usb;
+
+public class EvdevComponent implements Component {
+    private final Identifier componentId;
+    private final Kind kind;
+    private final double[] state;
+    private final int index;
+
+    public EvdevComponent(Identifier componentId, Kind kind, double[] state, int index) {
+        this.componentId = componentId;
+        this.kind = kind;
+        this.state = state;
+        this.index = index;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Identifier getIdentitifer() {
+        return componentId;
+    }
+
+    @Override
+    public double provideValue() {
+        return state[index];
+    }
+
+    @Override
+    public boolean isButton() {
+        return kind == Kind.BUTTON;
+    }
+
+    @Override
+    public boolean isAxis() {
+        return kind == Kind.AXIS;
+    }
+
+    @Override
+    public boolean isPOV() {
+        return kind == Kind.POV;
+    }
+
+    public enum Kind {
+        AXIS, BUTTON, POV
+    }
+}
@@ -0,0 +1,296 @@
+package com.boomaa.opends.usb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class EvdevController extends Controller<EvdevComponent> {
+    // Native side packs struct input_event as { s64 usec; u16 type; u16 code; s32 value; }
+    private static final int EVENT_SIZE = 16;
+    private static final int EVENT_TIME = 0;
+    private static final int EVENT_TYPE = 8;
+    private static final int EVENT_CODE = 10;
+    private static final int EVENT_VALUE = 12;
+    private static final int MAX_EVENTS = 256;
+    private static final int MAX_HATS = Component.Pov.values().length;
+    private static final int MAX_BUTTONS = Component.Button.values().length;
+    private final ByteBuffer events = ByteBuffer.allocateDirect(EVENT_SIZE * MAX_EVENTS).order(ByteOrder.nativeOrder());
+    private final double[] axisState = new double[EvdevFlags.ABS_CNT];
+    private final int[] absMin = new int[EvdevFlags.ABS_CNT];
+    private final int[] absMax = new int[EvdevFlags.ABS_CNT];
+    private final double[] buttonState = new double[MAX_BUTTONS];
+    private final int[] keyToButton = new int[EvdevFlags.KEY_CNT];
+    private final int[] hatX = new int[MAX_HATS];
+    private final int[] hatY = new int[MAX_HATS];
+    private final double[] povState = new double[MAX_HATS];
+    private final byte[] absBits = new byte[EvdevFlags.ABS_CNT / 8];
+    private final byte[] keyBits = new byte[EvdevFlags.KEY_CNT / 8];
+    private final long address;
+    private final int eventNum;
+    private final String name;
+    private final String stableId;
+    private final boolean monotonicClock;
+    private final boolean rumbleSupported;
+    private boolean joystick;
+    private boolean dropped;
+    private int rumbleEffect = -1;
+    private volatile boolean closed;
+
+    public EvdevController(int eventNum) {
+        this.address = open("/dev/input/event" + eventNum);
+        this.eventNum = eventNum;
+        if (address < 0) {
+            this.name = "Unknown";
+            this.stableId = "";
+            this.monotonicClock = false;
+            this.rumbleSupported = false;
+            this.closed = true;
+            return;
+        }
+        this.name = getName(address);
+        this.stableId = getStableId(address);
+        this.monotonicClock = setMonotonicClock(address);
+        byte[] ffBits = new byte[EvdevFlags.FF_CNT / 8];
+        getBits(address, EvdevFlags.EV_FF, ffBits);
+        this.rumbleSupported = isSet(ffBits, EvdevFlags.FF_RUMBLE);
+        getBits(address, EvdevFlags.EV_ABS, absBits);
+        getBits(address, EvdevFlags.EV_KEY, keyBits);
+        Arrays.fill(povState, -1);
+        addComponents();
+        if (joystick) {
+            resync();
+        }
+    }
+
+    // Same test udev uses for ID_INPUT_JOYSTICK: an X axis plus joystick or gamepad buttons
+    private void addComponents() {
+        boolean hasJoystickKeys = false;
+        for (int code = EvdevFlags.BTN_JOYSTICK; code < EvdevFlags.BTN_DIGI; code++) {
+            hasJoystickKeys |= isSet(keyBits, code);
+        }
+        joystick = isSet(absBits, EvdevFlags.ABS_X) && hasJoystickKeys;
+        if (!joystick) {
+            return;
+        }
+        int[] info = new int[6];
+        int extraAxes = 0;
+        for (int code = 0; code < EvdevFlags.ABS_MISC; code++) {
+            if (!isSet(absBits, code) || (code >= EvdevFlags.ABS_HAT0X && code <= EvdevFlags.ABS_HAT3Y)) {
+                continue;
+            }
+            getAbsInfo(address, code, info);
+            absMin[code] = info[1];
+            absMax[code] = info[2];
+            objects.add(new EvdevComponent(axisId(code, extraAxes), EvdevComponent.Kind.AXIS, axisState, code));
+            if (code > EvdevFlags.ABS_RZ) {
+                extraAxes++;
+            }
+            numAxes++;
+        }
+        for (int hat = 0; hat < MAX_HATS; hat++) {
+            if (isSet(absBits, EvdevFlags.ABS_HAT0X + hat * 2)) {
+                objects.add(new EvdevComponent(Component.Pov.values()[hat], EvdevComponent.Kind.POV, povState, hat));
+            }
+        }
+        // Joystick and gamepad buttons first, then the misc range, matching SDL's ordering
+        Arrays.fill(keyToButton, -1);
+        for (int code = EvdevFlags.BTN_JOYSTICK; code < EvdevFlags.KEY_CNT && numButtons < MAX_BUTTONS; code++) {
+            addButton(code);
+        }
+        for (int code = EvdevFlags.BTN_MISC; code < EvdevFlags.BTN_JOYSTICK && numButtons < MAX_BUTTONS; code++) {
+            addButton(code);
+        }
+    }
+
+    private void addButton(int code) {
+        if (isSet(keyBits, code)) {
+            keyToButton[code] = numButtons;
+            objects.add(new EvdevComponent(Component.Button.values()[numButtons], EvdevComponent.Kind.BUTTON,
+                buttonState, numButtons));
+            numButtons++;
+        }
+    }
+
+    // Z and RZ are swapped to match the joystick API and DirectInput axis order
+    private static Component.Identifier axisId(int code, int extraAxes) {
+        switch (code) {
+            case EvdevFlags.ABS_X:
+                return Component.Axis.X;
+            case EvdevFlags.ABS_Y:
+                return Component.Axis.Y;
+            case EvdevFlags.ABS_Z:
+                return Component.Axis.RZ;
+            case EvdevFlags.ABS_RX:
+                return Component.Axis.RX;
+            case EvdevFlags.ABS_RY:
+                return Component.Axis.RY;
+            case EvdevFlags.ABS_RZ:
+                return Component.Axis.Z;
+            default:
+                return extraAxes == 0 ? Component.Axis.SLIDER : Component.Axis.UNKNOWN;
+        }
+    }
+
+    // Full state read used on open and after the kernel drops events
+    private void resync() {
+        int[] info = new int[6];
+        for (int code = 0; code < EvdevFlags.ABS_MISC; code++) {
+            if (isSet(absBits, code)) {
+                getAbsInfo(address, code, info);
+                applyAbs(code, info[0]);
+            }
+        }
+        byte[] keyState = new byte[EvdevFlags.KEY_CNT / 8];
+        getKeyState(address, keyState);
+        for (int code = 0; code < EvdevFlags.KEY_CNT; code++) {
+            if (keyToButton[code] != -1) {
+                buttonState[keyToButton[code]] = isSet(keyState, code) ? 1 : 0;
+            }
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    public boolean isJoystick() {
+        return joystick;
+    }
+
+    public int getEventNum() {
+        return eventNum;
+    }
+
+    // Serial number when the device reports one, otherwise its physical port path
+    public String getStableId() {
+        return stableId;
+    }
+
+    @Override
+    public Type getType() {
+        return isSet(keyBits, EvdevFlags.BTN_GAMEPAD) ? Type.HID_GAMEPAD : Type.HID_JOYSTICK;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    // Serialized with close() and rumble() so a recycled fd is never touched
+    @Override
+    public synchronized void poll() {
+        if (closed) {
+            return;
+        }
+        int count;
+        do {
+            count = pollBulk(address, events, MAX_EVENTS);
+            long readNanos = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                int base = i * EVENT_SIZE;
+                apply(events.getShort(base + EVENT_TYPE) & 0xFFFF, events.getShort(base + EVENT_CODE) & 0xFFFF,
+                    events.getInt(base + EVENT_VALUE), monotonicClock ? events.getLong(base + EVENT_TIME) * 1000 : readNanos);
+            }
+        } while (count == MAX_EVENTS);
+        if (count < 0) {
+            super.remove();
+        }
+    }
+
+    private void apply(int type, int code, int value, long eventNanos) {
+        if (type == EvdevFlags.EV_SYN) {
+            if (code == EvdevFlags.SYN_DROPPED) {
+                dropped = true;
+            } else if (code == EvdevFlags.SYN_REPORT && dropped) {
+                dropped = false;
+                resync();
+                markChanged(eventNanos);
+            }
+        } else if (dropped) {
+            return;
+        } else if (type == EvdevFlags.EV_KEY && code < EvdevFlags.KEY_CNT && keyToButton[code] != -1) {
+            int btn = keyToButton[code];
+            double pressed = value != 0 ? 1 : 0;
+            if (buttonState[btn] != pressed) {
+                buttonState[btn] = pressed;
+                markChanged(eventNanos);
+            }
+        } else if (type == EvdevFlags.EV_ABS && code < EvdevFlags.ABS_CNT) {
+            if (applyAbs(code, value)) {
+                markChanged(eventNanos);
+            }
+        }
+    }
+
+    private boolean applyAbs(int code, int value) {
+        if (code >= EvdevFlags.ABS_HAT0X && code <= EvdevFlags.ABS_HAT3Y) {
+            int hat = (code - EvdevFlags.ABS_HAT0X) / 2;
+            int dir = Integer.signum(value);
+            if ((code & 1) == 0) {
+                hatX[hat] = dir;
+            } else {
+                hatY[hat] = dir;
+            }
+            double angle = Component.hatAngle(hatX[hat], hatY[hat]);
+            boolean changed = povState[hat] != angle;
+            povState[hat] = angle;
+            return changed;
+        }
+        int range = absMax[code] - absMin[code];
+        double scaled = range != 0 ? 2.0 * (value - absMin[code]) / range - 1 : 0;
+        boolean changed = axisState[code] != scaled;
+        axisState[code] = scaled;
+        return changed;
+    }
+
+    @Override
+    public boolean hasRumble() {
+        return rumbleSupported;
+    }
+
+    @Override
+    public synchronized void rumble(double left, double right, int durationMs) {
+        if (closed || !rumbleSupported) {
+            return;
+        }
+        // FF_RUMBLE has the strong (low frequency) motor on the left of a gamepad
+        int strong = (int) (Math.max(0, Math.min(1, left)) * 0xFFFF);
+        int weak = (int) (Math.max(0, Math.min(1, right)) * 0xFFFF);
+        rumbleEffect = rumble(address, rumbleEffect, strong, weak, durationMs);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            close(address);
+        }
+    }
+
+    private static boolean isSet(byte[] bits, int bit) {
+        return (bits[bit >> 3] & (1 << (bit & 7))) != 0;
+    }
+
+    private native long open(String path);
+
+    private native String getName(long address);
+
+    private native String getStableId(long address);
+
+    private native boolean setMonotonicClock(long address);
+
+    private native int getBits(long address, int type, byte[] bits);
+
+    private native int getKeyState(long address, byte[] bits);
+
+    // info is { value, minimum, maximum, fuzz, flat, resolution }
+    private native int getAbsInfo(long address, int code, int[] info);
+
+    // Packs every queued input_event into buffer, returning the count or -1 on device error
+    private native int pollBulk(long address, ByteBuffer buffer, int maxEvents);
+
+    // Uploads (or replaces, given an existing id) a rumble effect and plays it, returning its id or -1
+    private native int rumble(long address, int effectId, int strong, int weak, int durationMs);
+
+    private native void close(long address);
+}
@@ -0,0 +1,27 @@
+package com.boomaa.opends.usb;
+
+public interface EvdevFlags {
+    int EV_SYN = 0x00;
+    int EV_KEY = 0x01;
+    int EV_ABS = 0x03;
+    int EV_FF = 0x15;
+    int SYN_REPORT = 0;
+    int SYN_DROPPED = 3;
+    int ABS_X = 0x00;
+    int ABS_Y = 0x01;
+    int ABS_Z = 0x02;
+    int ABS_RX = 0x03;
+    int ABS_RY = 0x04;
+    int ABS_RZ = 0x05;
+    int ABS_HAT0X = 0x10;
+    int ABS_HAT3Y = 0x17;
+    int ABS_MISC = 0x28;
+    int ABS_CNT = 0x40;
+    int BTN_MISC = 0x100;
+    int BTN_JOYSTICK = 0x120;
+    int BTN_GAMEPAD = 0x130;
+    int BTN_DIGI = 0x140;
+    int KEY_CNT = 0x300;
+    int FF_RUMBLE = 0x50;
+    int FF_CNT = 0x80;
+}
@@ -1,15 +1,35 @@
 package com.boomaa.opends.usb;
 
+import com.boomaa.opends.util.LatencyHistogram;
 import com.boomaa.opends.util.OperatingSystem;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class HIDDevice {
     public static final int DEFAULT_AXIS_MAX = 6;
+    private static final Component.Axis[] AXES = Component.Axis.values();
+    private static final int RUMBLE_HOLD_MS = 500;
+    private static final long RUMBLE_REFRESH_NANOS = 250_000_000L;
     private final Controller<?> ctrl;
     private final ComponentTracker axesTracker;
     private final ComponentTracker buttonTracker;
+    private final ComponentTracker povTracker;
+    private final AxisShaping shaping;
+    private Component[] axisSlots = new Component[DEFAULT_AXIS_MAX];
+    private Component[] buttonSlots = new Component[0];
+    private Component[] povSlots = new Component[0];
+    private int axisSlotsVersion = -1;
+    private int buttonSlotsVersion = -1;
+    private int povSlotsVersion = -1;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long pendingChangeNanos;
+    private long pendingSequence;
+    private double rumbleLeft;
+    private double rumbleRight;
+    private long rumbleNanos;
     protected int idx;
     protected boolean disabled;
 
@@ -20,6 +40,8 @@ public class HIDDevice {
 
         this.axesTracker = ComponentTracker.fromFile(getAxesTrackerFilePath());
         this.buttonTracker = new ComponentTracker();
+        this.povTracker = new ComponentTracker();
+        this.shaping = AxisShaping.fromFile(getAxisShapingFilePath());
         List<? extends Component> comps = ctrl.getComponents();
         for (int i = 0; i < comps.size(); i++) {
             Component comp = comps.get(i);
@@ -28,6 +50,8 @@ public class HIDDevice {
                 axesTracker.track(id, i);
             } else if (comp.isButton()) {
                 buttonTracker.track(id, i);
+            } else if (comp.isPOV()) {
+                povTracker.track(id, i);
             }
         }
 
@@ -38,12 +62,46 @@ public class HIDDevice {
                 .map(Component.Axis.RY, Component.Axis.RY, false)
                 .map(Component.Axis.RZ, Component.Axis.Z, false);
         buttonTracker.mapAllSelf(Component.Button.values());
+        povTracker.mapAllSelf(Component.Pov.values());
     }
 
     public void update() {
         ctrl.poll();
     }
 
+    // Earliest input change that no latched frame has carried yet, 0 if there is none
+    long pendingChange(long frameSequence, long latchedSequence) {
+        if (pendingChangeNanos != 0 && latchedSequence >= pendingSequence) {
+            pendingChangeNanos = 0;
+        }
+        long change = ctrl.takeChangeNanos();
+        if (change != 0 && pendingChangeNanos == 0) {
+            pendingChangeNanos = change;
+            pendingSequence = frameSequence;
+        }
+        return pendingChangeNanos;
+    }
+
+    // Robot outputs arrive every packet, so the device is only written when the values change
+    // or the running effect is about to lapse; a silent robot lets the rumble time out
+    public void setRumble(double left, double right) {
+        if (!ctrl.hasRumble()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (left != rumbleLeft || right != rumbleRight || now - rumbleNanos > RUMBLE_REFRESH_NANOS) {
+            rumbleLeft = left;
+            rumbleRight = right;
+            rumbleNanos = now;
+            ctrl.rumble(left, right, RUMBLE_HOLD_MS);
+        }
+    }
+
+    // Input event to outgoing packet time for this device
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
     public Component getComponent(int compIdx) {
         try {
             return ctrl.getComponents().get(compIdx);
@@ -53,7 +111,9 @@ public class HIDDevice {
     }
 
     public Component getComponent(Component.Identifier id) {
-        return getComponent(id instanceof Component.Axis ? axesTracker.getIndex(id) : buttonTracker.getIndex(id));
+        ComponentTracker tracker = id instanceof Component.Axis ? axesTracker
+            : id instanceof Component.Pov ? povTracker : buttonTracker;
+        return getComponent(tracker.getIndex(id));
     }
 
     public ComponentTracker getButtonTracker() {
@@ -61,15 +121,73 @@ public class HIDDevice {
     }
 
     public boolean[] getButtons() {
-        List<? extends Component> comps = ctrl.getComponents();
-        boolean[] buttons = new boolean[usedNumButtons()];
-        int btnIdx = 0;
-        for (Integer compIdx : buttonTracker.getDirectMap().values()) {
-            buttons[btnIdx++] = comps.get(compIdx).getValue() == 1;
-        }
+        boolean[] buttons = new boolean[getButtonSlots().length];
+        getButtons(buttons);
         return buttons;
     }
 
+    // Fills out with the mapped buttons in user order and returns how many were written
+    public int getButtons(boolean[] out) {
+        Component[] slots = getButtonSlots();
+        int count = Math.min(slots.length, out.length);
+        for (int i = 0; i < count; i++) {
+            out[i] = slots[i] != null && slots[i].getValue() == 1;
+        }
+        return count;
+    }
+
+    // Component mapped to the i-th user axis (X, Y, Z, RX, RY, RZ), or null when unmapped
+    public Component getAxisSlot(int axisIdx) {
+        int version = axesTracker.getVersion();
+        if (axisSlotsVersion != version) {
+            Component[] slots = new Component[DEFAULT_AXIS_MAX];
+            Map<Component.Identifier, Integer> directMap = axesTracker.getDirectMap();
+            for (int i = 0; i < DEFAULT_AXIS_MAX; i++) {
+                Integer compIdx = directMap.get(AXES[i]);
+                slots[i] = compIdx != null ? getComponent(compIdx) : null;
+            }
+            axisSlots = slots;
+            axisSlotsVersion = version;
+        }
+        return axisSlots[axisIdx];
+    }
+
+    // Mapped buttons in user order, resolved once per mapping change
+    private Component[] getButtonSlots() {
+        int version = buttonTracker.getVersion();
+        if (buttonSlotsVersion != version) {
+            Collection<Integer> compIdxs = buttonTracker.getDirectMap().values();
+            Component[] slots = new Component[compIdxs.size()];
+            int btnIdx = 0;
+            for (Integer compIdx : compIdxs) {
+                slots[btnIdx++] = compIdx != null ? getComponent(compIdx) : null;
+            }
+            buttonSlots = slots;
+            buttonSlotsVersion = version;
+        }
+        return buttonSlots;
+    }
+
+    // Fills out with each mapped hat's angle in degrees, -1 when centered, and returns how many were written
+    public int getPovs(int[] out) {
+        int version = povTracker.getVersion();
+        if (povSlotsVersion != version) {
+            Collection<Integer> compIdxs = povTracker.getDirectMap().values();
+            Component[] slots = new Component[compIdxs.size()];
+            int povIdx = 0;
+            for (Integer compIdx : compIdxs) {
+                slots[povIdx++] = compIdx != null ? getComponent(compIdx) : null;
+            }
+            povSlots = slots;
+            povSlotsVersion = version;
+        }
+        int count = Math.min(povSlots.length, out.length);
+        for (int i = 0; i < count; i++) {
+            out[i] = povSlots[i] != null ? (int) povSlots[i].provideValue() : -1;
+        }
+        return count;
+    }
+
     public void setIdx(int index) {
         IndexTracker.unregister(idx);
         IndexTracker.register(index);
@@ -84,6 +202,14 @@ public class HIDDevice {
         return buttonTracker.numMapped();
     }
 
+    public int usedNumPovs() {
+        return povTracker.numMapped();
+    }
+
+    public ComponentTracker getPovTracker() {
+        return povTracker;
+    }
+
     public int deviceNumButtons() {
         return ctrl.getNumButtons();
     }
@@ -99,6 +225,17 @@ public class HIDDevice {
                 + ".conf";
     }
 
+    public AxisShaping getShaping() {
+        return shaping;
+    }
+
+    public String getAxisShapingFilePath() {
+        return OperatingSystem.getTempFolder()
+                + "ods-axisshaping-"
+                + getName().replaceAll("[^a-zA-Z0-9]", "")
+                + ".conf";
+    }
+
     public double getAxis(Component.Identifier id) {
         Component comp = getComponent(id);
         return comp == null ? Integer.MAX_VALUE : comp.getValue();
@@ -0,0 +1,102 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Set;
+
+// Hotplug for the Linux managers: a /dev/input node with the given prefix appearing or
+// disappearing re-runs ControlDevices.hotplug(). udev creates a node before fixing its
+// permissions, so modify/attribute changes retry nodes that aren't settled yet. Settled
+// nodes (open, or known not to be joysticks) see writes such as rumble and keyboard LEDs
+// that also raise modify events, and those are ignored.
+public class InputDirWatcher {
+    public static final Path INPUT_DIR = Paths.get("/dev/input/");
+    private static volatile boolean watching;
+    private final String prefix;
+    private volatile Set<Integer> settled = Collections.emptySet();
+    private WatchService watcher;
+
+    public InputDirWatcher(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public void start() {
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            INPUT_DIR.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            Debug.println("Joystick hotplug unavailable, falling back to polling: " + e.getMessage(), EventSeverity.WARNING);
+            return;
+        }
+        Thread thread = new Thread(this::watchLoop, "opends-" + prefix + "hotplug");
+        thread.setDaemon(true);
+        thread.start();
+        watching = true;
+    }
+
+    // True once device changes are delivered by a watcher, so nothing needs to poll for them
+    public static boolean isWatching() {
+        return watching;
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= isRelevant(event);
+                }
+                if (changed) {
+                    ControlDevices.hotplug();
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        }
+        watching = false;
+    }
+
+    private boolean isRelevant(WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            return true;
+        }
+        int idx = parseIndex((Path) event.context(), prefix);
+        if (idx == -1) {
+            return false;
+        }
+        return event.kind() != StandardWatchEventKinds.ENTRY_MODIFY || !settled.contains(idx);
+    }
+
+    // Node numbers the manager has open or has rejected, replaced after each enumeration
+    public void setSettled(Set<Integer> nodes) {
+        this.settled = nodes;
+    }
+
+    // Number after prefix in a node name like js0 or event12, -1 for anything else
+    public static int parseIndex(Path node, String prefix) {
+        String name = node.getFileName().toString();
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.NumberUtils;
+
+import java.util.Arrays;
+
+// One coherent capture of every joystick, indexed by FRC slot. Frames are preallocated
+// and recycled by InputThread, so a reader may only use the frame it last latched.
+public class InputFrame {
+    public static final int MAX_BUTTONS = Component.Button.values().length;
+    public static final int MAX_POVS = Component.Pov.values().length;
+    private final boolean[] present = new boolean[IndexTracker.MAX_JS_NUM];
+    private final double[][] axes = new double[IndexTracker.MAX_JS_NUM][HIDDevice.DEFAULT_AXIS_MAX];
+    private final int[][] encodedAxes = new int[IndexTracker.MAX_JS_NUM][HIDDevice.DEFAULT_AXIS_MAX];
+    private final boolean[][] buttons = new boolean[IndexTracker.MAX_JS_NUM][MAX_BUTTONS];
+    private final int[] numButtons = new int[IndexTracker.MAX_JS_NUM];
+    private final int[][] povs = new int[IndexTracker.MAX_JS_NUM][MAX_POVS];
+    private final int[] numPovs = new int[IndexTracker.MAX_JS_NUM];
+    private final long[] changeNanos = new long[IndexTracker.MAX_JS_NUM];
+    private final HIDDevice[] devices = new HIDDevice[IndexTracker.MAX_JS_NUM];
+    private volatile long sequence;
+    private long captureNanos;
+    private int slotCount = 1;
+
+    void begin(long sequence) {
+        Arrays.fill(present, false);
+        Arrays.fill(devices, null);
+        this.captureNanos = System.nanoTime();
+        this.sequence = sequence;
+        this.slotCount = IndexTracker.MAX_JS_INDEX + 1;
+    }
+
+    void capture(HIDDevice device, long latchedSequence) {
+        int slot = device.getIdx();
+        if (slot < 0 || slot >= IndexTracker.MAX_JS_NUM || device.isDisabled()) {
+            return;
+        }
+        present[slot] = true;
+        devices[slot] = device;
+        changeNanos[slot] = device.pendingChange(sequence, latchedSequence);
+        for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
+            Component comp = device.getAxisSlot(i);
+            axes[slot][i] = comp != null ? comp.getValue() : 0;
+            encodedAxes[slot][i] = device.getShaping().encode(i, axes[slot][i]);
+        }
+        numButtons[slot] = device.getButtons(buttons[slot]);
+        numPovs[slot] = device.getPovs(povs[slot]);
+    }
+
+    // Sets a slot from already encoded values, as read back from a recording
+    void load(int slot, int[] axisValues, int buttonBits, int buttonCount, int[] povValues, int povCount) {
+        present[slot] = true;
+        devices[slot] = null;
+        changeNanos[slot] = 0;
+        for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
+            encodedAxes[slot][i] = axisValues[i];
+            axes[slot][i] = axisValues[i] / (axisValues[i] < 0 ? 128.0 : 127.0);
+        }
+        numButtons[slot] = Math.min(buttonCount, MAX_BUTTONS);
+        for (int i = 0; i < numButtons[slot]; i++) {
+            buttons[slot][i] = (buttonBits & (1 << i)) != 0;
+        }
+        numPovs[slot] = Math.min(povCount, MAX_POVS);
+        System.arraycopy(povValues, 0, povs[slot], 0, numPovs[slot]);
+    }
+
+    void unload(int slot) {
+        present[slot] = false;
+        devices[slot] = null;
+    }
+
+    void setSlotCount(int slotCount) {
+        this.slotCount = slotCount;
+    }
+
+    public boolean isPresent(int slot) {
+        return slot >= 0 && slot < IndexTracker.MAX_JS_NUM && present[slot];
+    }
+
+    public double getAxis(int slot, int axisIdx) {
+        return axes[slot][axisIdx];
+    }
+
+    // Axis as sent to the robot, from -128 to 127
+    public int getEncodedAxis(int slot, int axisIdx) {
+        return encodedAxes[slot][axisIdx];
+    }
+
+    public boolean getButton(int slot, int btnIdx) {
+        return buttons[slot][btnIdx];
+    }
+
+    public int getNumButtons(int slot) {
+        return numButtons[slot];
+    }
+
+    // Button i in bit i
+    public int getButtonBits(int slot) {
+        int bits = 0;
+        for (int i = 0; i < numButtons[slot]; i++) {
+            if (buttons[slot][i]) {
+                bits |= 1 << i;
+            }
+        }
+        return bits;
+    }
+
+    public int getNumPovs(int slot) {
+        return numPovs[slot];
+    }
+
+    // Hat angle in degrees, -1 when centered
+    public int getPov(int slot, int povIdx) {
+        return povs[slot][povIdx];
+    }
+
+    public byte[] packButtons(int slot) {
+        return NumberUtils.packBools(buttons[slot], numButtons[slot]);
+    }
+
+    public HIDDevice getDevice(int slot) {
+        return devices[slot];
+    }
+
+    public long getChangeNanos(int slot) {
+        return changeNanos[slot];
+    }
+
+    // Joystick slots sent per packet, through the highest one in use
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+}
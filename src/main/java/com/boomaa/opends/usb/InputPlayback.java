@@ -0,0 +1,132 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Sends a .dsinput recording in place of live joysticks. Cycles are applied by send time
+// rather than one per packet, so a late or early packet never shifts the rest of the run
+// by more than a cycle. Playback pauses while disabled and hands back to the live sticks
+// when the recording ends.
+public class InputPlayback {
+    private static final InputFrame frame = new InputFrame();
+    private static final int[][] axes = new int[IndexTracker.MAX_JS_NUM][HIDDevice.DEFAULT_AXIS_MAX];
+    private static final int[] buttons = new int[IndexTracker.MAX_JS_NUM];
+    private static final int[] numButtons = new int[IndexTracker.MAX_JS_NUM];
+    private static final int[][] povs = new int[IndexTracker.MAX_JS_NUM][InputFrame.MAX_POVS];
+    private static final int[] numPovs = new int[IndexTracker.MAX_JS_NUM];
+    private static byte[] data;
+    private static int pos;
+    private static int version;
+    private static long nextTimeMs;
+    private static long startNanos;
+    private static boolean started;
+    private static volatile boolean active;
+
+    private InputPlayback() {
+    }
+
+    public static synchronized void load(Path path) throws IOException {
+        byte[] in = Files.readAllBytes(path);
+        int header = InputRecorder.MAGIC.length + 1;
+        if (in.length < header || !Arrays.equals(Arrays.copyOf(in, InputRecorder.MAGIC.length), InputRecorder.MAGIC)) {
+            throw new IOException("not a joystick recording");
+        }
+        // Version 1 recordings predate hats and have none
+        if (in[header - 1] < 1 || in[header - 1] > InputRecorder.FORMAT_VERSION) {
+            throw new IOException("unsupported recording version " + in[header - 1]);
+        }
+        data = in;
+        version = in[header - 1];
+        pos = header;
+        nextTimeMs = 0;
+        started = false;
+        active = pos < data.length;
+        if (active) {
+            nextTimeMs = readVarint();
+        }
+    }
+
+    public static boolean isActive() {
+        return active;
+    }
+
+    // Called by InputThread.latch() in place of latching a live frame
+    static synchronized InputFrame next(long sendNanos) {
+        if (!started) {
+            startNanos = sendNanos;
+            started = true;
+        }
+        long elapsedMs = (sendNanos - startNanos) / 1_000_000;
+        try {
+            while (active && nextTimeMs <= elapsedMs) {
+                applyCycle();
+                if (pos < data.length) {
+                    nextTimeMs += readVarint();
+                } else {
+                    finish("Joystick playback finished", EventSeverity.INFO);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            finish("Joystick recording is truncated, playback stopped", EventSeverity.WARNING);
+        }
+        return frame;
+    }
+
+    private static void finish(String msg, EventSeverity severity) {
+        active = false;
+        data = null;
+        Debug.println(msg, severity, false, true);
+    }
+
+    private static void applyCycle() {
+        int changed = data[pos++] & 0xFF;
+        if (changed == 0) {
+            return;
+        }
+        if ((changed & InputRecorder.SLOT_COUNT_FLAG) != 0) {
+            frame.setSlotCount(data[pos++]);
+        }
+        int present = data[pos++];
+        for (int slot = 0; slot < IndexTracker.MAX_JS_NUM; slot++) {
+            if ((changed & (1 << slot)) == 0) {
+                continue;
+            }
+            if ((present & (1 << slot)) == 0) {
+                frame.unload(slot);
+                continue;
+            }
+            int axisMask = data[pos++];
+            for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
+                if ((axisMask & (1 << i)) != 0) {
+                    axes[slot][i] = data[pos++];
+                }
+            }
+            numButtons[slot] = data[pos++];
+            buttons[slot] = (int) readVarint();
+            if (version >= 2) {
+                numPovs[slot] = data[pos++];
+                for (int i = 0; i < numPovs[slot]; i++) {
+                    povs[slot][i] = (int) readVarint() - 1;
+                }
+            }
+            frame.load(slot, axes[slot], buttons[slot], numButtons[slot], povs[slot], numPovs[slot]);
+        }
+    }
+
+    private static long readVarint() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,248 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.DSLog;
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Writes every latched joystick frame to a .dsinput file. Each cycle is delta encoded
+// against the one before it, so idle sticks cost two bytes per packet:
+//   varint   milliseconds of send time since the previous cycle
+//   byte     slots that changed, SLOT_COUNT_FLAG if a slot count follows
+//   (if either is set) [byte slot count] byte present slots
+//   per changed, present slot: byte changed axes, their int8 values, byte button count, varint button bits,
+//                              byte hat count, varint angle + 1 per hat
+// Cycles are encoded into preallocated chunks that a writer thread drains, so recording
+// never allocates on the send path. If the writer falls behind, cycles are dropped and
+// the next one is written in full.
+public class InputRecorder {
+    static final byte[] MAGIC = new byte[] { 'O', 'D', 'S', 'J', 'O', 'Y' };
+    static final int FORMAT_VERSION = 2;
+    static final int SLOT_COUNT_FLAG = 0x80;
+    static final int ALL_SLOTS = (1 << IndexTracker.MAX_JS_NUM) - 1;
+    static final int ALL_AXES = (1 << HIDDevice.DEFAULT_AXIS_MAX) - 1;
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM_dd HH_mm_ss EEE");
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int CHUNK_COUNT = 8;
+    private static final int MAX_CYCLE_LENGTH = 10 + 3
+        + IndexTracker.MAX_JS_NUM * (1 + HIDDevice.DEFAULT_AXIS_MAX + 1 + 5 + 1 + InputFrame.MAX_POVS * 2);
+    private static final long FLUSH_NANOS = 1_000_000_000L;
+    private static final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNK_COUNT);
+    private static final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(CHUNK_COUNT + 1);
+    private static final Chunk END = new Chunk(0);
+    private static final boolean[] lastPresent = new boolean[IndexTracker.MAX_JS_NUM];
+    private static final int[][] lastAxes = new int[IndexTracker.MAX_JS_NUM][HIDDevice.DEFAULT_AXIS_MAX];
+    private static final int[] lastButtons = new int[IndexTracker.MAX_JS_NUM];
+    private static final int[] lastNumButtons = new int[IndexTracker.MAX_JS_NUM];
+    private static final int[][] lastPovs = new int[IndexTracker.MAX_JS_NUM][InputFrame.MAX_POVS];
+    private static final int[] lastNumPovs = new int[IndexTracker.MAX_JS_NUM];
+    private static int lastSlotCount;
+    private static long lastTimeMs = -1;
+    private static boolean keyframe = true;
+    private static Chunk chunk;
+    private static long chunkNanos;
+    private static long dropped;
+    private static Thread writer;
+    private static String filepath;
+
+    private InputRecorder() {
+    }
+
+    public static synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        filepath = DSLog.getLogFolder() + LocalDateTime.now().format(TS_FORMAT) + ".dsinput";
+        OutputStream out;
+        try {
+            out = new FileOutputStream(filepath);
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+        } catch (IOException e) {
+            Debug.println("Could not start joystick recording: " + e.getMessage(), EventSeverity.ERROR, false, true);
+            return;
+        }
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            free.offer(new Chunk(CHUNK_SIZE));
+        }
+        writer = new Thread(() -> writeLoop(out), "opends-jsrecorder");
+        writer.setDaemon(true);
+        writer.start();
+        Debug.println("Recording joystick input to " + filepath, EventSeverity.INFO, false, true);
+    }
+
+    public static void stop() {
+        Thread thread;
+        synchronized (InputRecorder.class) {
+            if (writer == null) {
+                return;
+            }
+            handOff();
+            full.offer(END);
+            thread = writer;
+            writer = null;
+        }
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped > 0) {
+            Debug.println("Joystick recording dropped " + dropped + " cycles", EventSeverity.WARNING, false, true);
+        }
+    }
+
+    public static boolean isRecording() {
+        return writer != null;
+    }
+
+    // Called by InputThread.latch() with the frame going out in this packet
+    static synchronized void record(InputFrame frame, long sendNanos) {
+        if (writer == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (chunk != null && (chunk.length + MAX_CYCLE_LENGTH > CHUNK_SIZE || now - chunkNanos > FLUSH_NANOS)) {
+            handOff();
+        }
+        if (chunk == null) {
+            chunk = free.poll();
+            chunkNanos = now;
+            if (chunk == null) {
+                dropped++;
+                keyframe = true;
+                return;
+            }
+        }
+        long timeMs = sendNanos / 1_000_000;
+        if (lastTimeMs == -1) {
+            lastTimeMs = timeMs;
+        }
+        byte[] buf = chunk.data;
+        int pos = putVarint(buf, chunk.length, timeMs - lastTimeMs);
+        lastTimeMs = timeMs;
+
+        int changed = keyframe ? ALL_SLOTS : 0;
+        int presentMask = 0;
+        for (int slot = 0; slot < IndexTracker.MAX_JS_NUM; slot++) {
+            boolean present = frame.isPresent(slot);
+            if (present) {
+                presentMask |= 1 << slot;
+            }
+            if (present != lastPresent[slot] || (present && slotChanged(frame, slot))) {
+                changed |= 1 << slot;
+            }
+        }
+        boolean slotCountChanged = keyframe || frame.getSlotCount() != lastSlotCount;
+        buf[pos++] = (byte) (changed | (slotCountChanged ? SLOT_COUNT_FLAG : 0));
+        if (changed != 0 || slotCountChanged) {
+            if (slotCountChanged) {
+                buf[pos++] = (byte) frame.getSlotCount();
+                lastSlotCount = frame.getSlotCount();
+            }
+            buf[pos++] = (byte) presentMask;
+        }
+        for (int slot = 0; slot < IndexTracker.MAX_JS_NUM; slot++) {
+            lastPresent[slot] = frame.isPresent(slot);
+            if ((changed & (1 << slot)) == 0 || !lastPresent[slot]) {
+                continue;
+            }
+            int axisMask = keyframe ? ALL_AXES : 0;
+            for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
+                if (frame.getEncodedAxis(slot, i) != lastAxes[slot][i]) {
+                    axisMask |= 1 << i;
+                }
+            }
+            buf[pos++] = (byte) axisMask;
+            for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
+                if ((axisMask & (1 << i)) != 0) {
+                    lastAxes[slot][i] = frame.getEncodedAxis(slot, i);
+                    buf[pos++] = (byte) lastAxes[slot][i];
+                }
+            }
+            lastNumButtons[slot] = frame.getNumButtons(slot);
+            lastButtons[slot] = frame.getButtonBits(slot);
+            buf[pos++] = (byte) lastNumButtons[slot];
+            pos = putVarint(buf, pos, lastButtons[slot] & 0xFFFFFFFFL);
+            lastNumPovs[slot] = frame.getNumPovs(slot);
+            buf[pos++] = (byte) lastNumPovs[slot];
+            for (int i = 0; i < lastNumPovs[slot]; i++) {
+                lastPovs[slot][i] = frame.getPov(slot, i);
+                pos = putVarint(buf, pos, lastPovs[slot][i] + 1);
+            }
+        }
+        chunk.length = pos;
+        keyframe = false;
+    }
+
+    private static boolean slotChanged(InputFrame frame, int slot) {
+        for (int i = 0; i < HIDDevice.DEFAULT_AXIS_MAX; i++) {
+            if (frame.getEncodedAxis(slot, i) != lastAxes[slot][i]) {
+                return true;
+            }
+        }
+        if (frame.getNumPovs(slot) != lastNumPovs[slot]) {
+            return true;
+        }
+        for (int i = 0; i < lastNumPovs[slot]; i++) {
+            if (frame.getPov(slot, i) != lastPovs[slot][i]) {
+                return true;
+            }
+        }
+        return frame.getNumButtons(slot) != lastNumButtons[slot] || frame.getButtonBits(slot) != lastButtons[slot];
+    }
+
+    private static void handOff() {
+        if (chunk != null) {
+            full.offer(chunk);
+            chunk = null;
+        }
+    }
+
+    private static int putVarint(byte[] buf, int pos, long value) {
+        while (value >= 0x80) {
+            buf[pos++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static void writeLoop(OutputStream out) {
+        try {
+            while (true) {
+                Chunk next = full.take();
+                if (next == END) {
+                    break;
+                }
+                out.write(next.data, 0, next.length);
+                next.length = 0;
+                free.offer(next);
+            }
+        } catch (IOException e) {
+            Debug.println("Joystick recording failed: " + e.getMessage(), EventSeverity.ERROR, false, true);
+        } catch (InterruptedException ignored) {
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static class Chunk {
+        private final byte[] data;
+        private int length;
+
+        private Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
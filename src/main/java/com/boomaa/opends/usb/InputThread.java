@@ -0,0 +1,114 @@
+package com.boomaa.opends.usb;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// The only thread that polls joystick hardware. Each pass fills the back frame and swaps
+// it into the ready slot; the packet creator swaps its front frame for the ready one when
+// it latches. With three frames neither side ever waits on or tears the other's frame.
+public class InputThread {
+    private static final long POLL_MS = 5;
+    private static final long SEND_GAP_NANOS = 1_000_000_000L;
+    private static final AtomicReference<InputFrame> ready = new AtomicReference<>(new InputFrame());
+    private static InputFrame back = new InputFrame();
+    private static InputFrame front = new InputFrame();
+    private static volatile InputFrame latched = front;
+    private static final long[] recordedChange = new long[IndexTracker.MAX_JS_NUM];
+    private static volatile long latchedSequence;
+    private static long lastLatchNanos;
+    private static long lastSendNanos;
+    private static long sendIntervalNanos;
+    private static long sendClockNanos;
+    private static int sendSlot;
+    private static Thread thread;
+    private static volatile boolean running;
+
+    private InputThread() {
+    }
+
+    public static synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(InputThread::pollLoop, "opends-input");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY - 1);
+        thread.start();
+    }
+
+    public static synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    // Called once per outgoing packet, before any joystick tags are built
+    public static InputFrame latch() {
+        long now = System.nanoTime();
+        advanceSendClock(now);
+        if (InputPlayback.isActive()) {
+            latched = InputPlayback.next(sendClockNanos);
+        } else {
+            if (ready.get().getSequence() > front.getSequence()) {
+                front = ready.getAndSet(front);
+                recordLatency(front, now, now - lastLatchNanos < SEND_GAP_NANOS);
+                lastLatchNanos = now;
+                latchedSequence = front.getSequence();
+            }
+            latched = front;
+        }
+        InputRecorder.record(latched, sendClockNanos);
+        sendSlot = 0;
+        return latched;
+    }
+
+    // Slot for the next joystick tag of the packet being built, on the sending thread only
+    public static int nextSendSlot() {
+        int slot = sendSlot;
+        sendSlot = (slot + 1) % latched.getSlotCount();
+        return slot;
+    }
+
+    // Time spent sending, which stops while disabled. A gap counts as one more packet
+    // interval so recordings and playback carry on from where they paused.
+    private static void advanceSendClock(long now) {
+        long interval = now - lastSendNanos;
+        if (lastSendNanos != 0 && interval < SEND_GAP_NANOS) {
+            sendIntervalNanos = interval;
+        }
+        sendClockNanos += sendIntervalNanos;
+        lastSendNanos = now;
+    }
+
+    // A change stays pending across frames until one is latched, so each is timed exactly once.
+    // Changes held over from while no packets were going out (disabled) are not counted.
+    private static void recordLatency(InputFrame frame, long sendNanos, boolean sending) {
+        for (int slot = 0; slot < IndexTracker.MAX_JS_NUM; slot++) {
+            long change = frame.isPresent(slot) ? frame.getChangeNanos(slot) : 0;
+            if (sending && change != 0 && change != recordedChange[slot]) {
+                frame.getDevice(slot).getLatency().record(sendNanos - change);
+            }
+            recordedChange[slot] = change;
+        }
+    }
+
+    public static InputFrame getLatched() {
+        return latched;
+    }
+
+    private static void pollLoop() {
+        long sequence = 0;
+        while (running) {
+            back.begin(++sequence);
+            ControlDevices.capture(back, latchedSequence);
+            back = ready.getAndSet(back);
+            try {
+                Thread.sleep(POLL_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+}
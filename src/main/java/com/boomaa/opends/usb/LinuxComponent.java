@@ -2,14 +2,16 @@ package com.boomaa.opends.usb;
 
 public class LinuxComponent implements Component {
     private final Identifier componentId;
+    private final double[] state;
     private final byte type;
     private final int number;
-    private double value;
+    private final boolean pov;
 
-    public LinuxComponent(LinuxJSEvent event) {
-        this.type = event.getType();
-        this.number = event.getNumber();
-        this.value = event.getValue();
+    public LinuxComponent(LinuxController ctrl, byte type, int number) {
+        this.pov = false;
+        this.type = type;
+        this.number = number;
+        this.state = isButton() ? ctrl.getButtonState() : ctrl.getAxisState();
         Identifier tempId = isButton()
             ? Component.Button.values()[number]
             : Component.Axis.values()[number];
@@ -22,8 +24,12 @@ public class LinuxComponent implements Component {
         this.componentId = tempId;
     }
 
-    public void setValue(double value) {
-        this.value = value;
+    public LinuxComponent(LinuxController ctrl, int hat) {
+        this.pov = true;
+        this.type = LinuxFlags.JS_EVENT_AXIS;
+        this.number = hat;
+        this.state = ctrl.getPovState();
+        this.componentId = Component.Pov.values()[hat];
     }
 
     public byte getType() {
@@ -41,7 +47,7 @@ public class LinuxComponent implements Component {
 
     @Override
     public double provideValue() {
-        return value;
+        return state[number];
     }
 
     @Override
@@ -51,6 +57,11 @@ public class LinuxComponent implements Component {
 
     @Override
     public boolean isAxis() {
-        return (type & LinuxFlags.JS_EVENT_AXIS) != 0;
+        return (type & LinuxFlags.JS_EVENT_AXIS) != 0 && !pov;
+    }
+
+    @Override
+    public boolean isPOV() {
+        return pov;
     }
 }
@@ -1,25 +1,89 @@
 package com.boomaa.opends.usb;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 public class LinuxController extends Controller<LinuxComponent> {
+    // struct js_event is { u32 time; s16 value; u8 type; u8 number; } in native byte order
+    private static final int EVENT_SIZE = 8;
+    private static final int EVENT_TIME = 0;
+    private static final int EVENT_VALUE = 4;
+    private static final int EVENT_TYPE = 6;
+    private static final int EVENT_NUMBER = 7;
+    private static final int MAX_EVENTS = 256;
+    private static final int MAX_NUMBER = 256;
+    private static final int MAX_HATS = Component.Pov.values().length;
+    private static boolean bulkSupported = true;
+    private static boolean axisMapSupported = true;
+    private final ByteBuffer events = ByteBuffer.allocateDirect(EVENT_SIZE * MAX_EVENTS).order(ByteOrder.nativeOrder());
+    private final double[] axisState = new double[MAX_NUMBER];
+    private final double[] buttonState = new double[MAX_NUMBER];
+    private final boolean[] axisTracked = new boolean[MAX_NUMBER];
+    private final boolean[] buttonTracked = new boolean[MAX_NUMBER];
+    private final int[] axisHat = new int[MAX_NUMBER];
+    private final int[] hatX = new int[MAX_HATS];
+    private final int[] hatY = new int[MAX_HATS];
+    private final double[] povState = new double[MAX_HATS];
+    private final boolean[] povTracked = new boolean[MAX_HATS];
     private final long address;
     private final int idx;
     private final String name;
+    private volatile boolean closed;
+    private int clockOffsetMs;
+    private boolean clockCalibrated;
 
     public LinuxController(int idx) {
         this.address = open(idx);
         this.idx = idx;
+        if (address < 0) {
+            this.name = "Unknown";
+            this.closed = true;
+            return;
+        }
         this.name = getName(address);
         this.numAxes = getNumAxes(address);
         this.numButtons = getNumButtons(address);
+        Arrays.fill(axisHat, -1);
+        Arrays.fill(povState, -1);
+        mapHatAxes();
         poll();
     }
 
+    // joydev reports each hat as an x and a y axis, the axis map says which ones they are
+    private void mapHatAxes() {
+        if (!axisMapSupported) {
+            return;
+        }
+        byte[] axisCodes = new byte[EvdevFlags.ABS_CNT];
+        try {
+            if (getAxisMap(address, axisCodes) < 0) {
+                return;
+            }
+        } catch (UnsatisfiedLinkError e) {
+            // native library built before getAxisMap existed
+            axisMapSupported = false;
+            return;
+        }
+        int axes = Math.min(numAxes, axisCodes.length);
+        for (int number = 0; number < axes; number++) {
+            int code = axisCodes[number] & 0xFF;
+            if (code >= EvdevFlags.ABS_HAT0X && code <= EvdevFlags.ABS_HAT3Y) {
+                axisHat[number] = code - EvdevFlags.ABS_HAT0X;
+                numAxes--;
+            }
+        }
+    }
+
     private native long open(int idx);
 
     private native int getNumAxes(long address);
 
     private native int getNumButtons(long address);
 
+    // Fills map with the ABS_* code of each joystick axis number, returning -1 on failure
+    private native int getAxisMap(long address, byte[] map);
+
     public int getIndex() {
         return idx;
     }
@@ -32,33 +96,121 @@ public class LinuxController extends Controller<LinuxComponent> {
 
     private native LinuxJSEvent poll(long address);
 
+    // Reads every queued js_event into buffer in one read(), returning the count or -1 on device error
+    private native int pollBulk(long address, ByteBuffer buffer, int maxEvents);
+
+    // Serialized with close() so a recycled fd is never read
     @Override
-    public void poll() {
+    public synchronized void poll() {
+        if (closed) {
+            return;
+        }
+        if (bulkSupported) {
+            try {
+                pollEvents();
+                return;
+            } catch (UnsatisfiedLinkError e) {
+                // native library built before pollBulk existed
+                bulkSupported = false;
+            }
+        }
+        pollLegacy();
+    }
+
+    private void pollEvents() {
+        int count;
+        do {
+            count = pollBulk(address, events, MAX_EVENTS);
+            long readNanos = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                int base = i * EVENT_SIZE;
+                apply(events.getShort(base + EVENT_VALUE), events.get(base + EVENT_TYPE),
+                    events.get(base + EVENT_NUMBER) & 0xFF, toNanoTime(events.getInt(base + EVENT_TIME), readNanos));
+            }
+        } while (count == MAX_EVENTS);
+        if (count < 0) {
+            super.remove();
+        }
+    }
+
+    private void pollLegacy() {
         LinuxJSEvent event;
         while ((event = poll(address)) != null && event.isValid()) {
-            if ((event.getType() & LinuxFlags.JS_EVENT_INIT) != 0) {
-                objects.add(new LinuxComponent(event));
-            } else {
-                boolean eventBtn = (event.getType() & LinuxFlags.JS_EVENT_BUTTON) != 0;
-                boolean eventAxis = (event.getType() & LinuxFlags.JS_EVENT_AXIS) != 0;
-                for (LinuxComponent comp : objects) {
-                    if (comp.getNumber() == event.getNumber()) {
-                        if (comp.isButton() && eventBtn) {
-                            comp.setValue(event.getValue());
-                            break;
-                        } else if (comp.isAxis() && eventAxis) {
-                            comp.setValue(event.getValue() / (double) Short.MAX_VALUE);
-                            break;
-                        }
-                    }
-                }
-            }
+            apply(event.getValue(), event.getType(), event.getNumber(), System.nanoTime());
         }
         if (event != null && !event.isValid()) {
             super.remove();
         }
     }
 
+    // js_event time is a wrapping millisecond jiffies count with no fixed relation to
+    // System.nanoTime(), so the offset is taken as the smallest read delay seen so far
+    private long toNanoTime(int eventMs, long readNanos) {
+        int offset = (int) (readNanos / 1_000_000) - eventMs;
+        if (!clockCalibrated || offset - clockOffsetMs < 0) {
+            clockOffsetMs = offset;
+            clockCalibrated = true;
+        }
+        return readNanos - (offset - clockOffsetMs) * 1_000_000L;
+    }
+
+    // State lives in arrays indexed by the hardware number, components only read from them
+    private void apply(int value, byte type, int number, long eventNanos) {
+        boolean init = (type & LinuxFlags.JS_EVENT_INIT) != 0;
+        if ((type & LinuxFlags.JS_EVENT_BUTTON) != 0) {
+            if (!init && buttonState[number] != value) {
+                markChanged(eventNanos);
+            }
+            buttonState[number] = value;
+            if (!buttonTracked[number]) {
+                buttonTracked[number] = true;
+                objects.add(new LinuxComponent(this, type, number));
+            }
+        } else if ((type & LinuxFlags.JS_EVENT_AXIS) != 0 && axisHat[number] != -1) {
+            applyHat(axisHat[number], value, init, eventNanos);
+        } else if ((type & LinuxFlags.JS_EVENT_AXIS) != 0) {
+            double scaled = value / (double) Short.MAX_VALUE;
+            if (!init && axisState[number] != scaled) {
+                markChanged(eventNanos);
+            }
+            axisState[number] = scaled;
+            if (!axisTracked[number]) {
+                axisTracked[number] = true;
+                objects.add(new LinuxComponent(this, type, number));
+            }
+        }
+    }
+
+    private void applyHat(int hatAxis, int value, boolean init, long eventNanos) {
+        int hat = hatAxis / 2;
+        if ((hatAxis & 1) == 0) {
+            hatX[hat] = Integer.signum(value);
+        } else {
+            hatY[hat] = Integer.signum(value);
+        }
+        double angle = Component.hatAngle(hatX[hat], hatY[hat]);
+        if (!init && povState[hat] != angle) {
+            markChanged(eventNanos);
+        }
+        povState[hat] = angle;
+        if (!povTracked[hat]) {
+            povTracked[hat] = true;
+            objects.add(new LinuxComponent(this, hat));
+        }
+    }
+
+    public double[] getAxisState() {
+        return axisState;
+    }
+
+    public double[] getButtonState() {
+        return buttonState;
+    }
+
+    public double[] getPovState() {
+        return povState;
+    }
+
     public long getAddress() {
         return address;
     }
@@ -70,5 +222,17 @@ public class LinuxController extends Controller<LinuxComponent> {
         return name;
     }
 
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            close(address);
+        }
+    }
+
     private native void close(long address);
 }
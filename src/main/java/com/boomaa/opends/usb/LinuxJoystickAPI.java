@@ -1,46 +1,58 @@
 package com.boomaa.opends.usb;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.LinkedList;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
 
 public class LinuxJoystickAPI extends NativeUSBManager<LinuxController> {
+    private final InputDirWatcher watcher = new InputDirWatcher("js");
+
     public LinuxJoystickAPI() {
         enumDevices();
+        watcher.start();
     }
 
+    // Only nodes without an open controller are opened, nodes that vanished are closed
     @Override
-    public void enumDevices() {
-        List<Integer> jsNums = new LinkedList<>();
-        try {
-            Object[] input = Files.list(Paths.get("/dev/input/")).toArray();
-            for (Object obj : input) {
-                String path = obj.toString();
-                if (path.contains("js")) {
-                    int idx = Integer.parseInt(path.substring(path.lastIndexOf("js") + 2));
+    public synchronized void enumDevices() {
+        Set<Integer> jsNums = new HashSet<>();
+        Set<Integer> open = new HashSet<>();
+        try (DirectoryStream<Path> nodes = Files.newDirectoryStream(InputDirWatcher.INPUT_DIR, "js*")) {
+            for (Path node : nodes) {
+                int idx = InputDirWatcher.parseIndex(node, "js");
+                if (idx == -1) {
+                    continue;
+                }
+                jsNums.add(idx);
+                if (findOpen(idx) == null) {
                     LinuxController ctrl = new LinuxController(idx);
-                    boolean inDevices = false;
-                    for (LinuxController c : devices) {
-                        if (c.getIndex() == idx && c.getName().equals(ctrl.getName())) {
-                            inDevices = true;
-                            break;
-                        }
-                    }
-                    if (!inDevices) {
+                    if (ctrl.isOpen()) {
                         devices.add(ctrl);
                     }
-                    jsNums.add(idx);
-                }
-            }
-            for (LinuxController c : devices) {
-                if (!jsNums.contains(c.getIndex())) {
-                    c.remove();
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        for (LinuxController c : devices) {
+            if (!jsNums.contains(c.getIndex())) {
+                c.remove();
+            } else if (!c.needsRemove()) {
+                open.add(c.getIndex());
+            }
+        }
+        watcher.setSettled(open);
+    }
+
+    private LinuxController findOpen(int idx) {
+        for (LinuxController c : devices) {
+            if (c.getIndex() == idx && !c.needsRemove()) {
+                return c;
+            }
+        }
+        return null;
     }
 }
@@ -1,7 +1,10 @@
 package com.boomaa.opends.usb;
 
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
 import com.boomaa.opends.util.NativeSystemError;
 import com.boomaa.opends.util.OperatingSystem;
+import com.boomaa.opends.util.Parameter;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -17,6 +20,9 @@ public abstract class NativeUSBManager<T extends Controller<?>> {
     }
 
     public void clearDevices() {
+        for (T ctrl : devices) {
+            ctrl.close();
+        }
         devices.clear();
     }
 
@@ -27,7 +33,7 @@ public abstract class NativeUSBManager<T extends Controller<?>> {
                     platformManager = new DirectInput();
                     break;
                 case UNIX:
-                    platformManager = new LinuxJoystickAPI();
+                    platformManager = Parameter.EVDEV.isPresent() ? createEvdev() : new LinuxJoystickAPI();
                     break;
                 case MACOS:
                     platformManager = new IOKit();
@@ -38,4 +44,14 @@ public abstract class NativeUSBManager<T extends Controller<?>> {
         }
         return platformManager;
     }
+
+    private static NativeUSBManager<?> createEvdev() {
+        try {
+            return new EvdevAPI();
+        } catch (UnsatisfiedLinkError e) {
+            Debug.println("evdev backend is missing from the native library, using the joystick API instead",
+                EventSeverity.WARNING, false, true);
+            return new LinuxJoystickAPI();
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.boomaa.opends.usb;
+
+public class VirtualComponent implements Component {
+    private final Identifier componentId;
+    private final double[] state;
+    private final int index;
+    private final boolean button;
+
+    public VirtualComponent(Identifier componentId, double[] state, int index, boolean button) {
+        this.componentId = componentId;
+        this.state = state;
+        this.index = index;
+        this.button = button;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Identifier getIdentitifer() {
+        return componentId;
+    }
+
+    @Override
+    public double provideValue() {
+        return state[index];
+    }
+
+    @Override
+    public boolean isButton() {
+        return button;
+    }
+
+    @Override
+    public boolean isAxis() {
+        return !button;
+    }
+}
@@ -0,0 +1,88 @@
+package com.boomaa.opends.usb;
+
+// Joystick whose inputs are set by a script or socket client rather than read from hardware.
+// Writers only touch the pending arrays; poll() publishes them so the input thread always
+// sees a whole update.
+public class VirtualController extends Controller<VirtualComponent> {
+    public static final int MAX_AXES = HIDDevice.DEFAULT_AXIS_MAX;
+    public static final int MAX_BUTTONS = Component.Button.values().length;
+    private final String name;
+    private final double[] axisState;
+    private final double[] buttonState;
+    private final double[] pendingAxes;
+    private final double[] pendingButtons;
+    private long pendingChangeNanos;
+
+    public VirtualController(String name, int axes, int buttons) {
+        this.name = name;
+        this.numAxes = Math.min(axes, MAX_AXES);
+        this.numButtons = Math.min(buttons, MAX_BUTTONS);
+        this.axisState = new double[numAxes];
+        this.buttonState = new double[numButtons];
+        this.pendingAxes = new double[numAxes];
+        this.pendingButtons = new double[numButtons];
+        for (int i = 0; i < numAxes; i++) {
+            objects.add(new VirtualComponent(axisId(i), axisState, i, false));
+        }
+        for (int i = 0; i < numButtons; i++) {
+            objects.add(new VirtualComponent(Component.Button.values()[i], buttonState, i, true));
+        }
+    }
+
+    // HIDDevice maps user Z to hardware RZ and back, so swap here to keep script axis n in slot n
+    private static Component.Identifier axisId(int idx) {
+        Component.Axis axis = Component.Axis.values()[idx];
+        if (axis == Component.Axis.Z) {
+            return Component.Axis.RZ;
+        } else if (axis == Component.Axis.RZ) {
+            return Component.Axis.Z;
+        }
+        return axis;
+    }
+
+    public boolean matches(String name, int axes, int buttons) {
+        return this.name.equals(name) && numAxes == Math.min(axes, MAX_AXES) && numButtons == Math.min(buttons, MAX_BUTTONS);
+    }
+
+    public synchronized void setAxis(int idx, double value) {
+        value = Math.max(-1, Math.min(1, value));
+        if (pendingAxes[idx] != value) {
+            pendingAxes[idx] = value;
+            noteChange();
+        }
+    }
+
+    public synchronized void setButton(int idx, boolean pressed) {
+        double value = pressed ? 1 : 0;
+        if (pendingButtons[idx] != value) {
+            pendingButtons[idx] = value;
+            noteChange();
+        }
+    }
+
+    private void noteChange() {
+        if (pendingChangeNanos == 0) {
+            pendingChangeNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public synchronized void poll() {
+        System.arraycopy(pendingAxes, 0, axisState, 0, numAxes);
+        System.arraycopy(pendingButtons, 0, buttonState, 0, numButtons);
+        if (pendingChangeNanos != 0) {
+            markChanged(pendingChangeNanos);
+            pendingChangeNanos = 0;
+        }
+    }
+
+    @Override
+    public Type getType() {
+        return Type.HID_JOYSTICK;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,125 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+import com.boomaa.opends.util.Parameter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Joysticks fed from a --virtual-js script file or from clients of a loopback socket on
+// --virtual-js-port, listed next to the platform manager's devices by ControlDevices
+public class VirtualDevices {
+    private static final List<VirtualController> devices = new CopyOnWriteArrayList<>();
+
+    private VirtualDevices() {
+    }
+
+    public static void init() {
+        if (Parameter.VIRTUAL_JS.isPresent()) {
+            Path script = Paths.get(Parameter.VIRTUAL_JS.getStringValue());
+            Thread thread = new Thread(() -> runScript(script), "opends-virtualjs");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (Parameter.VIRTUAL_JS_PORT.isPresent()) {
+            int port = Parameter.VIRTUAL_JS_PORT.getIntValue();
+            try {
+                ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+                Thread thread = new Thread(() -> acceptLoop(server), "opends-virtualjs-server");
+                thread.setDaemon(true);
+                thread.start();
+                Debug.println("Virtual joystick server listening on port " + port);
+            } catch (IOException e) {
+                Debug.println("Virtual joystick server could not start: " + e.getMessage(), EventSeverity.WARNING);
+            }
+        }
+    }
+
+    public static List<VirtualController> getDevices() {
+        return devices;
+    }
+
+    static VirtualController add(String name, int axes, int buttons) {
+        VirtualController ctrl = new VirtualController(name, axes, buttons);
+        devices.add(ctrl);
+        ControlDevices.findAll();
+        return ctrl;
+    }
+
+    static void remove(VirtualController ctrl) {
+        if (ctrl != null) {
+            ctrl.remove();
+            ControlDevices.checkForRemoval();
+        }
+    }
+
+    private static void runScript(Path path) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Debug.println("Virtual joystick script could not be read: " + e.getMessage(), EventSeverity.WARNING);
+            return;
+        }
+        VirtualScript script = new VirtualScript(path.getFileName().toString());
+        boolean waits = false;
+        for (int i = 0; i < lines.size() && !Thread.currentThread().isInterrupted(); i++) {
+            String line = lines.get(i).trim();
+            if (line.equals("loop")) {
+                // A loop without any wait would spin a core at 100%
+                if (!waits) {
+                    Debug.println("Virtual joystick script loops without waiting, stopping it", EventSeverity.WARNING);
+                    break;
+                }
+                i = -1;
+                continue;
+            }
+            waits |= line.startsWith("wait");
+            script.execute(line, i + 1);
+        }
+    }
+
+    private static void acceptLoop(ServerSocket server) {
+        while (true) {
+            try {
+                Socket socket = server.accept();
+                Thread client = new Thread(() -> runClient(socket), "opends-virtualjs-client");
+                client.setDaemon(true);
+                client.start();
+            } catch (IOException e) {
+                Debug.println("Virtual joystick accept failed: " + e.getMessage(), EventSeverity.WARNING);
+                return;
+            }
+        }
+    }
+
+    // Sticks created by a client go away when it disconnects
+    private static void runClient(Socket socket) {
+        VirtualScript script = new VirtualScript(socket.getRemoteSocketAddress().toString());
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNum = 0;
+            while ((line = in.readLine()) != null) {
+                script.execute(line, ++lineNum);
+            }
+        } catch (IOException ignored) {
+        } finally {
+            script.removeAll();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.boomaa.opends.usb;
+
+import com.boomaa.opends.util.Debug;
+import com.boomaa.opends.util.EventSeverity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs virtual joystick commands, one per line, for a single script file or socket client:
+//   device <id> <axes> <buttons> [name]   create a stick, ids are local to this source
+//   axis <id> <index> <value>             value from -1 to 1
+//   button <id> <index> <0|1>
+//   wait <ms>                             fractional milliseconds are allowed
+//   remove <id>
+//   loop                                  restart a script file from the top
+// Blank lines and lines starting with # are skipped.
+public class VirtualScript {
+    private static final long MAX_LAG_NANOS = 1_000_000_000L;
+    private final String source;
+    private final Map<Integer, VirtualController> devices = new HashMap<>();
+    private long nextNanos;
+
+    public VirtualScript(String source) {
+        this.source = source;
+    }
+
+    public void execute(String line, int lineNum) {
+        String[] args = line.trim().split("\\s+");
+        if (args[0].isEmpty() || args[0].startsWith("#")) {
+            return;
+        }
+        try {
+            switch (args[0]) {
+                case "device":
+                    createDevice(args);
+                    break;
+                case "axis": {
+                    VirtualController ctrl = getDevice(args[1]);
+                    ctrl.setAxis(checkIndex(args[2], ctrl.getNumAxes()), Double.parseDouble(args[3]));
+                    break;
+                }
+                case "button": {
+                    VirtualController ctrl = getDevice(args[1]);
+                    ctrl.setButton(checkIndex(args[2], ctrl.getNumButtons()), Integer.parseInt(args[3]) != 0);
+                    break;
+                }
+                case "wait":
+                    waitFor((long) (Double.parseDouble(args[1]) * 1_000_000));
+                    break;
+                case "remove":
+                    VirtualDevices.remove(devices.remove(Integer.parseInt(args[1])));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown command " + args[0]);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | NullPointerException e) {
+            Debug.println(String.format("Virtual joystick %s:%d skipped \"%s\" (%s)", source, lineNum, line.trim(), e.getMessage()),
+                EventSeverity.WARNING, true);
+        }
+    }
+
+    private void createDevice(String[] args) {
+        int id = Integer.parseInt(args[1]);
+        int axes = Integer.parseInt(args[2]);
+        int buttons = Integer.parseInt(args[3]);
+        if (axes < 0 || buttons < 0) {
+            throw new IllegalArgumentException("negative component count");
+        }
+        StringBuilder name = new StringBuilder();
+        for (int i = 4; i < args.length; i++) {
+            name.append(i > 4 ? " " : "").append(args[i]);
+        }
+        if (name.length() == 0) {
+            name.append("Virtual Joystick ").append(id);
+        }
+        // A looping script redeclares its sticks every pass, keep them rather than replugging
+        VirtualController existing = devices.get(id);
+        if (existing != null && existing.matches(name.toString(), axes, buttons)) {
+            return;
+        }
+        VirtualDevices.remove(devices.remove(id));
+        devices.put(id, VirtualDevices.add(name.toString(), axes, buttons));
+    }
+
+    private VirtualController getDevice(String id) {
+        VirtualController ctrl = devices.get(Integer.parseInt(id));
+        if (ctrl == null) {
+            throw new IllegalArgumentException("no device " + id);
+        }
+        return ctrl;
+    }
+
+    private static int checkIndex(String index, int count) {
+        int idx = Integer.parseInt(index);
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException("index " + idx + " of " + count);
+        }
+        return idx;
+    }
+
+    // Waits are measured from the previous deadline so a long script keeps its rate,
+    // unless it has fallen far enough behind that catching up would flood the device
+    private void waitFor(long nanos) {
+        long now = System.nanoTime();
+        if (nextNanos == 0 || now - nextNanos > MAX_LAG_NANOS) {
+            nextNanos = now;
+        }
+        nextNanos += nanos;
+        long remaining;
+        while ((remaining = nextNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public void removeAll() {
+        for (VirtualController ctrl : devices.values()) {
+            VirtualDevices.remove(ctrl);
+        }
+        devices.clear();
+    }
+}
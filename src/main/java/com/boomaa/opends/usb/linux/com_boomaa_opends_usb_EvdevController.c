@@ -0,0 +1,234 @@
+#include <jni.h>
+#include <linux/input.h>
+#include <fcntl.h>
+#include <stdio.h>
+#include <unistd.h>
+#include <string.h>
+#include <errno.h>
+#include <time.h>
+#include <sys/ioctl.h>
+
+#ifndef input_event_sec
+#define input_event_sec time.tv_sec
+#define input_event_usec time.tv_usec
+#endif
+
+#define MAX_BULK_EVENTS 256
+#define PACKED_EVENT_SIZE 16
+
+#ifndef _Included_com_boomaa_opends_usb_EvdevController
+#define _Included_com_boomaa_opends_usb_EvdevController
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    open
+ * Signature: (Ljava/lang/String;)J
+ */
+JNIEXPORT jlong JNICALL Java_com_boomaa_opends_usb_EvdevController_open
+  (JNIEnv *env, jobject obj, jstring path) {
+    const char *cpath = (*env)->GetStringUTFChars(env, path, NULL);
+    int fd;
+    if (cpath == NULL) {
+        return -1;
+    }
+    // write access is only needed for force feedback
+    fd = open(cpath, O_RDWR | O_NONBLOCK);
+    if (fd < 0) {
+        fd = open(cpath, O_RDONLY | O_NONBLOCK);
+    }
+    (*env)->ReleaseStringUTFChars(env, path, cpath);
+    return fd;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getName
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL Java_com_boomaa_opends_usb_EvdevController_getName
+  (JNIEnv *env, jobject obj, jlong address) {
+    char name[128];
+    memset(name, 0, sizeof(name));
+    if (ioctl((int) address, EVIOCGNAME(sizeof(name) - 1), name) < 0) {
+        strncpy(name, "Unknown", sizeof(name) - 1);
+    }
+    return (*env)->NewStringUTF(env, name);
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getStableId
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL Java_com_boomaa_opends_usb_EvdevController_getStableId
+  (JNIEnv *env, jobject obj, jlong address) {
+    struct input_id id;
+    char where[128];
+    char out[192];
+    memset(&id, 0, sizeof(id));
+    memset(where, 0, sizeof(where));
+    ioctl((int) address, EVIOCGID, &id);
+    if (ioctl((int) address, EVIOCGUNIQ(sizeof(where) - 1), where) < 0 || where[0] == '\0') {
+        memset(where, 0, sizeof(where));
+        ioctl((int) address, EVIOCGPHYS(sizeof(where) - 1), where);
+    }
+    snprintf(out, sizeof(out), "%04x:%04x:%s", id.vendor, id.product, where);
+    return (*env)->NewStringUTF(env, out);
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    setMonotonicClock
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_boomaa_opends_usb_EvdevController_setMonotonicClock
+  (JNIEnv *env, jobject obj, jlong address) {
+    int clock = CLOCK_MONOTONIC;
+    return ioctl((int) address, EVIOCSCLOCKID, &clock) == 0 ? JNI_TRUE : JNI_FALSE;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getBits
+ * Signature: (JI[B)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_getBits
+  (JNIEnv *env, jobject obj, jlong address, jint type, jbyteArray bits) {
+    jsize len = (*env)->GetArrayLength(env, bits);
+    jbyte *buf = (*env)->GetByteArrayElements(env, bits, NULL);
+    int result;
+    if (buf == NULL) {
+        return -1;
+    }
+    memset(buf, 0, len);
+    result = ioctl((int) address, EVIOCGBIT(type, len), buf);
+    (*env)->ReleaseByteArrayElements(env, bits, buf, 0);
+    return result;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getKeyState
+ * Signature: (J[B)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_getKeyState
+  (JNIEnv *env, jobject obj, jlong address, jbyteArray bits) {
+    jsize len = (*env)->GetArrayLength(env, bits);
+    jbyte *buf = (*env)->GetByteArrayElements(env, bits, NULL);
+    int result;
+    if (buf == NULL) {
+        return -1;
+    }
+    memset(buf, 0, len);
+    result = ioctl((int) address, EVIOCGKEY(len), buf);
+    (*env)->ReleaseByteArrayElements(env, bits, buf, 0);
+    return result;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getAbsInfo
+ * Signature: (JI[I)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_getAbsInfo
+  (JNIEnv *env, jobject obj, jlong address, jint code, jintArray info) {
+    struct input_absinfo abs;
+    jint values[6];
+    memset(&abs, 0, sizeof(abs));
+    if (ioctl((int) address, EVIOCGABS(code), &abs) < 0) {
+        return -1;
+    }
+    values[0] = abs.value;
+    values[1] = abs.minimum;
+    values[2] = abs.maximum;
+    values[3] = abs.fuzz;
+    values[4] = abs.flat;
+    values[5] = abs.resolution;
+    (*env)->SetIntArrayRegion(env, info, 0, 6, values);
+    return 0;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    pollBulk
+ * Signature: (JLjava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_pollBulk
+  (JNIEnv *env, jobject obj, jlong address, jobject buffer, jint max_events) {
+    struct input_event events[MAX_BULK_EVENTS];
+    char *out = (char *) (*env)->GetDirectBufferAddress(env, buffer);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    ssize_t data;
+    int count;
+    int i;
+    if (max_events > MAX_BULK_EVENTS) {
+        max_events = MAX_BULK_EVENTS;
+    }
+    if (out == NULL || capacity < (jlong) max_events * PACKED_EVENT_SIZE) {
+        return 0;
+    }
+    data = read((int) address, events, max_events * sizeof(struct input_event));
+    if (data < 0) {
+        return errno == EAGAIN ? 0 : -1;
+    }
+    // input_event's timeval is 8 or 16 bytes depending on the ABI, so repack to a fixed layout
+    count = (int) (data / sizeof(struct input_event));
+    for (i = 0; i < count; i++) {
+        char *dst = out + i * PACKED_EVENT_SIZE;
+        jlong usec = (jlong) events[i].input_event_sec * 1000000 + events[i].input_event_usec;
+        jshort type = (jshort) events[i].type;
+        jshort code = (jshort) events[i].code;
+        jint value = events[i].value;
+        memcpy(dst, &usec, 8);
+        memcpy(dst + 8, &type, 2);
+        memcpy(dst + 10, &code, 2);
+        memcpy(dst + 12, &value, 4);
+    }
+    return count;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    rumble
+ * Signature: (JIIII)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_rumble
+  (JNIEnv *env, jobject obj, jlong address, jint effect_id, jint strong, jint weak, jint duration_ms) {
+    struct ff_effect effect;
+    struct input_event play;
+    memset(&effect, 0, sizeof(effect));
+    effect.type = FF_RUMBLE;
+    effect.id = (__s16) effect_id;
+    effect.u.rumble.strong_magnitude = (__u16) strong;
+    effect.u.rumble.weak_magnitude = (__u16) weak;
+    effect.replay.length = (__u16) duration_ms;
+    if (ioctl((int) address, EVIOCSFF, &effect) < 0) {
+        return -1;
+    }
+    memset(&play, 0, sizeof(play));
+    play.type = EV_FF;
+    play.code = (__u16) effect.id;
+    play.value = 1;
+    if (write((int) address, &play, sizeof(play)) != sizeof(play)) {
+        return -1;
+    }
+    return effect.id;
+}
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    close
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_boomaa_opends_usb_EvdevController_close
+  (JNIEnv *env, jobject obj, jlong address) {
+    close((int) address);
+}
+
+#ifdef __cplusplus
+}
+#endif
+#endif
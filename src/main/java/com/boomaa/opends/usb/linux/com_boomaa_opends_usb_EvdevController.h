@@ -0,0 +1,107 @@
+/* DO NOT EDIT THIS FILE - it is machine generated */
+#include <jni.h>
+/* Header for class com_boomaa_opends_usb_EvdevController */
+
+#ifndef _Included_com_boomaa_opends_usb_EvdevController
+#define _Included_com_boomaa_opends_usb_EvdevController
+#ifdef __cplusplus
+extern "C" {
+#endif
+#undef com_boomaa_opends_usb_EvdevController_EVENT_SIZE
+#define com_boomaa_opends_usb_EvdevController_EVENT_SIZE 16L
+#undef com_boomaa_opends_usb_EvdevController_EVENT_TIME
+#define com_boomaa_opends_usb_EvdevController_EVENT_TIME 0L
+#undef com_boomaa_opends_usb_EvdevController_EVENT_TYPE
+#define com_boomaa_opends_usb_EvdevController_EVENT_TYPE 8L
+#undef com_boomaa_opends_usb_EvdevController_EVENT_CODE
+#define com_boomaa_opends_usb_EvdevController_EVENT_CODE 10L
+#undef com_boomaa_opends_usb_EvdevController_EVENT_VALUE
+#define com_boomaa_opends_usb_EvdevController_EVENT_VALUE 12L
+#undef com_boomaa_opends_usb_EvdevController_MAX_EVENTS
+#define com_boomaa_opends_usb_EvdevController_MAX_EVENTS 256L
+#undef com_boomaa_opends_usb_EvdevController_MAX_HATS
+#define com_boomaa_opends_usb_EvdevController_MAX_HATS 4L
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    open
+ * Signature: (Ljava/lang/String;)J
+ */
+JNIEXPORT jlong JNICALL Java_com_boomaa_opends_usb_EvdevController_open
+  (JNIEnv *, jobject, jstring);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getName
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL Java_com_boomaa_opends_usb_EvdevController_getName
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getStableId
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL Java_com_boomaa_opends_usb_EvdevController_getStableId
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    setMonotonicClock
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_boomaa_opends_usb_EvdevController_setMonotonicClock
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getBits
+ * Signature: (JI[B)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_getBits
+  (JNIEnv *, jobject, jlong, jint, jbyteArray);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getKeyState
+ * Signature: (J[B)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_getKeyState
+  (JNIEnv *, jobject, jlong, jbyteArray);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    getAbsInfo
+ * Signature: (JI[I)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_getAbsInfo
+  (JNIEnv *, jobject, jlong, jint, jintArray);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    pollBulk
+ * Signature: (JLjava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_pollBulk
+  (JNIEnv *, jobject, jlong, jobject, jint);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    rumble
+ * Signature: (JIIII)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_EvdevController_rumble
+  (JNIEnv *, jobject, jlong, jint, jint, jint, jint);
+
+/*
+ * Class:     com_boomaa_opends_usb_EvdevController
+ * Method:    close
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_boomaa_opends_usb_EvdevController_close
+  (JNIEnv *, jobject, jlong);
+
+#ifdef __cplusplus
+}
+#endif
+#endif
@@ -66,6 +66,22 @@ JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_getNumButtons
     return (jint) num_buttons;
 }
 
+/*
+ * Class:     com_boomaa_opends_usb_LinuxController
+ * Method:    getAxisMap
+ * Signature: (J[B)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_getAxisMap
+  (JNIEnv *env, jobject obj, jlong address, jbyteArray map) {
+    __u8 axmap[ABS_CNT];
+    jsize len = (*env)->GetArrayLength(env, map);
+    if (ioctl((int) address, JSIOCGAXMAP, axmap) < 0) {
+        return -1;
+    }
+    (*env)->SetByteArrayRegion(env, map, 0, len < ABS_CNT ? len : ABS_CNT, (jbyte *) axmap);
+    return 0;
+}
+
 /*
  * Class:     com_boomaa_opends_usb_LinuxController
  * Method:    poll
@@ -85,6 +101,29 @@ JNIEXPORT jobject JNICALL Java_com_boomaa_opends_usb_LinuxController_poll
     }
 }
 
+/*
+ * Class:     com_boomaa_opends_usb_LinuxController
+ * Method:    pollBulk
+ * Signature: (JLjava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_pollBulk
+  (JNIEnv *env, jobject obj, jlong address, jobject buffer, jint max_events) {
+    struct js_event *events = (struct js_event *) (*env)->GetDirectBufferAddress(env, buffer);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    ssize_t data;
+    if (events == NULL || capacity < (jlong) (max_events * sizeof(struct js_event))) {
+        return 0;
+    }
+    // joydev hands back as many whole events as fit, so one read drains the queue
+    data = read((int) address, events, max_events * sizeof(struct js_event));
+    if (data > 0) {
+        return (jint) (data / sizeof(struct js_event));
+    } else if (data < 0 && errno != EAGAIN) {
+        return -1;
+    }
+    return 0;
+}
+
 /*
  * Class:     com_boomaa_opends_usb_LinuxController
  * Method:    getName
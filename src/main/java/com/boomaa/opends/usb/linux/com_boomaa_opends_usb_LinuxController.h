@@ -7,6 +7,20 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef com_boomaa_opends_usb_LinuxController_EVENT_SIZE
+#define com_boomaa_opends_usb_LinuxController_EVENT_SIZE 8L
+#undef com_boomaa_opends_usb_LinuxController_EVENT_TIME
+#define com_boomaa_opends_usb_LinuxController_EVENT_TIME 0L
+#undef com_boomaa_opends_usb_LinuxController_EVENT_VALUE
+#define com_boomaa_opends_usb_LinuxController_EVENT_VALUE 4L
+#undef com_boomaa_opends_usb_LinuxController_EVENT_TYPE
+#define com_boomaa_opends_usb_LinuxController_EVENT_TYPE 6L
+#undef com_boomaa_opends_usb_LinuxController_EVENT_NUMBER
+#define com_boomaa_opends_usb_LinuxController_EVENT_NUMBER 7L
+#undef com_boomaa_opends_usb_LinuxController_MAX_EVENTS
+#define com_boomaa_opends_usb_LinuxController_MAX_EVENTS 256L
+#undef com_boomaa_opends_usb_LinuxController_MAX_NUMBER
+#define com_boomaa_opends_usb_LinuxController_MAX_NUMBER 256L
 /*
  * Class:     com_boomaa_opends_usb_LinuxController
  * Method:    open
@@ -31,6 +45,14 @@ JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_getNumAxes
 JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_getNumButtons
   (JNIEnv *, jobject, jlong);
 
+/*
+ * Class:     com_boomaa_opends_usb_LinuxController
+ * Method:    getAxisMap
+ * Signature: (J[B)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_getAxisMap
+  (JNIEnv *, jobject, jlong, jbyteArray);
+
 /*
  * Class:     com_boomaa_opends_usb_LinuxController
  * Method:    poll
@@ -39,6 +61,14 @@ JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_getNumButtons
 JNIEXPORT jobject JNICALL Java_com_boomaa_opends_usb_LinuxController_poll
   (JNIEnv *, jobject, jlong);
 
+/*
+ * Class:     com_boomaa_opends_usb_LinuxController
+ * Method:    pollBulk
+ * Signature: (JLjava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_boomaa_opends_usb_LinuxController_pollBulk
+  (JNIEnv *, jobject, jlong, jobject, jint);
+
 /*
  * Class:     com_boomaa_opends_usb_LinuxController
  * Method:    getName
@@ -0,0 +1,417 @@
+package com.boomaa.opends.util;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Block-compressed container for .dslog/.dsevents files.
+// Layout: header | blocks (each with its time range and raw offset) | block index | footer
+public class BlockLogFile {
+    public static final String EXTENSION = ".odz";
+    public static final String PARTIAL_EXTENSION = ".odz.part";
+    private static final int HEADER_MAGIC = 0x4F44535A; // ODSZ
+    private static final int BLOCK_MAGIC = 0x424C4B30; // BLK0
+    private static final int INDEX_MAGIC = 0x4F445349; // ODSI
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + 1 + 1;
+    private static final int BLOCK_HEADER_LENGTH = 4 + 8 + 8 + 8 + 4 + 4 + 4;
+    private static final int TARGET_BLOCK_SIZE = 64 * 1024;
+    private static final int DS_HEADER_LENGTH = 20;
+    private static final int DSLOG_RECORD_LENGTH = 35;
+    private static final int DSLOG_RECORD_MS = 20;
+    private static final int DSEVENTS_RECORD_HEADER = 20;
+
+    private BlockLogFile() {
+    }
+
+    // Compresses src into dst + EXTENSION. Progress lives in dst + PARTIAL_EXTENSION,
+    // so an interrupted run picks up after the last complete block.
+    public static File compress(File src, Throttle throttle) throws IOException, InterruptedException {
+        Kind kind = Kind.of(src.getName());
+        File part = new File(src.getPath() + PARTIAL_EXTENSION);
+        File done = new File(src.getPath() + EXTENSION);
+        byte[] raw = readAll(src);
+        long baseTimeMs = raw.length >= DS_HEADER_LENGTH ? readTimestamp(raw, 0) : src.lastModified();
+
+        try (RandomAccessFile out = new RandomAccessFile(part, "rw")) {
+            BlockIndex index = recover(out, kind);
+            long rawOffset = index.count == 0 ? 0 : index.rawOffset[index.count - 1] + index.rawLength[index.count - 1];
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            byte[] compressed = new byte[TARGET_BLOCK_SIZE * 2];
+            CRC32 crc = new CRC32();
+            try {
+                while (rawOffset < raw.length) {
+                    throttle.await();
+                    int start = (int) rawOffset;
+                    int end = blockEnd(raw, start, kind);
+                    deflater.reset();
+                    deflater.setInput(raw, start, end - start);
+                    deflater.finish();
+                    int compLen = 0;
+                    while (!deflater.finished()) {
+                        if (compLen == compressed.length) {
+                            compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                        }
+                        compLen += deflater.deflate(compressed, compLen, compressed.length - compLen);
+                    }
+                    crc.reset();
+                    crc.update(compressed, 0, compLen);
+                    long fileOffset = out.getFilePointer();
+                    long firstMs = recordTime(raw, start, kind, baseTimeMs);
+                    long lastMs = Math.max(firstMs, recordTime(raw, lastRecordStart(raw, start, end, kind), kind, baseTimeMs));
+                    out.writeInt(BLOCK_MAGIC);
+                    out.writeLong(firstMs);
+                    out.writeLong(lastMs);
+                    out.writeLong(start);
+                    out.writeInt(end - start);
+                    out.writeInt(compLen);
+                    out.writeInt((int) crc.getValue());
+                    out.write(compressed, 0, compLen);
+                    index.add(firstMs, lastMs, start, end - start, fileOffset);
+                    rawOffset = end;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long indexOffset = out.getFilePointer();
+            out.writeInt(index.count);
+            for (int i = 0; i < index.count; i++) {
+                out.writeLong(index.firstMs[i]);
+                out.writeLong(index.lastMs[i]);
+                out.writeLong(index.rawOffset[i]);
+                out.writeInt(index.rawLength[i]);
+                out.writeLong(index.fileOffset[i]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(INDEX_MAGIC);
+            out.setLength(out.getFilePointer());
+            out.getFD().sync();
+        }
+        if (!part.renameTo(done)) {
+            throw new IOException("Could not finish " + done.getName());
+        }
+        return done;
+    }
+
+    // Validates the blocks already written to a partial file and drops anything after the last good one
+    private static BlockIndex recover(RandomAccessFile out, Kind kind) throws IOException {
+        BlockIndex index = new BlockIndex();
+        if (out.length() < HEADER_LENGTH) {
+            out.setLength(0);
+            out.writeInt(HEADER_MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(kind.ordinal());
+            return index;
+        }
+        out.seek(0);
+        if (out.readInt() != HEADER_MAGIC || out.readByte() != FORMAT_VERSION || out.readByte() != kind.ordinal()) {
+            out.setLength(0);
+            return recover(out, kind);
+        }
+        long goodEnd = scanBlocks(out, index);
+        out.setLength(goodEnd);
+        out.seek(goodEnd);
+        return index;
+    }
+
+    // Indexes the intact blocks after the header, returning the offset just past the last one
+    private static long scanBlocks(RandomAccessFile in, BlockIndex index) throws IOException {
+        long goodEnd = HEADER_LENGTH;
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[0];
+        try {
+            while (goodEnd + BLOCK_HEADER_LENGTH <= in.length()) {
+                in.seek(goodEnd);
+                if (in.readInt() != BLOCK_MAGIC) {
+                    break;
+                }
+                long firstMs = in.readLong();
+                long lastMs = in.readLong();
+                long rawOffset = in.readLong();
+                int rawLength = in.readInt();
+                int compLen = in.readInt();
+                int expectedCrc = in.readInt();
+                if (compLen < 0 || goodEnd + BLOCK_HEADER_LENGTH + compLen > in.length()) {
+                    break;
+                }
+                if (buf.length < compLen) {
+                    buf = new byte[compLen];
+                }
+                in.readFully(buf, 0, compLen);
+                crc.reset();
+                crc.update(buf, 0, compLen);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                index.add(firstMs, lastMs, rawOffset, rawLength, goodEnd);
+                goodEnd += BLOCK_HEADER_LENGTH + compLen;
+            }
+        } catch (EOFException ignored) {
+        }
+        return goodEnd;
+    }
+
+    private static int blockEnd(byte[] raw, int start, Kind kind) {
+        if (start == 0 && kind != Kind.OTHER && raw.length >= DS_HEADER_LENGTH) {
+            return DS_HEADER_LENGTH;
+        }
+        switch (kind) {
+            case DSLOG: {
+                int records = Math.max(1, TARGET_BLOCK_SIZE / DSLOG_RECORD_LENGTH);
+                return Math.min(raw.length, start + (records * DSLOG_RECORD_LENGTH));
+            }
+            case DSEVENTS: {
+                int end = start;
+                while (end < raw.length && end - start < TARGET_BLOCK_SIZE) {
+                    end = nextEvent(raw, end);
+                }
+                return end;
+            }
+            default:
+                return Math.min(raw.length, start + TARGET_BLOCK_SIZE);
+        }
+    }
+
+    private static int nextEvent(byte[] raw, int pos) {
+        if (pos + DSEVENTS_RECORD_HEADER > raw.length) {
+            return raw.length;
+        }
+        int len = readInt(raw, pos + 16);
+        return len < 0 ? raw.length : (int) Math.min(raw.length, (long) pos + DSEVENTS_RECORD_HEADER + len);
+    }
+
+    private static int lastRecordStart(byte[] raw, int start, int end, Kind kind) {
+        if (start == 0 || kind == Kind.OTHER) {
+            return start;
+        }
+        if (kind == Kind.DSLOG) {
+            return start + (((end - start - 1) / DSLOG_RECORD_LENGTH) * DSLOG_RECORD_LENGTH);
+        }
+        int pos = start;
+        int next;
+        while ((next = nextEvent(raw, pos)) < end) {
+            pos = next;
+        }
+        return pos;
+    }
+
+    private static long recordTime(byte[] raw, int pos, Kind kind, long baseTimeMs) {
+        switch (kind) {
+            case DSLOG:
+                return pos < DS_HEADER_LENGTH ? baseTimeMs
+                    : baseTimeMs + ((long) (pos - DS_HEADER_LENGTH) / DSLOG_RECORD_LENGTH) * DSLOG_RECORD_MS;
+            case DSEVENTS:
+                return pos + DSEVENTS_RECORD_HEADER <= raw.length ? readTimestamp(raw, pos == 0 ? 0 : pos - 4) : baseTimeMs;
+            default:
+                return baseTimeMs;
+        }
+    }
+
+    // LabVIEW timestamp as written by DSLog: 4 pad bytes, 32-bit seconds, 64-bit fraction
+    private static long readTimestamp(byte[] raw, int pos) {
+        long seconds = readInt(raw, pos + 8);
+        long fraction = ((long) readInt(raw, pos + 12) << 32) | (readInt(raw, pos + 16) & 0xFFFFFFFFL);
+        return DSLog.labviewToUnixMillis(seconds, fraction);
+    }
+
+    private static int readInt(byte[] raw, int pos) {
+        return ((raw[pos] & 0xFF) << 24) | ((raw[pos + 1] & 0xFF) << 16) | ((raw[pos + 2] & 0xFF) << 8) | (raw[pos + 3] & 0xFF);
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] data = new byte[(int) in.length()];
+            in.readFully(data);
+            return data;
+        }
+    }
+
+    // Reads finished files through their block index. A partial file still being (or
+    // interrupted while) compressed has no index yet, so its intact blocks are scanned.
+    public static class Reader implements AutoCloseable {
+        private final RandomAccessFile in;
+        private final BlockIndex index = new BlockIndex();
+        private final Inflater inflater = new Inflater();
+        private final boolean partial;
+
+        public Reader(File file) throws IOException {
+            this.in = new RandomAccessFile(file, "r");
+            try {
+                in.seek(0);
+                if (in.length() < HEADER_LENGTH || in.readInt() != HEADER_MAGIC || in.readByte() != FORMAT_VERSION) {
+                    throw new IOException(file.getName() + " is not a compressed log");
+                }
+                long indexOffset = 0;
+                boolean indexed = false;
+                if (in.length() >= HEADER_LENGTH + 12) {
+                    in.seek(in.length() - 12);
+                    indexOffset = in.readLong();
+                    indexed = in.readInt() == INDEX_MAGIC;
+                }
+                this.partial = !indexed;
+                if (partial) {
+                    scanBlocks(in, index);
+                    return;
+                }
+                in.seek(indexOffset);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    index.add(in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readLong());
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        public boolean isPartial() {
+            return partial;
+        }
+
+        public int getBlockCount() {
+            return index.count;
+        }
+
+        // Index of the first block that may hold records at or after timeMs
+        public int findBlock(long timeMs) {
+            int lo = 0;
+            int hi = index.count - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (index.lastMs[mid] < timeMs) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        public long getBlockStartMs(int block) {
+            return index.firstMs[block];
+        }
+
+        public long getBlockRawOffset(int block) {
+            return index.rawOffset[block];
+        }
+
+        public byte[] readBlock(int block) throws IOException {
+            in.seek(index.fileOffset[block] + BLOCK_HEADER_LENGTH - 8);
+            byte[] compressed = new byte[in.readInt()];
+            in.readInt();
+            in.readFully(compressed);
+            byte[] raw = new byte[index.rawLength[block]];
+            inflater.reset();
+            inflater.setInput(compressed);
+            try {
+                int len = 0;
+                while (len < raw.length && !inflater.finished()) {
+                    len += inflater.inflate(raw, len, raw.length - len);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block " + block, e);
+            }
+            return raw;
+        }
+
+        // Raw bytes of every block overlapping [fromMs, toMs]
+        public byte[] read(long fromMs, long toMs) throws IOException {
+            byte[] out = new byte[0];
+            for (int i = findBlock(fromMs); i < index.count && index.firstMs[i] <= toMs; i++) {
+                byte[] block = readBlock(i);
+                int len = out.length;
+                out = Arrays.copyOf(out, len + block.length);
+                System.arraycopy(block, 0, out, len, block.length);
+            }
+            return out;
+        }
+
+        // Events of a compressed .dsevents file timestamped within [fromMs, toMs], in order.
+        // Blocks always end on a record boundary, so each block decodes on its own.
+        public int readEvents(long fromMs, long toMs, ObjLongConsumer<String> consumer) throws IOException {
+            int count = 0;
+            for (int i = findBlock(fromMs); i < index.count && index.firstMs[i] <= toMs; i++) {
+                if (index.rawOffset[i] == 0) {
+                    // the DS file header
+                    continue;
+                }
+                byte[] raw = readBlock(i);
+                int pos = 0;
+                while (pos + DSEVENTS_RECORD_HEADER <= raw.length) {
+                    long fraction = ((long) readInt(raw, pos + 8) << 32) | (readInt(raw, pos + 12) & 0xFFFFFFFFL);
+                    long timeMs = DSLog.labviewToUnixMillis(readInt(raw, pos + 4), fraction);
+                    int len = readInt(raw, pos + 16);
+                    if (len < 0 || pos + DSEVENTS_RECORD_HEADER + len > raw.length) {
+                        throw new IOException("Truncated event in block " + i);
+                    }
+                    if (timeMs > toMs) {
+                        return count;
+                    }
+                    if (timeMs >= fromMs) {
+                        consumer.accept(new String(raw, pos + DSEVENTS_RECORD_HEADER, len), timeMs);
+                        count++;
+                    }
+                    pos += DSEVENTS_RECORD_HEADER + len;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+    }
+
+    private static class BlockIndex {
+        private long[] firstMs = new long[16];
+        private long[] lastMs = new long[16];
+        private long[] rawOffset = new long[16];
+        private int[] rawLength = new int[16];
+        private long[] fileOffset = new long[16];
+        private int count;
+
+        private void add(long first, long last, long raw, int length, long file) {
+            if (count == firstMs.length) {
+                int grown = count * 2;
+                firstMs = Arrays.copyOf(firstMs, grown);
+                lastMs = Arrays.copyOf(lastMs, grown);
+                rawOffset = Arrays.copyOf(rawOffset, grown);
+                rawLength = Arrays.copyOf(rawLength, grown);
+                fileOffset = Arrays.copyOf(fileOffset, grown);
+            }
+            firstMs[count] = first;
+            lastMs[count] = last;
+            rawOffset[count] = raw;
+            rawLength[count] = length;
+            fileOffset[count] = file;
+            count++;
+        }
+    }
+
+    public interface Throttle {
+        void await() throws InterruptedException;
+    }
+
+    private enum Kind {
+        DSLOG, DSEVENTS, OTHER;
+
+        private static Kind of(String name) {
+            if (name.endsWith(".dslog")) {
+                return DSLOG;
+            } else if (name.endsWith(".dsevents")) {
+                return DSEVENTS;
+            }
+            return OTHER;
+        }
+    }
+}
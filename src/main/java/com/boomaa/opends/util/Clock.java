@@ -12,7 +12,7 @@ public abstract class Clock {
     protected final int msToCycle;
     private ScheduledFuture<?> task;
     protected final String name;
-    protected boolean done = false;
+    protected volatile boolean done = false;
 
     public Clock(String name, int msToCycle) {
         this.msToCycle = msToCycle;
@@ -25,7 +25,9 @@ public class DSLog extends Clock {
     private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM_dd HH_mm_ss EEE");
     private static final int FIRST_DSLOGS_DEFAULT_DIR_YEAR = 2025;
     public static byte[] PDP_STATS = new byte[24];
-    private static final LockedQueue<byte[]> eventQueue = new LockedQueue<>();
+    private static final MpscQueue<byte[]> eventQueue = new MpscQueue<>(4096);
+    private static volatile String sessionPath;
+    private static long reportedDrops;
     private FileOutputStream eventsOut;
     private FileOutputStream logOut;
 
@@ -42,21 +44,14 @@ public class DSLog extends Clock {
     public void restart() {
         eventQueue.clear();
 
-        String windowsFolderPath = "C:\\Users\\Public\\Documents\\FRC\\Log Files\\";
-        if (MainJDEC.getProtocolYear() >= FIRST_DSLOGS_DEFAULT_DIR_YEAR) {
-            windowsFolderPath += "DSLogs\\";
-        }
-        String folderName = OperatingSystem.isWindows() ? windowsFolderPath
-                : System.getProperty("user.home") + "/opends/";
-        File folder = new File(folderName);
-        if (!folder.isDirectory()) {
-            folder.mkdirs();
-        }
+        String folderName = getLogFolder();
         LocalDateTime currentDateTime = LocalDateTime.now();
         double currentTimeMs = currentDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
         String filepath = folderName + currentDateTime.format(TS_FORMAT);
         this.logOut = createFile(filepath + ".dslog");
         this.eventsOut = createFile(filepath + ".dsevents");
+        LogRetention.schedule(new File(folderName), filepath);
+        sessionPath = filepath;
 
         // TODO fix fully (?)
         final byte[] header = new PacketBuilder()
@@ -70,6 +65,25 @@ public class DSLog extends Clock {
         writeData(Objects.requireNonNull(eventsOut), header);
     }
 
+    // Folder and timestamp prefix shared by every file of the current session, or null if not logging
+    public static String getSessionPath() {
+        return sessionPath;
+    }
+
+    public static String getLogFolder() {
+        String windowsFolderPath = "C:\\Users\\Public\\Documents\\FRC\\Log Files\\";
+        if (MainJDEC.getProtocolYear() >= FIRST_DSLOGS_DEFAULT_DIR_YEAR) {
+            windowsFolderPath += "DSLogs\\";
+        }
+        String folderName = OperatingSystem.isWindows() ? windowsFolderPath
+                : System.getProperty("user.home") + "/opends/";
+        File folder = new File(folderName);
+        if (!folder.isDirectory()) {
+            folder.mkdirs();
+        }
+        return folderName;
+    }
+
     private FileOutputStream createFile(String filepath) {
         File outFile = new File(filepath);
         if (!outFile.isFile()) {
@@ -122,8 +136,9 @@ public class DSLog extends Clock {
             .build()
         );
 
-        eventQueue.forEach(e -> writeData(eventsOut, e));
-        eventQueue.clear();
+        eventQueue.drain(e -> writeData(eventsOut, e));
+        reportDrops();
+        LogStore.indexPending();
     }
 
     public static void queueEvent(String event, EventSeverity level) {
@@ -131,19 +146,43 @@ public class DSLog extends Clock {
     }
 
     public static void queueEvent(String event, EventSeverity level, boolean logToUi) {
+        queueEvent(event, level, LogSource.DS_DEBUG, logToUi);
+    }
+
+    public static void queueEvent(String event, EventSeverity level, LogSource source, boolean logToUi) {
+        LogStore.append(event, level, source);
         event = (level == EventSeverity.ERROR ? level.name()
                 : StringUtils.toTitleCase(level.name())) + " " + event;
         if (logToUi && LogFilter.allows(level)) {
             Logger.OUT.println("[DSLog] " + event);
         }
+        FlightRecorder.recordText(FlightRecorder.Type.CONSOLE, event);
+        eventQueue.offer(encodeEvent(event));
+    }
+
+    // Written straight to the file since the queue that dropped them may still be full
+    private void reportDrops() {
+        long drops = eventQueue.getDropped();
+        if (drops == reportedDrops) {
+            return;
+        }
+        String event = (drops - reportedDrops) + " events dropped (event queue full)";
+        reportedDrops = drops;
+        LogStore.append(event, EventSeverity.WARNING, LogSource.DS_DEBUG);
+        if (LogFilter.allows(EventSeverity.WARNING)) {
+            Logger.OUT.println("[DSLog] Warning " + event);
+        }
+        writeData(eventsOut, encodeEvent("Warning " + event));
+    }
+
+    private static byte[] encodeEvent(String event) {
         double currentTimeMs = System.currentTimeMillis();
-        byte[] data = new PacketBuilder().pad(0, 4)
+        return new PacketBuilder().pad(0, 4)
                 .addBytes(secondTimestamp(currentTimeMs))
                 .addBytes(millisecondTimestamp(currentTimeMs))
                 .addBytes(NumberUtils.intToByteQuad(event.length()))
                 .addBytes(event.getBytes())
                 .build();
-        eventQueue.add(data);
     }
 
     // Seconds 1904 to 1970 (labview/unix epoch) + after
@@ -151,6 +190,10 @@ public class DSLog extends Clock {
         return NumberUtils.intToByteQuad((int) (LABVIEW_UNIX_EPOCH_DIFF + (int) (currentTimeMs / 1000)));
     }
 
+    public static long labviewToUnixMillis(long seconds, long fraction) {
+        return ((seconds - LABVIEW_UNIX_EPOCH_DIFF) * 1000) + (long) (((fraction >>> 11) / (double) (1L << 53)) * 1000);
+    }
+
     private static byte[] millisecondTimestamp(double currentTimeMs) {
         double ms = (currentTimeMs % 1000) / 1000.0;
         BigDecimal time = BigDecimal.valueOf(2).pow(64).multiply(BigDecimal.valueOf(ms));
@@ -4,34 +4,37 @@ import com.boomaa.opends.display.Logger;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Debug {
     private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
-    private static final List<String> stickyMessages = new LinkedList<>();
+    private static final Set<String> stickyMessages = ConcurrentHashMap.newKeySet();
 
     private Debug() {
     }
 
-    public static void println(String msg, EventSeverity severity, boolean sticky, boolean forced) {
+    public static void println(String msg, EventSeverity severity, boolean sticky, boolean forced, LogSource source) {
         if (forced || Parameter.DEBUG.isPresent()) {
-            if (sticky && stickyMessages.contains(msg)) {
+            if (sticky && !stickyMessages.add(msg)) {
                 return;
             }
             String dt = LocalDateTime.now().format(TS_FORMAT);
             String out = String.format("%s [%s]: %s", dt, severity.name(), msg);
             Logger.OUT.println(out);
-            DSLog.queueEvent(msg, severity);
+            DSLog.queueEvent(msg, severity, source, true);
             if (severity == EventSeverity.ERROR) {
                 System.err.println(out);
             } else {
                 System.out.println(out);
             }
-            stickyMessages.add(msg);
         }
     }
 
+    public static void println(String msg, EventSeverity severity, boolean sticky, boolean forced) {
+        println(msg, severity, sticky, forced, LogSource.DS_DEBUG);
+    }
+
     public static void println(String msg, EventSeverity severity, boolean sticky) {
         println(msg, severity, sticky, false);
     }
@@ -0,0 +1,242 @@
+package com.boomaa.opends.util;
+
+import com.boomaa.opends.data.holders.Protocol;
+import com.boomaa.opends.data.holders.Remote;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class FlightRecorder {
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM_dd HH_mm_ss EEE");
+    private static final byte[] MAGIC = new byte[] { 'O', 'D', 'S', 'B', 'B', 'X' };
+    private static final int FORMAT_VERSION = 1;
+    // ~5 minutes of rio/fms traffic, joystick frames, NT and console at full rate
+    private static final int DATA_CAPACITY = 8 * 1024 * 1024;
+    private static final int RECORD_CAPACITY = 1 << 17;
+    private static final int MAX_RECORD_LENGTH = 4096;
+    private static final long WINDOW_MS = 5 * 60 * 1000;
+    private static final long DUMP_HOLDOFF_MS = 10_000;
+    private static final Object LOCK = new Object();
+
+    private static final byte[] data = new byte[DATA_CAPACITY];
+    private static final long[] recordStart = new long[RECORD_CAPACITY];
+    private static final long[] recordTime = new long[RECORD_CAPACITY];
+    private static final short[] recordLength = new short[RECORD_CAPACITY];
+    private static final byte[] recordType = new byte[RECORD_CAPACITY];
+    private static final byte[] statusScratch = new byte[4];
+    private static long dataHead;
+    private static long recordHead;
+    private static long lastDumpMs;
+    private static boolean dumping;
+
+    private static boolean connected;
+    private static boolean estopped;
+    private static boolean brownedOut;
+
+    private FlightRecorder() {
+    }
+
+    public static void record(Type type, byte[] buf) {
+        if (buf != null) {
+            record(type, buf, 0, buf.length);
+        }
+    }
+
+    public static void record(Type type, byte[] buf, int off, int len) {
+        len = Math.min(len, MAX_RECORD_LENGTH);
+        synchronized (LOCK) {
+            int pos = (int) (dataHead % DATA_CAPACITY);
+            int first = Math.min(len, DATA_CAPACITY - pos);
+            System.arraycopy(buf, off, data, pos, first);
+            if (first < len) {
+                System.arraycopy(buf, off + first, data, 0, len - first);
+            }
+            commit(type, len);
+        }
+    }
+
+    public static void recordText(Type type, String text) {
+        int len = Math.min(text.length(), MAX_RECORD_LENGTH);
+        synchronized (LOCK) {
+            int pos = (int) (dataHead % DATA_CAPACITY);
+            for (int i = 0; i < len; i++) {
+                char c = text.charAt(i);
+                data[pos] = c < 0x80 ? (byte) c : (byte) '?';
+                if (++pos == DATA_CAPACITY) {
+                    pos = 0;
+                }
+            }
+            commit(type, len);
+        }
+    }
+
+    public static void recordStatus(int status, int trace, double batteryVoltage) {
+        synchronized (LOCK) {
+            statusScratch[0] = (byte) status;
+            statusScratch[1] = (byte) trace;
+            statusScratch[2] = (byte) batteryVoltage;
+            statusScratch[3] = (byte) ((batteryVoltage - (int) batteryVoltage) * 256);
+            record(Type.STATUS, statusScratch, 0, statusScratch.length);
+        }
+    }
+
+    private static void commit(Type type, int len) {
+        int slot = (int) (recordHead % RECORD_CAPACITY);
+        recordStart[slot] = dataHead;
+        recordTime[slot] = System.currentTimeMillis();
+        recordLength[slot] = (short) len;
+        recordType[slot] = (byte) type.ordinal();
+        dataHead += len;
+        recordHead++;
+    }
+
+    public static void noteConnection(boolean isConnected) {
+        boolean lost;
+        synchronized (LOCK) {
+            lost = connected && !isConnected;
+            connected = isConnected;
+        }
+        if (lost) {
+            trigger(Trigger.DISCONNECT);
+        }
+    }
+
+    public static void noteStatus(boolean isEstopped, boolean isBrownedOut) {
+        boolean estopEdge;
+        boolean brownoutEdge;
+        synchronized (LOCK) {
+            estopEdge = !estopped && isEstopped;
+            brownoutEdge = !brownedOut && isBrownedOut;
+            estopped = isEstopped;
+            brownedOut = isBrownedOut;
+        }
+        if (estopEdge) {
+            trigger(Trigger.ESTOP);
+        } else if (brownoutEdge) {
+            trigger(Trigger.BROWNOUT);
+        }
+    }
+
+    public static void trigger(Trigger reason) {
+        long now = System.currentTimeMillis();
+        Snapshot snapshot;
+        synchronized (LOCK) {
+            if (dumping || now - lastDumpMs < DUMP_HOLDOFF_MS) {
+                return;
+            }
+            dumping = true;
+            lastDumpMs = now;
+            snapshot = takeSnapshot(reason, now);
+        }
+        Thread writer = new Thread(() -> writeSnapshot(snapshot), "opends-flightrecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static Snapshot takeSnapshot(Trigger reason, long now) {
+        long firstRecord = Math.max(0, recordHead - RECORD_CAPACITY);
+        while (firstRecord < recordHead) {
+            int slot = (int) (firstRecord % RECORD_CAPACITY);
+            if (dataHead - recordStart[slot] <= DATA_CAPACITY && now - recordTime[slot] <= WINDOW_MS) {
+                break;
+            }
+            firstRecord++;
+        }
+        int count = (int) (recordHead - firstRecord);
+        Snapshot snapshot = new Snapshot(reason, now, count);
+        long dataStart = dataHead;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((firstRecord + i) % RECORD_CAPACITY);
+            if (i == 0) {
+                dataStart = recordStart[slot];
+            }
+            snapshot.time[i] = recordTime[slot];
+            snapshot.length[i] = recordLength[slot];
+            snapshot.type[i] = recordType[slot];
+        }
+        snapshot.data = new byte[(int) (dataHead - dataStart)];
+        int pos = (int) (dataStart % DATA_CAPACITY);
+        int first = Math.min(snapshot.data.length, DATA_CAPACITY - pos);
+        System.arraycopy(data, pos, snapshot.data, 0, first);
+        System.arraycopy(data, 0, snapshot.data, first, snapshot.data.length - first);
+        return snapshot;
+    }
+
+    private static void writeSnapshot(Snapshot snapshot) {
+        String filepath = DSLog.getLogFolder() + LocalDateTime.now().format(TS_FORMAT)
+            + " " + snapshot.reason.name().toLowerCase() + ".dsblackbox";
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filepath)))) {
+            out.write(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(snapshot.reason.ordinal());
+            out.writeLong(snapshot.triggerMs);
+            out.writeInt(snapshot.time.length);
+            int offset = 0;
+            for (int i = 0; i < snapshot.time.length; i++) {
+                int len = snapshot.length[i] & 0xFFFF;
+                out.writeByte(snapshot.type[i]);
+                out.writeLong(snapshot.time[i]);
+                out.writeShort(len);
+                out.write(snapshot.data, offset, len);
+                offset += len;
+            }
+            Debug.println("Flight recorder dumped " + snapshot.time.length + " records ("
+                + snapshot.reason + ") to " + filepath, EventSeverity.INFO, false, true);
+        } catch (IOException e) {
+            Debug.println("Could not write flight recorder dump: " + e.getMessage(), EventSeverity.ERROR, false, true);
+        } finally {
+            synchronized (LOCK) {
+                dumping = false;
+            }
+        }
+    }
+
+    private static class Snapshot {
+        private final Trigger reason;
+        private final long triggerMs;
+        private final long[] time;
+        private final short[] length;
+        private final byte[] type;
+        private byte[] data;
+
+        private Snapshot(Trigger reason, long triggerMs, int count) {
+            this.reason = reason;
+            this.triggerMs = triggerMs;
+            this.time = new long[count];
+            this.length = new short[count];
+            this.type = new byte[count];
+        }
+    }
+
+    public enum Type {
+        RIO_UDP_TX,
+        RIO_UDP_RX,
+        RIO_TCP_TX,
+        RIO_TCP_RX,
+        FMS_UDP_TX,
+        FMS_UDP_RX,
+        FMS_TCP_TX,
+        FMS_TCP_RX,
+        STATUS,
+        JOYSTICK,
+        NETWORK_TABLES,
+        CONSOLE;
+
+        private static final Type[] VALUES = values();
+
+        public static Type packet(Remote remote, Protocol protocol, boolean rx) {
+            return VALUES[(remote.ordinal() * 4) + (protocol.ordinal() * 2) + (rx ? 1 : 0)];
+        }
+    }
+
+    public enum Trigger {
+        DISCONNECT,
+        ESTOP,
+        BROWNOUT,
+        MANUAL
+    }
+}
@@ -0,0 +1,322 @@
+package com.boomaa.opends.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal JSON reader/writer. Objects parse to LinkedHashMap, arrays to ArrayList,
+// integral numbers to Long and everything else numeric to Double
+public class Json {
+    private final String src;
+    private int pos;
+
+    private Json(String src) {
+        this.src = src;
+    }
+
+    public static Object parse(String src) {
+        Json json = new Json(src);
+        Object value = json.readValue();
+        json.skipWhitespace();
+        if (json.pos != src.length()) {
+            throw json.error("Trailing characters");
+        }
+        return value;
+    }
+
+    public static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, value);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            writeString(sb, (String) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            double dbl = ((Number) value).doubleValue();
+            if (Double.isNaN(dbl) || Double.isInfinite(dbl)) {
+                sb.append("null");
+            } else if (dbl == Math.rint(dbl) && Math.abs(dbl) < 1e15) {
+                sb.append((long) dbl);
+            } else {
+                sb.append(dbl);
+            }
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                writeString(sb, entry.getKey());
+                sb.append(':');
+                write(sb, entry.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Iterable) {
+            sb.append('[');
+            boolean first = true;
+            for (Object item : (Iterable<Object>) value) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                write(sb, item);
+            }
+            sb.append(']');
+        } else if (value instanceof Object[]) {
+            sb.append('[');
+            Object[] arr = (Object[]) value;
+            for (int i = 0; i < arr.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                write(sb, arr[i]);
+            }
+            sb.append(']');
+        } else if (value instanceof double[]) {
+            sb.append('[');
+            double[] arr = (double[]) value;
+            for (int i = 0; i < arr.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                write(sb, arr[i]);
+            }
+            sb.append(']');
+        } else if (value instanceof boolean[]) {
+            sb.append('[');
+            boolean[] arr = (boolean[]) value;
+            for (int i = 0; i < arr.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                sb.append(arr[i]);
+            }
+            sb.append(']');
+        } else {
+            writeString(sb, String.valueOf(value));
+        }
+    }
+
+    public static void writeString(StringBuilder sb, String str) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (pos >= src.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = src.charAt(pos);
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected object key");
+            }
+            String key = readString();
+            skipWhitespace();
+            if (peek() != ':') {
+                throw error("Expected ':'");
+            }
+            pos++;
+            map.put(key, readValue());
+            skipWhitespace();
+            char c = peek();
+            pos++;
+            if (c == '}') {
+                return map;
+            } else if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            list.add(readValue());
+            skipWhitespace();
+            char c = peek();
+            pos++;
+            if (c == ']') {
+                return list;
+            } else if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        pos++;
+        StringBuilder sb = null;
+        int runStart = pos;
+        while (true) {
+            if (pos >= src.length()) {
+                throw error("Unterminated string");
+            }
+            char c = src.charAt(pos);
+            if (c == '"') {
+                String out = sb == null ? src.substring(runStart, pos) : sb.append(src, runStart, pos).toString();
+                pos++;
+                return out;
+            } else if (c == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder();
+                }
+                sb.append(src, runStart, pos);
+                pos++;
+                char esc = peek();
+                pos++;
+                switch (esc) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > src.length()) {
+                            throw error("Bad unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(src.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(esc);
+                        break;
+                }
+                runStart = pos;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private Object readNumber() {
+        int start = pos;
+        boolean integral = true;
+        while (pos < src.length()) {
+            char c = src.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Unexpected character '" + src.charAt(pos) + "'");
+        }
+        String num = src.substring(start, pos);
+        try {
+            return integral ? (Object) Long.parseLong(num) : (Object) Double.parseDouble(num);
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(num);
+        }
+    }
+
+    private void expect(String literal) {
+        if (!src.startsWith(literal, pos)) {
+            throw error("Expected " + literal);
+        }
+        pos += literal.length();
+    }
+
+    private char peek() {
+        if (pos >= src.length()) {
+            throw error("Unexpected end of input");
+        }
+        return src.charAt(pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException(msg + " at index " + pos);
+    }
+}
@@ -0,0 +1,73 @@
+package com.boomaa.opends.util;
+
+import java.util.Arrays;
+
+// Log-linear microsecond histogram: every power of two is split into 8 buckets, so any
+// percentile is within 12.5% of the true value at a fixed 4 KB no matter the range.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long total;
+    private long maxMicros;
+
+    public synchronized void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts[bucketOf(micros)]++;
+        total++;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        maxMicros = 0;
+    }
+
+    public synchronized long count() {
+        return total;
+    }
+
+    public synchronized long maxMicros() {
+        return maxMicros;
+    }
+
+    // Midpoint of the bucket holding the given percentile (0 to 100)
+    public synchronized long percentileMicros(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long lower = lowerBound(i);
+                return Math.min(maxMicros, lower + (lowerBound(i + 1) - lower) / 2);
+            }
+        }
+        return maxMicros;
+    }
+
+    public String summary() {
+        return String.format("p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d)", percentileMicros(50) / 1000.0,
+            percentileMicros(99) / 1000.0, maxMicros() / 1000.0, count());
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exp - SUB_BITS);
+    }
+}
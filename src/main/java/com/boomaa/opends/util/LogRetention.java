@@ -0,0 +1,159 @@
+package com.boomaa.opends.util;
+
+import com.boomaa.opends.display.MainJDEC;
+import com.boomaa.opends.networktables.NTRecorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the DS log folder within its size/age budgets and compresses finished
+// sessions on a low priority thread that backs off while the robot is enabled
+public class LogRetention implements Runnable {
+    private static final int DEFAULT_MAX_SIZE_MB = 1024;
+    private static final int DEFAULT_MAX_AGE_DAYS = 90;
+    private static final long ENABLED_BACKOFF_MS = 1000;
+    private static final long BLOCK_PAUSE_MS = 5;
+    private static final String[] MANAGED_EXTENSIONS = new String[] {
+        ".dslog", ".dsevents", ".dsblackbox", ".dslog" + BlockLogFile.EXTENSION, ".dsevents" + BlockLogFile.EXTENSION,
+        NTRecorder.EXTENSION
+    };
+    private static LogRetention running;
+
+    private final File folder;
+    private volatile String activeSession;
+    private volatile boolean rerun;
+
+    private LogRetention(File folder, String activeSession) {
+        this.folder = folder;
+        this.activeSession = activeSession;
+    }
+
+    public static synchronized void schedule(File folder, String activeSession) {
+        if (running != null && running.folder.equals(folder)) {
+            running.activeSession = activeSession;
+            running.rerun = true;
+            return;
+        }
+        running = new LogRetention(folder, activeSession);
+        Thread thread = new Thread(running, "opends-logretention");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            do {
+                rerun = false;
+                // the Windows folder is shared with the FRC Log Viewer, which can't read compressed logs
+                if (!OperatingSystem.isWindows()) {
+                    compressFinishedSessions();
+                }
+                enforceBudgets();
+            } while (rerun);
+        } catch (InterruptedException ignored) {
+        } finally {
+            synchronized (LogRetention.class) {
+                running = null;
+            }
+        }
+    }
+
+    private void compressFinishedSessions() throws InterruptedException {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(".dslog") || name.endsWith(".dsevents"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (isActive(file)) {
+                continue;
+            }
+            try {
+                BlockLogFile.compress(file, this::throttle);
+                if (!file.delete()) {
+                    Debug.println("Could not remove compressed log " + file.getName(), EventSeverity.WARNING);
+                }
+            } catch (IOException e) {
+                Debug.println("Could not compress log " + file.getName() + ": " + e.getMessage(), EventSeverity.WARNING);
+            }
+        }
+    }
+
+    private void enforceBudgets() {
+        File[] files = folder.listFiles((dir, name) -> isManaged(name));
+        if (files == null) {
+            return;
+        }
+        long maxAgeMs = TimeUnit.DAYS.toMillis(Parameter.LOG_MAX_AGE_DAYS.isPresent()
+            ? Parameter.LOG_MAX_AGE_DAYS.getIntValue() : DEFAULT_MAX_AGE_DAYS);
+        long maxBytes = (Parameter.LOG_MAX_SIZE_MB.isPresent()
+            ? Parameter.LOG_MAX_SIZE_MB.getIntValue() : DEFAULT_MAX_SIZE_MB) * 1024L * 1024L;
+        long now = System.currentTimeMillis();
+
+        File[] parts = folder.listFiles((dir, name) -> name.endsWith(BlockLogFile.PARTIAL_EXTENSION));
+        if (parts != null) {
+            for (File part : parts) {
+                String source = part.getPath().substring(0, part.getPath().length() - BlockLogFile.PARTIAL_EXTENSION.length());
+                if (!new File(source).exists()) {
+                    delete(part);
+                }
+            }
+        }
+
+        List<File> kept = new ArrayList<>();
+        long total = 0;
+        for (File file : files) {
+            if (isActive(file)) {
+                total += file.length();
+            } else if (now - file.lastModified() > maxAgeMs) {
+                delete(file);
+            } else {
+                kept.add(file);
+                total += file.length();
+            }
+        }
+        kept.sort(Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < kept.size() && total > maxBytes; i++) {
+            File file = kept.get(i);
+            total -= file.length();
+            delete(file);
+        }
+    }
+
+    private void delete(File file) {
+        if (file.delete()) {
+            Debug.println("Removed old log " + file.getName());
+        }
+    }
+
+    private boolean isActive(File file) {
+        String session = activeSession;
+        return session != null && file.getPath().startsWith(session);
+    }
+
+    private static boolean isManaged(String name) {
+        if (name.endsWith(BlockLogFile.PARTIAL_EXTENSION)) {
+            return false;
+        }
+        for (String ext : MANAGED_EXTENSIONS) {
+            if (name.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void throttle() throws InterruptedException {
+        while (MainJDEC.IS_ENABLED.isSelected()) {
+            Thread.sleep(ENABLED_BACKOFF_MS);
+        }
+        Thread.sleep(BLOCK_PAUSE_MS);
+    }
+}
@@ -0,0 +1,18 @@
+package com.boomaa.opends.util;
+
+public enum LogSource {
+    RIO_STDOUT("Rio Stdout"),
+    RIO_ERROR("Rio Error"),
+    DS_DEBUG("DS Debug"),
+    NETWORK_TABLES("NetworkTables");
+
+    private final String displayName;
+
+    LogSource(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
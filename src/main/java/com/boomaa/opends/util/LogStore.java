@@ -0,0 +1,340 @@
+package com.boomaa.opends.util;
+
+import com.boomaa.opends.display.Logger;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only store of the session's log lines with an incremental token index.
+// Lines are columnar and chunked so growing the store never copies old lines.
+// Every indexed word is also listed under each 1-3 character substring it contains,
+// so query tokens that may be cut off mid-word never scan the whole vocabulary.
+public class LogStore {
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+        .withZone(ZoneId.systemDefault());
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_GRAM = 3;
+    // ranges this small are cheaper to check line by line than through the index
+    private static final int DIRECT_SCAN_LINES = CHUNK_SIZE;
+    public static final int ALL_SEVERITIES = (1 << EventSeverity.values().length) - 1;
+    public static final int ALL_SOURCES = (1 << LogSource.values().length) - 1;
+
+    private static final MpscQueue<Line> pending = new MpscQueue<>(16384);
+    private static final Map<String, Postings> index = new HashMap<>();
+    private static final Map<String, List<String>> grams = new HashMap<>();
+    private static final Postings[] bySeverity = newPostings(EventSeverity.values().length);
+    private static final Postings[] bySource = newPostings(LogSource.values().length);
+    private static long[][] times = new long[16][];
+    private static byte[][] severities = new byte[16][];
+    private static byte[][] sources = new byte[16][];
+    private static String[][] texts = new String[16][];
+    private static volatile int size;
+    private static long reportedDrops;
+
+    private LogStore() {
+    }
+
+    public static void append(String text, EventSeverity severity, LogSource source) {
+        // dropped when the queue is full, counted and reported by the next indexPending()
+        pending.offer(new Line(System.currentTimeMillis(), severity, source, text));
+    }
+
+    // Moves pending lines into the store; called from the DS log flush and before queries
+    public static synchronized void indexPending() {
+        pending.drain(LogStore::store);
+        long drops = pending.getDropped();
+        if (drops != reportedDrops) {
+            String text = (drops - reportedDrops) + " log lines dropped (log store queue full)";
+            reportedDrops = drops;
+            store(new Line(System.currentTimeMillis(), EventSeverity.WARNING, LogSource.DS_DEBUG, text));
+            if (LogFilter.allows(EventSeverity.WARNING)) {
+                Logger.OUT.println("[LogStore] Warning " + text);
+            }
+        }
+    }
+
+    private static void store(Line line) {
+        int id = size;
+        int chunk = id >>> CHUNK_SHIFT;
+        if (chunk == texts.length) {
+            int grown = texts.length * 2;
+            times = Arrays.copyOf(times, grown);
+            severities = Arrays.copyOf(severities, grown);
+            sources = Arrays.copyOf(sources, grown);
+            texts = Arrays.copyOf(texts, grown);
+        }
+        if (texts[chunk] == null) {
+            times[chunk] = new long[CHUNK_SIZE];
+            severities[chunk] = new byte[CHUNK_SIZE];
+            sources[chunk] = new byte[CHUNK_SIZE];
+            texts[chunk] = new String[CHUNK_SIZE];
+        }
+        int offset = id & CHUNK_MASK;
+        times[chunk][offset] = line.time;
+        severities[chunk][offset] = (byte) line.severity.ordinal();
+        sources[chunk][offset] = (byte) line.source.ordinal();
+        texts[chunk][offset] = line.text;
+        bySeverity[line.severity.ordinal()].add(id);
+        bySource[line.source.ordinal()].add(id);
+        indexTokens(line.text, id);
+        size = id + 1;
+    }
+
+    private static void indexTokens(String text, int id) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start == -1) {
+                start = i;
+            } else if (!word && start != -1) {
+                index.computeIfAbsent(text.substring(start, i).toLowerCase(), LogStore::newWord).add(id);
+                start = -1;
+            }
+        }
+    }
+
+    private static Postings newWord(String word) {
+        for (int len = 1; len <= MAX_GRAM; len++) {
+            for (int i = 0; i + len <= word.length(); i++) {
+                List<String> words = grams.computeIfAbsent(word.substring(i, i + len), k -> new ArrayList<>());
+                // a word repeating a gram was added to its list a moment ago
+                if (words.isEmpty() || !words.get(words.size() - 1).equals(word)) {
+                    words.add(word);
+                }
+            }
+        }
+        return new Postings();
+    }
+
+    public static int size() {
+        return size;
+    }
+
+    // Ids of lines matching the query (case-insensitive substring) and the severity/source masks
+    public static synchronized int[] search(String query, int severityMask, int sourceMask) {
+        indexPending();
+        return search(query, severityMask, sourceMask, 0, size);
+    }
+
+    // Same as above restricted to ids in [from, to), so callers can extend an earlier result
+    // with only the lines stored since, without rescanning the session
+    public static synchronized int[] search(String query, int severityMask, int sourceMask, int from, int to) {
+        to = Math.min(to, size);
+        if (from >= to) {
+            return new int[0];
+        }
+        String lower = query.trim().toLowerCase();
+        if (lower.isEmpty()) {
+            return filtered(severityMask, sourceMask, from, to);
+        }
+        BitSet candidates = to - from <= DIRECT_SCAN_LINES ? null : candidates(lower, from, to);
+        int[] out = new int[16];
+        int count = 0;
+        for (int id = next(candidates, from, from); id >= 0 && id < to; id = next(candidates, from, id + 1)) {
+            int chunk = id >>> CHUNK_SHIFT;
+            int offset = id & CHUNK_MASK;
+            if ((severityMask & (1 << severities[chunk][offset])) != 0
+                && (sourceMask & (1 << sources[chunk][offset])) != 0
+                && containsIgnoreCase(texts[chunk][offset], lower)) {
+                if (count == out.length) {
+                    out = Arrays.copyOf(out, count * 2);
+                }
+                out[count++] = id;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    // Next candidate id at or after id, every id when the query had no tokens to index
+    private static int next(BitSet candidates, int from, int id) {
+        if (candidates == null) {
+            return id;
+        }
+        int bit = candidates.nextSetBit(id - from);
+        return bit < 0 ? -1 : from + bit;
+    }
+
+    // Merges the postings of the selected severities, so only matching lines are visited
+    private static int[] filtered(int severityMask, int sourceMask, int from, int to) {
+        int[] cursor = new int[bySeverity.length];
+        int[] end = new int[bySeverity.length];
+        int total = 0;
+        for (int i = 0; i < bySeverity.length; i++) {
+            if ((severityMask & (1 << i)) != 0) {
+                cursor[i] = bySeverity[i].lowerBound(from);
+                end[i] = bySeverity[i].lowerBound(to);
+                total += end[i] - cursor[i];
+            }
+        }
+        boolean allSources = (sourceMask & ALL_SOURCES) == ALL_SOURCES;
+        int[] out = new int[total];
+        int count = 0;
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < bySeverity.length; i++) {
+                if (cursor[i] < end[i] && (next == -1
+                    || bySeverity[i].ids[cursor[i]] < bySeverity[next].ids[cursor[next]])) {
+                    next = i;
+                }
+            }
+            if (next == -1) {
+                break;
+            }
+            int id = bySeverity[next].ids[cursor[next]++];
+            if (allSources || (sourceMask & (1 << sources[id >>> CHUNK_SHIFT][id & CHUNK_MASK])) != 0) {
+                out[count++] = id;
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    // Lines holding every query token; whole tokens hit the index directly, tokens cut
+    // off by the query edges go through the words sharing their rarest gram.
+    // Bit n of the result stands for id from + n
+    private static BitSet candidates(String query, int from, int to) {
+        BitSet result = null;
+        int start = -1;
+        for (int i = 0; i <= query.length(); i++) {
+            boolean word = i < query.length() && Character.isLetterOrDigit(query.charAt(i));
+            if (word && start == -1) {
+                start = i;
+            } else if (!word && start != -1) {
+                String token = query.substring(start, i);
+                BitSet hits = new BitSet(to - from);
+                if (start > 0 && i < query.length()) {
+                    Postings postings = index.get(token);
+                    if (postings != null) {
+                        postings.addTo(hits, from, to);
+                    }
+                } else {
+                    for (String candidate : wordsSharingGram(token)) {
+                        if (token.length() <= MAX_GRAM || candidate.contains(token)) {
+                            index.get(candidate).addTo(hits, from, to);
+                        }
+                    }
+                }
+                if (result == null) {
+                    result = hits;
+                } else {
+                    result.and(hits);
+                }
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    // Words containing the token outright when it is a gram itself, otherwise a superset
+    private static List<String> wordsSharingGram(String token) {
+        if (token.length() <= MAX_GRAM) {
+            return grams.getOrDefault(token, Collections.emptyList());
+        }
+        List<String> rarest = null;
+        for (int i = 0; i + MAX_GRAM <= token.length(); i++) {
+            List<String> words = grams.get(token.substring(i, i + MAX_GRAM));
+            if (words == null) {
+                return Collections.emptyList();
+            }
+            if (rarest == null || words.size() < rarest.size()) {
+                rarest = words;
+            }
+        }
+        return rarest;
+    }
+
+    private static boolean containsIgnoreCase(String text, String lower) {
+        int max = text.length() - lower.length();
+        for (int i = 0; i <= max; i++) {
+            if (text.regionMatches(true, i, lower, 0, lower.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String getText(int id) {
+        return texts[id >>> CHUNK_SHIFT][id & CHUNK_MASK];
+    }
+
+    public static EventSeverity getSeverity(int id) {
+        return EventSeverity.values()[severities[id >>> CHUNK_SHIFT][id & CHUNK_MASK]];
+    }
+
+    public static LogSource getSource(int id) {
+        return LogSource.values()[sources[id >>> CHUNK_SHIFT][id & CHUNK_MASK]];
+    }
+
+    public static String format(int id) {
+        int chunk = id >>> CHUNK_SHIFT;
+        int offset = id & CHUNK_MASK;
+        return TS_FORMAT.format(Instant.ofEpochMilli(times[chunk][offset]))
+            + " [" + EventSeverity.values()[severities[chunk][offset]]
+            + "] [" + LogSource.values()[sources[chunk][offset]].getDisplayName()
+            + "] " + texts[chunk][offset];
+    }
+
+    public static int severityMask(boolean info, boolean warning, boolean error) {
+        return (info ? 1 << EventSeverity.INFO.ordinal() : 0)
+            | (warning ? 1 << EventSeverity.WARNING.ordinal() : 0)
+            | (error ? 1 << EventSeverity.ERROR.ordinal() : 0);
+    }
+
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int count;
+
+        private void add(int id) {
+            if (count != 0 && ids[count - 1] == id) {
+                return;
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        private void addTo(BitSet set, int from, int to) {
+            for (int i = lowerBound(from); i < count && ids[i] < to; i++) {
+                set.set(ids[i] - from);
+            }
+        }
+
+        // Index of the first posting >= id
+        private int lowerBound(int id) {
+            int pos = Arrays.binarySearch(ids, 0, count, id);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+
+    private static Postings[] newPostings(int count) {
+        Postings[] postings = new Postings[count];
+        for (int i = 0; i < count; i++) {
+            postings[i] = new Postings();
+        }
+        return postings;
+    }
+
+    private static class Line {
+        private final long time;
+        private final EventSeverity severity;
+        private final LogSource source;
+        private final String text;
+
+        private Line(long time, EventSeverity severity, LogSource source, String text) {
+            this.time = time;
+            this.severity = severity;
+            this.source = source;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.boomaa.opends.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Bounded multi-producer single-consumer ring, producers never take a lock
+public class MpscQueue<E> {
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head;
+
+    public MpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E e) {
+        while (true) {
+            long pos = tail.get();
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[idx] = e;
+                    sequences.lazySet(idx, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized int drain(Consumer<? super E> action) {
+        int count = 0;
+        while (true) {
+            int idx = (int) (head & mask);
+            if (sequences.get(idx) != head + 1) {
+                return count;
+            }
+            E e = (E) buffer[idx];
+            buffer[idx] = null;
+            sequences.lazySet(idx, head + mask + 1);
+            head++;
+            action.accept(e);
+            count++;
+        }
+    }
+
+    public void clear() {
+        drain(e -> {
+        });
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
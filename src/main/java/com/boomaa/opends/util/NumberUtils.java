@@ -142,14 +142,17 @@ public class NumberUtils {
     }
 
     public static byte[] packBools(boolean[] bools) {
+        return packBools(bools, bools.length);
+    }
+
+    public static byte[] packBools(boolean[] bools, int numBools) {
         //TODO remove the flipping
-        int numBools = bools.length;
         int packedSize = numBools >> 3;
         if ((numBools & 0x07) != 0) {
             packedSize++;
         }
         byte[] out = new byte[packedSize];
-        for (int i = 0; i < bools.length; i++) {
+        for (int i = 0; i < numBools; i++) {
             if (bools[i]) {
                 out[i >> 3] |= (byte) 1 << (i & 0x07);
             }
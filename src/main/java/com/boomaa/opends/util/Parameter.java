@@ -20,11 +20,19 @@ public enum Parameter {
     DISABLE_HOTKEYS("--disable-hotkeys", Type.BOOLEAN),
     DISABLE_LOG("--disable-log", Type.BOOLEAN),
     DISABLE_NETTABLES("--disable-nettables", Type.BOOLEAN),
+    EVDEV("--evdev", Type.BOOLEAN),
     FMS_CONNECT("--fms", Type.BOOLEAN,  MainJDEC.FMS_CONNECT.getElement()),
     GAME_DATA("--game-data", Type.STRING,  MainJDEC.GAME_DATA.getElement()),
+    JS_PLAYBACK("--js-playback", Type.STRING),
+    JS_RECORD("--js-record", Type.BOOLEAN),
+    LOG_MAX_AGE_DAYS("--log-max-days", Type.INTEGER),
+    LOG_MAX_SIZE_MB("--log-max-mb", Type.INTEGER),
+    NT_VERSION("--nt-version", Type.STRING, null, "3", "4"),
     PROTOCOL_YEAR("--protocol-year", Type.INTEGER, MainJDEC.PROTOCOL_YEAR.getElement(), getProtocolYears()),
     ROBOT_DRIVE_MODE("--robot-mode", Type.STRING, MainJDEC.ROBOT_DRIVE_MODE.getElement(), getRobotModes()),
-    TEAM_NUMBER("--team-num", Type.INTEGER, MainJDEC.TEAM_NUMBER.getElement());
+    TEAM_NUMBER("--team-num", Type.INTEGER, MainJDEC.TEAM_NUMBER.getElement()),
+    VIRTUAL_JS("--virtual-js", Type.STRING),
+    VIRTUAL_JS_PORT("--virtual-js-port", Type.INTEGER);
 
     private final String flag;
     private final Type type;